@@ -0,0 +1,86 @@
+package benchmark;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import datasource.ASMParser;
+import domain.AnalyzerReturn;
+import domain.DomainAnalyzer;
+import domain.analyzer.CodeToInterfaceAnalyzer;
+import domain.analyzer.DryAnalyzer;
+import domain.analyzer.DuplicateCodeAnalyzer;
+import domain.analyzer.EqualsAndHashcodeAnalyzer;
+import domain.analyzer.ExceptionThrownAnalyzer;
+import domain.analyzer.GenericTypeNameAnalyzer;
+import domain.analyzer.HighCouplingAnalyzer;
+import domain.analyzer.ObjectAdapterIdentifierAnalyzer;
+import domain.analyzer.PrincipleOfLeastKnowledgeAnalyzer;
+import domain.analyzer.SingletonAnalyzer;
+import domain.analyzer.StrategyAnalyzer;
+import domain.analyzer.TemplateMethodAnalyzer;
+import domain.analyzer.VarNameAnalyzer;
+
+/**
+ * Each analyzer run end to end over the whole corpus, selected by the code
+ * used with the -a switch. Every run gets a freshly parsed corpus, so the
+ * parser's caches start empty as they do on the command line.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class AnalyzerBenchmark {
+
+	private static final Map<String, Function<ASMParser, DomainAnalyzer>> ANALYZERS = new HashMap<>();
+
+	static {
+		ANALYZERS.put("GN", GenericTypeNameAnalyzer::new);
+		ANALYZERS.put("VN", VarNameAnalyzer::new);
+		ANALYZERS.put("ET", ExceptionThrownAnalyzer::new);
+		ANALYZERS.put("EH", EqualsAndHashcodeAnalyzer::new);
+		ANALYZERS.put("HC", HighCouplingAnalyzer::new);
+		ANALYZERS.put("LK", PrincipleOfLeastKnowledgeAnalyzer::new);
+		ANALYZERS.put("DR", DryAnalyzer::new);
+		ANALYZERS.put("DC", DuplicateCodeAnalyzer::new);
+		ANALYZERS.put("CI", CodeToInterfaceAnalyzer::new);
+		ANALYZERS.put("SI", SingletonAnalyzer::new);
+		ANALYZERS.put("OA", ObjectAdapterIdentifierAnalyzer::new);
+		ANALYZERS.put("ST", StrategyAnalyzer::new);
+		ANALYZERS.put("TM", TemplateMethodAnalyzer::new);
+	}
+
+	@Param({ "GN", "VN", "ET", "EH", "HC", "LK", "DR", "DC", "CI", "SI", "OA", "ST", "TM" })
+	public String analyzer;
+
+	private DomainAnalyzer domainAnalyzer;
+	private String[] classNames;
+
+	@Setup(Level.Invocation)
+	public void parse(Corpus corpus) throws IOException {
+		this.domainAnalyzer = ANALYZERS.get(this.analyzer).apply(corpus.parse());
+		this.classNames = corpus.classNames;
+	}
+
+	@Benchmark
+	public AnalyzerReturn getFeedback() {
+		return this.domainAnalyzer.getFeedback(this.classNames);
+	}
+}
@@ -0,0 +1,55 @@
+package benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import datasource.ASMParser;
+
+/**
+ * The ASMParser queries that cache their answers, measured on a freshly
+ * parsed corpus so that every answer has to be computed.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class ColdParserBenchmark {
+
+	private ASMParser parser;
+	private String[] classNames;
+
+	@Setup(Level.Invocation)
+	public void parse(Corpus corpus) throws IOException {
+		this.parser = corpus.parse();
+		this.classNames = corpus.classNames;
+	}
+
+	@Benchmark
+	public void getMethodCalls(Blackhole blackhole) {
+		for (String className : this.classNames) {
+			for (String methodName : this.parser.getMethods(className)) {
+				blackhole.consume(this.parser.getMethodCalls(className, methodName));
+			}
+		}
+	}
+
+	@Benchmark
+	public void getTypeHierarchy(Blackhole blackhole) {
+		blackhole.consume(this.parser.getTypeHierarchy());
+	}
+}
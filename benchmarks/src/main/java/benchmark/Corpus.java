@@ -0,0 +1,88 @@
+package benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import corpus.CorpusGenerator;
+import datasource.ASMParser;
+import datasource.ClassFileWalker;
+
+/**
+ * A synthetic code base shared by every benchmark, generated once per trial in
+ * memory and in a temporary directory.
+ */
+@State(Scope.Benchmark)
+public class Corpus {
+
+	@Param({ "100", "1000", "10000" })
+	public int typeCount;
+
+	String[] classNames;
+	byte[][] classFiles;
+	List<Path> classFilePaths;
+	Path directory;
+
+	@Setup(Level.Trial)
+	public void generate() throws IOException {
+		Map<String, byte[]> generated = new CorpusGenerator(this.typeCount).generate();
+		this.classNames = generated.keySet().toArray(new String[generated.size()]);
+		this.classFiles = generated.values().toArray(new byte[generated.size()][]);
+
+		this.directory = Files.createTempDirectory("designlint-corpus");
+		this.classFilePaths = new ArrayList<>();
+		for (int i = 0; i < this.classNames.length; i++) {
+			Path classFile = this.directory.resolve(this.classNames[i] + ".class");
+			Files.createDirectories(classFile.getParent());
+			Files.write(classFile, this.classFiles[i]);
+			this.classFilePaths.add(classFile);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void delete() throws IOException {
+		try (Stream<Path> files = Files.walk(this.directory)) {
+			for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(file);
+			}
+		}
+	}
+
+	InputStream[] openStreams() {
+		InputStream[] streams = new InputStream[this.classFiles.length];
+		for (int i = 0; i < this.classFiles.length; i++) {
+			streams[i] = new ByteArrayInputStream(this.classFiles[i]);
+		}
+		return streams;
+	}
+
+	/**
+	 * @return A queue holding every class file path, ended the way
+	 *         ClassFileWalker ends its walks
+	 */
+	BlockingQueue<Path> fillQueue() {
+		BlockingQueue<Path> queue = new LinkedBlockingQueue<>(this.classFilePaths);
+		queue.add(ClassFileWalker.END_OF_WALK);
+		return queue;
+	}
+
+	ASMParser parse() throws IOException {
+		return new ASMParser(this.openStreams());
+	}
+}
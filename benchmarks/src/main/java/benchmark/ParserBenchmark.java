@@ -0,0 +1,76 @@
+package benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import datasource.ASMParser;
+import datasource.ClassFact;
+
+/**
+ * Parsing the whole corpus through the stream and queue constructors of
+ * ASMParser, sequentially, in parallel and in streaming mode.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ParserBenchmark {
+
+	private InputStream[] streams;
+	private BlockingQueue<Path> queue;
+
+	// Streams and queues are used up by a parse, so each invocation gets new ones
+	@Setup(Level.Invocation)
+	public void prepare(Corpus corpus) {
+		this.streams = corpus.openStreams();
+		this.queue = corpus.fillQueue();
+	}
+
+	@Benchmark
+	public ASMParser parseStreams() throws IOException {
+		return new ASMParser(this.streams);
+	}
+
+	@Benchmark
+	public ASMParser parseStreamsParallel() {
+		return new ASMParser(this.streams, Runtime.getRuntime().availableProcessors());
+	}
+
+	@Benchmark
+	public ASMParser parseStreamsRetainingNoFacts() {
+		return new ASMParser(this.streams, 1, EnumSet.noneOf(ClassFact.class));
+	}
+
+	@Benchmark
+	public ASMParser parseStreamsRetainingAllFacts() {
+		return new ASMParser(this.streams, 1, EnumSet.allOf(ClassFact.class));
+	}
+
+	@Benchmark
+	public ASMParser parseQueue() throws InterruptedException {
+		return new ASMParser(this.queue, 1, null);
+	}
+
+	@Benchmark
+	public ASMParser parseQueueParallel() throws InterruptedException {
+		return new ASMParser(this.queue, Runtime.getRuntime().availableProcessors(), null);
+	}
+}
@@ -0,0 +1,283 @@
+package benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import datasource.ASMParser;
+
+/**
+ * Every ASMParser query, asked once for each class in the corpus, or once for
+ * each method where the query takes a method name. The parser is built once
+ * per trial, so getMethodCalls is measured with a warm cache here; see
+ * {@link ColdParserBenchmark} for its first call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParserQueryBenchmark {
+
+	private ASMParser parser;
+	private String[] classNames;
+
+	@Setup(Level.Trial)
+	public void parse(Corpus corpus) throws IOException {
+		this.parser = corpus.parse();
+		this.classNames = corpus.classNames;
+		// Builds the hierarchy and fills the method call cache before measuring
+		this.parser.getTypeHierarchy();
+		for (String className : this.classNames) {
+			for (String methodName : this.parser.getMethods(className)) {
+				this.parser.getMethodCalls(className, methodName);
+			}
+		}
+	}
+
+	@Benchmark
+	public void getParsedClassNames(Blackhole blackhole) {
+		blackhole.consume(this.parser.getParsedClassNames());
+	}
+
+	@Benchmark
+	public void getTypeHierarchy(Blackhole blackhole) {
+		blackhole.consume(this.parser.getTypeHierarchy());
+	}
+
+	@Benchmark
+	public void getClassDigest(Blackhole blackhole) {
+		for (String className : this.classNames) {
+			blackhole.consume(this.parser.getClassDigest(className));
+		}
+	}
+
+	@Benchmark
+	public void getReferencedClasses(Blackhole blackhole) {
+		for (String className : this.classNames) {
+			blackhole.consume(this.parser.getReferencedClasses(className));
+		}
+	}
+
+	@Benchmark
+	public void getSuperName(Blackhole blackhole) {
+		for (String className : this.classNames) {
+			blackhole.consume(this.parser.getSuperName(className));
+		}
+	}
+
+	@Benchmark
+	public void getInterfaces(Blackhole blackhole) {
+		for (String className : this.classNames) {
+			blackhole.consume(this.parser.getInterfaces(className));
+		}
+	}
+
+	@Benchmark
+	public void getInterfacesList(Blackhole blackhole) {
+		for (String className : this.classNames) {
+			blackhole.consume(this.parser.getInterfacesList(className));
+		}
+	}
+
+	@Benchmark
+	public void getExtendsImplementsTypes(Blackhole blackhole) {
+		for (String className : this.classNames) {
+			blackhole.consume(this.parser.getExtendsImplementsTypes(className));
+		}
+	}
+
+	@Benchmark
+	public void getMethods(Blackhole blackhole) {
+		for (String className : this.classNames) {
+			blackhole.consume(this.parser.getMethods(className));
+		}
+	}
+
+	@Benchmark
+	public void getStaticMethods(Blackhole blackhole) {
+		for (String className : this.classNames) {
+			blackhole.consume(this.parser.getStaticMethods(className));
+		}
+	}
+
+	@Benchmark
+	public void getAbstractMethods(Blackhole blackhole) {
+		for (String className : this.classNames) {
+			blackhole.consume(this.parser.getAbstractMethods(className));
+		}
+	}
+
+	@Benchmark
+	public void getConcreteMethods(Blackhole blackhole) {
+		for (String className : this.classNames) {
+			blackhole.consume(this.parser.getConcreteMethods(className));
+		}
+	}
+
+	@Benchmark
+	public void getAbstractMethodsInConcrete(Blackhole blackhole) {
+		for (String className : this.classNames) {
+			List<List<String>> concreteMethods = this.parser.getConcreteMethods(className);
+			for (List<String> method : concreteMethods) {
+				blackhole.consume(this.parser.getAbstractMethodsInConcrete(className, method, concreteMethods));
+			}
+		}
+	}
+
+	@Benchmark
+	public void isClassConstructorPrivate(Blackhole blackhole) {
+		for (String className : this.classNames) {
+			blackhole.consume(this.parser.isClassConstructorPrivate(className));
+		}
+	}
+
+	@Benchmark
+	public void getClassStaticPrivateFieldNames(Blackhole blackhole) {
+		for (String className : this.classNames) {
+			blackhole.consume(this.parser.getClassStaticPrivateFieldNames(className));
+		}
+	}
+
+	@Benchmark
+	public void getClassFieldNames(Blackhole blackhole) {
+		for (String className : this.classNames) {
+			blackhole.consume(this.parser.getClassFieldNames(className));
+		}
+	}
+
+	@Benchmark
+	public void getGlobalNames(Blackhole blackhole) {
+		for (String className : this.classNames) {
+			blackhole.consume(this.parser.getGlobalNames(className));
+		}
+	}
+
+	@Benchmark
+	public void getClassFieldTypes(Blackhole blackhole) {
+		for (String className : this.classNames) {
+			blackhole.consume(this.parser.getClassFieldTypes(className));
+		}
+	}
+
+	@Benchmark
+	public void getFieldTypeNames(Blackhole blackhole) {
+		for (String className : this.classNames) {
+			blackhole.consume(this.parser.getFieldTypeNames(className));
+		}
+	}
+
+	@Benchmark
+	public void findCorrectMethodInfo(Blackhole blackhole) {
+		for (String className : this.classNames) {
+			blackhole.consume(this.parser.findCorrectMethodInfo(className, true));
+			blackhole.consume(this.parser.findCorrectMethodInfo(className, false));
+		}
+	}
+
+	@Benchmark
+	public void getSignature(Blackhole blackhole) {
+		for (String className : this.classNames) {
+			blackhole.consume(this.parser.getSignature(className));
+			blackhole.consume(this.parser.getSignatureNonEnum(className));
+		}
+	}
+
+	@Benchmark
+	public void getAllMethodReturnTypes(Blackhole blackhole) {
+		for (String className : this.classNames) {
+			blackhole.consume(this.parser.getAllMethodReturnTypes(className));
+		}
+	}
+
+	@Benchmark
+	public void getAllMethodParameterTypes(Blackhole blackhole) {
+		for (String className : this.classNames) {
+			blackhole.consume(this.parser.getAllMethodParameterTypes(className));
+		}
+	}
+
+	@Benchmark
+	public void getAllMethodBodyTypes(Blackhole blackhole) {
+		for (String className : this.classNames) {
+			blackhole.consume(this.parser.getAllMethodBodyTypes(className));
+		}
+	}
+
+	@Benchmark
+	public void getAllMethodLocalTypes(Blackhole blackhole) {
+		for (String className : this.classNames) {
+			blackhole.consume(this.parser.getAllMethodLocalTypes(className));
+		}
+	}
+
+	@Benchmark
+	public void getNormalizedMethods(Blackhole blackhole) {
+		for (String className : this.classNames) {
+			blackhole.consume(this.parser.getNormalizedMethods(className));
+		}
+	}
+
+	@Benchmark
+	public void classModifiers(Blackhole blackhole) {
+		for (String className : this.classNames) {
+			blackhole.consume(this.parser.isInterface(className));
+			blackhole.consume(this.parser.isEnum(className));
+			blackhole.consume(this.parser.isFinal(className));
+			blackhole.consume(this.parser.allMethodsStatic(className));
+		}
+	}
+
+	@Benchmark
+	public void getMethodExceptionSignature(Blackhole blackhole) {
+		for (String className : this.classNames) {
+			for (String methodName : this.parser.getMethods(className)) {
+				blackhole.consume(this.parser.getMethodExceptionSignature(className, methodName));
+			}
+		}
+	}
+
+	@Benchmark
+	public void getMethodExceptionCaught(Blackhole blackhole) {
+		for (String className : this.classNames) {
+			for (String methodName : this.parser.getMethods(className)) {
+				blackhole.consume(this.parser.getMethodExceptionCaught(className, methodName));
+			}
+		}
+	}
+
+	@Benchmark
+	public void getMethodCalls(Blackhole blackhole) {
+		for (String className : this.classNames) {
+			for (String methodName : this.parser.getMethods(className)) {
+				blackhole.consume(this.parser.getMethodCalls(className, methodName));
+			}
+		}
+	}
+
+	@Benchmark
+	public void compareMethodFromInterface(Blackhole blackhole) {
+		for (String className : this.classNames) {
+			String[] interfaces = this.parser.getInterfaces(className);
+			for (String methodName : this.parser.getMethods(className)) {
+				for (String interfaceName : interfaces) {
+					blackhole.consume(this.parser.compareMethodFromInterface(className, methodName, interfaceName));
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,45 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import presentation.PresentationLayer;
+
+/**
+ * Every analyzer run through PresentationLayer.runAnalyzers, as a command line
+ * run without switches would, on a corpus parsed from its directory before
+ * each run.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class PresentationLayerBenchmark {
+
+	private PresentationLayer presentation;
+
+	@Setup(Level.Invocation)
+	public void setupAnalyzers(Corpus corpus) {
+		this.presentation = new PresentationLayer(PresentationLayer.ALL_ANALYZERS);
+		this.presentation.setupAnalyzers(corpus.directory);
+	}
+
+	@Benchmark
+	public PresentationLayer runAnalyzers() {
+		this.presentation.runAnalyzers();
+		return this.presentation;
+	}
+}
@@ -0,0 +1,98 @@
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends a DesignLint command line to a running {@link LintDaemon} and prints
+ * the result as if LinterMain had been run directly. Takes the same switches as
+ * LinterMain, plus <code>--port=N</code> to pick the daemon to talk to. Only
+ * uses the Java runtime itself, so it starts quickly. Proves to the daemon that
+ * it runs as the same user by sending the token from the daemon's token file.
+ */
+public class LintClient {
+	public static void main(String[] args) {
+		int port = LintDaemon.DEFAULT_PORT;
+		List<String> lintArgs = new ArrayList<>();
+		for (String arg : args) {
+			if (arg.startsWith("--port=")) {
+				port = Integer.parseInt(arg.substring("--port=".length()));
+			} else {
+				lintArgs.add(arg);
+			}
+		}
+
+		int status;
+		try {
+			status = request(port, LintDaemon.defaultTokenDirectory(), lintArgs, Paths.get("").toAbsolutePath(),
+					System.out, System.err);
+		} catch (IOException e) {
+			System.err.println("ERROR: Could not reach a DesignLint daemon on port " + port + ": " + e.getMessage());
+			System.err.println("Start one with: java -cp <Path to DesignLint JAR> LintDaemon [--port=N]");
+			status = 2;
+		}
+		System.exit(status);
+	}
+
+	/**
+	 * Runs one lint request on the daemon listening on <code>port</code>,
+	 * copying its output to <code>stdout</code> and <code>stderr</code>.
+	 *
+	 * @param tokenDirectory The directory the daemon wrote its token file to
+	 * @return The exit status of the run
+	 */
+	static int request(int port, Path tokenDirectory, List<String> lintArgs, Path workingDirectory,
+			PrintStream stdout, PrintStream stderr) throws IOException {
+		String token = new String(Files.readAllBytes(LintDaemon.tokenFile(tokenDirectory, port)),
+				StandardCharsets.UTF_8);
+		try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+			return request(socket, token, lintArgs, workingDirectory, stdout, stderr);
+		}
+	}
+
+	private static int request(Socket socket, String token, List<String> lintArgs, Path workingDirectory,
+			PrintStream stdout, PrintStream stderr) throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+		out.writeUTF(LintDaemon.PROTOCOL);
+		out.writeUTF(token);
+		out.writeUTF(workingDirectory.toString());
+		out.writeInt(lintArgs.size());
+		for (String arg : lintArgs) {
+			out.writeUTF(arg);
+		}
+		out.flush();
+
+		DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+		byte[] buffer = new byte[8192];
+		while (true) {
+			byte frameType = in.readByte();
+			if (frameType == LintDaemon.EXIT_FRAME) {
+				stdout.flush();
+				stderr.flush();
+				return in.readInt();
+			}
+
+			PrintStream target = frameType == LintDaemon.ERROR_FRAME ? stderr : stdout;
+			int remaining = in.readInt();
+			while (remaining > 0) {
+				int read = in.read(buffer, 0, Math.min(buffer.length, remaining));
+				if (read < 0) {
+					throw new IOException("Daemon closed the connection early");
+				}
+				target.write(buffer, 0, read);
+				remaining -= read;
+			}
+		}
+	}
+}
@@ -0,0 +1,252 @@
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+
+import datasource.ClassFileModel;
+
+/**
+ * Keeps DesignLint running between lint requests, so that repeated runs from
+ * an IDE or a commit hook skip JVM startup and warmup, and only parse the class
+ * files that changed since the previous request. Requests are sent by
+ * {@link LintClient} over a loopback TCP connection and handled one at a time.
+ *
+ * Each request carries the client's working directory and command line. The
+ * response is the output of the run, split into frames for the client's
+ * standard output and standard error, followed by the exit status.
+ *
+ * A run reads and writes files with the daemon owner's rights, and any local
+ * user can connect to a loopback port. So the daemon writes a random token to
+ * a file only its owner can read, and rejects every request that does not
+ * start with that token.
+ */
+public class LintDaemon {
+	static final int DEFAULT_PORT = 27465;
+	static final String PROTOCOL = "DesignLint-daemon-2";
+	static final byte EXIT_FRAME = 0;
+	static final byte OUTPUT_FRAME = 1;
+	static final byte ERROR_FRAME = 2;
+	// The exit status of a request that was not run
+	static final int REJECTED_STATUS = 2;
+
+	private static final int TOKEN_BYTES = 32;
+
+	private final ServerSocket serverSocket;
+	private final ClassFileModel classModel = new ClassFileModel();
+	private final Path tokenFile;
+	private final byte[] token;
+
+	/**
+	 * Starts listening on the loopback interface, with its token in the
+	 * default token directory. Connections from other hosts are never
+	 * accepted.
+	 *
+	 * @param port The port to listen on, or 0 for any free port
+	 */
+	public LintDaemon(int port) throws IOException {
+		this(port, defaultTokenDirectory());
+	}
+
+	/**
+	 * @param port           The port to listen on, or 0 for any free port
+	 * @param tokenDirectory The directory to write the token file to
+	 */
+	public LintDaemon(int port, Path tokenDirectory) throws IOException {
+		this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+		byte[] tokenBytes = new byte[TOKEN_BYTES];
+		new SecureRandom().nextBytes(tokenBytes);
+		StringBuilder tokenText = new StringBuilder();
+		for (byte b : tokenBytes) {
+			tokenText.append(String.format("%02x", b & 0xFF));
+		}
+		this.token = tokenText.toString().getBytes(StandardCharsets.UTF_8);
+		this.tokenFile = tokenFile(tokenDirectory, this.getPort());
+		try {
+			writeOwnerOnly(this.tokenFile, this.token);
+		} catch (IOException e) {
+			this.serverSocket.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return The directory daemons write their tokens to, in the user's home
+	 */
+	static Path defaultTokenDirectory() {
+		return Paths.get(System.getProperty("user.home"), ".designlint");
+	}
+
+	/**
+	 * @return The file the token of the daemon on <code>port</code> is kept in
+	 */
+	static Path tokenFile(Path tokenDirectory, int port) {
+		return tokenDirectory.resolve("daemon-" + port + ".token");
+	}
+
+	// The file is created without any permissions for others before the token
+	// is written, so there is no moment where they could read it
+	private static void writeOwnerOnly(Path file, byte[] contents) throws IOException {
+		boolean posix = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+		Path directory = file.getParent();
+		if (!Files.isDirectory(directory)) {
+			if (posix) {
+				Files.createDirectories(directory,
+						PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+			} else {
+				Files.createDirectories(directory);
+			}
+		}
+		// A token left behind by a daemon that did not shut down cleanly
+		Files.deleteIfExists(file);
+		if (posix) {
+			Files.createFile(file, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+		} else {
+			Files.createFile(file);
+			File plainFile = file.toFile();
+			plainFile.setReadable(false, false);
+			plainFile.setReadable(true, true);
+			plainFile.setWritable(false, false);
+			plainFile.setWritable(true, true);
+		}
+		Files.write(file, contents);
+	}
+
+	public static void main(String[] args) throws IOException {
+		int port = DEFAULT_PORT;
+		for (String arg : args) {
+			if (arg.startsWith("--port=")) {
+				port = Integer.parseInt(arg.substring("--port=".length()));
+			} else {
+				System.out.println("USAGE: java -cp <Path to DesignLint JAR> LintDaemon [--port=N]");
+				System.exit(1);
+			}
+		}
+
+		LintDaemon daemon = new LintDaemon(port);
+		System.out.println("DesignLint daemon listening on " + daemon.serverSocket.getLocalSocketAddress());
+		daemon.serve();
+	}
+
+	public int getPort() {
+		return this.serverSocket.getLocalPort();
+	}
+
+	/**
+	 * Handles requests until the daemon is closed.
+	 */
+	public void serve() throws IOException {
+		while (!this.serverSocket.isClosed()) {
+			Socket socket;
+			try {
+				socket = this.serverSocket.accept();
+			} catch (IOException e) {
+				if (this.serverSocket.isClosed()) {
+					return;
+				}
+				throw e;
+			}
+
+			try (Socket client = socket) {
+				this.handle(client);
+			} catch (IOException e) {
+				// The client went away, the next one may still be fine
+				System.err.println("Lint request failed: " + e);
+			}
+		}
+	}
+
+	public void close() throws IOException {
+		try {
+			this.serverSocket.close();
+		} finally {
+			Files.deleteIfExists(this.tokenFile);
+		}
+	}
+
+	private void handle(Socket socket) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+		if (!PROTOCOL.equals(in.readUTF())) {
+			throw new IOException("Unknown lint request protocol");
+		}
+		byte[] requestToken = in.readUTF().getBytes(StandardCharsets.UTF_8);
+		if (!MessageDigest.isEqual(this.token, requestToken)) {
+			// Nothing else the client sent is looked at
+			PrintStream errors = new PrintStream(new BufferedOutputStream(new FrameOutputStream(out, ERROR_FRAME)));
+			errors.println("ERROR: Lint request rejected, the daemon token does not match " + this.tokenFile);
+			errors.flush();
+			out.writeByte(EXIT_FRAME);
+			out.writeInt(REJECTED_STATUS);
+			out.flush();
+			throw new IOException("Lint request without a valid token");
+		}
+		Path workingDirectory = Paths.get(in.readUTF());
+		String[] args = new String[in.readInt()];
+		for (int i = 0; i < args.length; i++) {
+			args[i] = in.readUTF();
+		}
+
+		PrintStream output = new PrintStream(new BufferedOutputStream(new FrameOutputStream(out, OUTPUT_FRAME)));
+		PrintStream errors = new PrintStream(new BufferedOutputStream(new FrameOutputStream(out, ERROR_FRAME)));
+		int status;
+		try {
+			status = LinterMain.run(args, workingDirectory, output, errors, this.classModel);
+		} catch (RuntimeException e) {
+			e.printStackTrace(errors);
+			status = 1;
+		}
+		output.flush();
+		errors.flush();
+
+		out.writeByte(EXIT_FRAME);
+		out.writeInt(status);
+		out.flush();
+	}
+
+	/**
+	 * Sends everything written to it as frames of one kind.
+	 */
+	private static class FrameOutputStream extends OutputStream {
+		private final DataOutputStream out;
+		private final byte frameType;
+
+		FrameOutputStream(DataOutputStream out, byte frameType) {
+			this.out = out;
+			this.frameType = frameType;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			this.write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) throws IOException {
+			if (length == 0) {
+				return;
+			}
+			// Analyzers running on several threads may report at the same time
+			synchronized (this.out) {
+				this.out.writeByte(this.frameType);
+				this.out.writeInt(length);
+				this.out.write(bytes, offset, length);
+			}
+		}
+	}
+}
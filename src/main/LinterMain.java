@@ -1,56 +1,205 @@
 
 import java.io.File;
-import java.nio.file.Files;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import datasource.ClassFileModel;
+import datasource.ExternalClasspath;
 import presentation.PresentationLayer;
+import presentation.Profile;
+import presentation.ReportFormat;
 
 public class LinterMain {
 	public static void main(String[] args) {
+		int status = run(args, null, System.out, System.err, null);
+		if (status != 0) {
+			System.exit(status);
+		}
+	}
+
+	/**
+	 * Lints the classes named by a DesignLint command line.
+	 * 
+	 * @param args             The command line arguments
+	 * @param workingDirectory The directory relative paths are resolved
+	 *                         against, or null for the current directory
+	 * @param out              Where to print findings and help output
+	 * @param err              Where to report skipped files
+	 * @param classModel       Parsed classes kept from earlier runs, or null to
+	 *                         parse every class file
+	 * @return The exit status, 0 on success
+	 */
+	static int run(String[] args, Path workingDirectory, PrintStream out, PrintStream err,
+			ClassFileModel classModel) {
+		try {
+			lint(args, workingDirectory, out, err, classModel);
+			return 0;
+		} catch (UsageException e) {
+			if (e.getMessage() != null) {
+				out.println("ERROR: " + e.getMessage());
+				out.println();
+			}
+			displayHelp(out);
+			return e.status;
+		} catch (UncheckedIOException e) {
+			err.println("ERROR: " + e.getMessage() + " " + e.getCause().getMessage());
+			return 1;
+		}
+	}
+
+	private static void lint(String[] args, Path workingDirectory, PrintStream out, PrintStream err,
+			ClassFileModel classModel) {
 		String[] classList = {};
+		Path classDirectory = null;
 		int flags = 0;
+		int parserThreads = 1;
+		int analyzerThreads = 1;
+		boolean streamingParse = false;
+		List<String> entryPrefixes = new ArrayList<>();
+		Path cacheDirectory = null;
+		List<Path> externalClasspath = null;
+		Path jdkHome = null;
+		boolean printProfile = false;
+		boolean profileClasses = false;
+		Path profileJson = null;
+		ReportFormat reportFormat = ReportFormat.TEXT;
 
 		if (args.length > 0) {
 			for (String string : args) {
 				// There should be no beginning hyphen for the list of files, therefore we can
 				// assume this is likely an actual path
 				if (string.charAt(0) != '-') {
-					classList = getClassList(string);
+					File pathListed = resolve(workingDirectory, string).toFile();
+					if (pathListed.isDirectory()) {
+						classDirectory = pathListed.toPath();
+					} else {
+						classDirectory = null;
+						classList = getClassList(pathListed);
+					}
+				} else if (string.startsWith("--cache=") && string.length() > "--cache=".length()) {
+					cacheDirectory = resolve(workingDirectory, string.substring("--cache=".length()));
+				} else if (string.startsWith("--classpath=")) {
+					externalClasspath = ExternalClasspath.parseClasspath(string.substring("--classpath=".length()),
+							workingDirectory);
+				} else if (string.startsWith("--jdk-home=") && string.length() > "--jdk-home=".length()) {
+					jdkHome = resolve(workingDirectory, string.substring("--jdk-home=".length()));
+				} else if (string.equals("--profile")) {
+					printProfile = true;
+				} else if (string.equals("--profile-classes")) {
+					printProfile = true;
+					profileClasses = true;
+				} else if (string.startsWith("--profile-json=") && string.length() > "--profile-json=".length()) {
+					profileJson = resolve(workingDirectory, string.substring("--profile-json=".length()));
+				} else if (string.startsWith("--format=")) {
+					reportFormat = getReportFormat(string.substring("--format=".length()));
+				} else if (string.length() > 1 && string.charAt(1) == 't') {
+					parserThreads = getThreadCount(string);
+				} else if (string.length() > 1 && string.charAt(1) == 'j') {
+					analyzerThreads = getThreadCount(string);
+				} else if (string.equals("-s")) {
+					streamingParse = true;
+				} else if (string.length() > 2 && string.charAt(1) == 'p') {
+					entryPrefixes.add(string.substring(2));
 				} else {
 					flags = setFlags(flags, string);
 				}
 			}
 		} else {
-			System.out.println("ERROR: DesignLint requires arguments to run!");
-			System.out.println();
-			displayHelp();
-			System.exit(1);
+			throw new UsageException("DesignLint requires arguments to run!");
 		}
 
 		// If there are no analyzer flags set, enable all of them
-		if ((flags & PresentationLayer.ALL_ANALYZERS) == 0x0) {
+		if ((flags & PresentationLayer.ANALYZER_FLAGS) == 0x0) {
 			flags = flags | PresentationLayer.ALL_ANALYZERS;
 		}
 
-		PresentationLayer frontend = new PresentationLayer(flags);
-		frontend.setupAnalyzers(classList);
-		frontend.runAnalyzers();
-		frontend.vomitOutput(System.out);
+		ExternalClasspath classpath = null;
+		if (externalClasspath != null || jdkHome != null) {
+			try {
+				classpath = new ExternalClasspath(
+						externalClasspath != null ? externalClasspath : new ArrayList<Path>(), jdkHome);
+			} catch (IOException e) {
+				throw new UsageException("Could not read the external classpath: " + e.getMessage());
+			}
+		}
+
+		Profile profile = printProfile || profileJson != null ? new Profile(profileClasses) : null;
+
+		try {
+			PresentationLayer frontend = new PresentationLayer(flags);
+			frontend.setParserThreads(parserThreads);
+			frontend.setStreamingParse(streamingParse);
+			if (!entryPrefixes.isEmpty()) {
+				frontend.setEntryPrefixes(entryPrefixes.toArray(new String[entryPrefixes.size()]));
+			}
+			frontend.setCacheDirectory(cacheDirectory);
+			frontend.setClassModel(classModel);
+			frontend.setExternalClasspath(classpath);
+			frontend.setErrorStream(err);
+			frontend.setProfile(profile);
+			frontend.setReportFormat(reportFormat);
+			if (classDirectory != null) {
+				frontend.setupAnalyzers(classDirectory);
+			} else {
+				frontend.setupAnalyzers(classList);
+			}
+
+			if (analyzerThreads > 1) {
+				ExecutorService analyzerExecutor = Executors.newFixedThreadPool(analyzerThreads);
+				frontend.setAnalyzerExecutor(analyzerExecutor);
+				try {
+					frontend.runAnalyzers(out);
+				} finally {
+					analyzerExecutor.shutdown();
+				}
+			} else {
+				frontend.runAnalyzers(out);
+			}
+
+			if (printProfile) {
+				// Keeps machine readable reports on out free of anything else
+				profile.writeTable(reportFormat == ReportFormat.TEXT ? out : err);
+			}
+			if (profileJson != null) {
+				try {
+					profile.writeJson(profileJson);
+				} catch (IOException e) {
+					err.println("Could not write the profile: " + e);
+				}
+			}
+		} finally {
+			if (classpath != null) {
+				try {
+					classpath.close();
+				} catch (IOException e) {
+					// Every class that was needed has been read
+				}
+			}
+		}
+	}
 
+	private static Path resolve(Path workingDirectory, String path) {
+		return workingDirectory == null ? Paths.get(path) : workingDirectory.resolve(path);
 	}
 
-	private static String[] getClassList(String string) {
+	// Presentation layer will not determine what files to parse, only to parse
+	// files
+	// Hence the check for which file types can be analyzed is defined here.
+	// Directories are walked by the presentation layer so parsing can start
+	// before the walk is over
+	private static String[] getClassList(File pathListed) {
 		List<String> classFilesToAnalyze = new ArrayList<>();
-		File pathListed = new File(string);
 
-		if (pathListed.isDirectory()) {
-			String[] recursed = recurseDirectory(string);
-			if (recursed != null & recursed.length > 0) {
-				classFilesToAnalyze.addAll(Arrays.asList(recursed));
-			}
-		} else if (pathListed.getName().contains(".class")) {
+		if (pathListed.getName().contains(".class")) {
+			classFilesToAnalyze.add(pathListed.getAbsolutePath());
+		} else if (PresentationLayer.isClassArchive(pathListed.getName())) {
 			classFilesToAnalyze.add(pathListed.getAbsolutePath());
 		}
 
@@ -59,32 +208,30 @@ public class LinterMain {
 		return returnList;
 	}
 
-	// Presentation layer will not determine what files to parse, only to parse
-	// files
-	// Hence directory recursion is defined here and not in the presentation layer
-	private static String[] recurseDirectory(String path) {
-		List<String> files = new ArrayList<>();
-		File currentDir = new File(path);
-
-		for (File child : currentDir.listFiles()) {
-			if (Files.isSymbolicLink(child.toPath())) {
-				throw new IllegalArgumentException(
-						"Error, I found a symlink and I don't want to touch that yucky stuff >:P");
-			} else if (child.isFile() && child.getName().contains(".class")) {
-				files.add(child.getAbsolutePath());
-			} else {
-				if (child.isDirectory()) {
-					String[] recursed = recurseDirectory(child.getAbsolutePath());
-					if (recursed != null && recursed.length > 0) {
-						files.addAll(Arrays.asList(recursed));
-					}
-				}
+	// -t and -j on their own use one thread per available processor
+	private static int getThreadCount(String switchStr) {
+		if (switchStr.length() == 2) {
+			return Runtime.getRuntime().availableProcessors();
+		}
+
+		try {
+			int threads = Integer.parseInt(switchStr.substring(2));
+			if (threads >= 1) {
+				return threads;
 			}
+		} catch (NumberFormatException e) {
+			// Falls through to the error below
 		}
 
-		String[] result = new String[files.size()];
-		files.toArray(result);
-		return result;
+		throw new UsageException("Thread count must be a positive integer!");
+	}
+
+	private static ReportFormat getReportFormat(String name) {
+		ReportFormat format = ReportFormat.forName(name);
+		if (format == null) {
+			throw new UsageException("Unknown report format: " + name);
+		}
+		return format;
 	}
 
 	private static int setFlags(int inFlags, String switchStr) {
@@ -102,9 +249,7 @@ public class LinterMain {
 				return flags;
 
 			case 'h':
-				displayHelp();
-				System.exit(0);
-				break;
+				throw new UsageException(null, 0);
 			case 'a':
 				// Limited to if-else her because string compares
 				// should also only be only two chars
@@ -135,6 +280,9 @@ public class LinterMain {
 				if (analyzerFlag.equals("DR")) {
 					return inFlags | PresentationLayer.DRY_ANALYZER_FLAG;
 				}
+				if (analyzerFlag.equals("DC")) {
+					return inFlags | PresentationLayer.DRY_CLONE_ANALYZER_FLAG;
+				}
 				if (analyzerFlag.equals("CI")) {
 					return inFlags | PresentationLayer.CODE_TO_INTERFACE_ANALYZER_FLAG;
 				}
@@ -153,52 +301,102 @@ public class LinterMain {
 
 				// Passes to default if for some reason we didn't return
 			default:
-				System.out.println("ERROR: Unexpected or Invalid Switch Encountered!");
-				System.out.println();
 				break;
 		}
 
-		displayHelp();
-		System.exit(1);
-		return 0;
+		throw new UsageException("Unexpected or Invalid Switch Encountered!");
 	}
 
-	private static void displayHelp() {
-		System.out.println("DesignLint v1.0-rc1");
-		System.out.println("USAGE:");
-		System.out.println(
-				"java -jar <Path to DesignLint JAR> [-v[v[v]]] [-h] [[-a{XX|YY|...}] [-a...] ...]  <.class file | directory>");
-		System.out.println();
-		System.out.println("SWITCHES:");
-		System.out.println("\t -v \t\t Includes summary output of analyzer-specific findings.");
-		System.out.println("\t -vv \t\t Display all errors found by the analyzers.");
-		System.out.println("\t\t\t Includes output of -v");
-		System.out.println(
+	private static void displayHelp(PrintStream out) {
+		out.println("DesignLint v" + PresentationLayer.VERSION);
+		out.println("USAGE:");
+		out.println(
+				"java -jar <Path to DesignLint JAR> [-v[v[v]]] [-h] [-t[N]] [-j[N]] [-s] [-pPREFIX ...] [--cache=DIR] [--classpath=PATH] [--jdk-home=DIR] [--profile | --profile-classes] [--profile-json=FILE] [--format=FORMAT] [[-a{XX|YY|...}] [-a...] ...]  <.class file | directory | archive>");
+		out.println();
+		out.println("SWITCHES:");
+		out.println("\t -v \t\t Includes summary output of analyzer-specific findings.");
+		out.println("\t -vv \t\t Display all errors found by the analyzers.");
+		out.println("\t\t\t Includes output of -v");
+		out.println(
 				"\t -vvv \t\t Display all output generated by analyzers (Errors, Warnings, Info, and Pattern Detection)");
-		System.out.println("\t\t\t Includes output of -v and -vv");
-		System.out.println();
-		System.out.println("\t -h \t\t Show this help output");
-		System.out.println();
-		System.out.println(
+		out.println("\t\t\t Includes output of -v and -vv");
+		out.println();
+		out.println("\t -h \t\t Show this help output");
+		out.println();
+		out.println("\t -t[N] \t\t Walk directories and parse class files using N threads, or one per processor if N is omitted.");
+		out.println("\t\t\t Unreadable class files are skipped instead of stopping the run.");
+		out.println();
+		out.println("\t -j[N] \t\t Run analyzers concurrently on N threads, or one per processor if N is omitted.");
+		out.println("\t\t\t Output is identical to a sequential run.");
+		out.println();
+		out.println("\t -s \t\t Streaming parse. Only keeps the parts of each class the selected analyzers need,");
+		out.println("\t\t\t which lowers memory use on large code bases.");
+		out.println();
+		out.println("\t -pPREFIX \t Only read classes from JAR/WAR/EAR/ZIP archives whose name starts with PREFIX,");
+		out.println("\t\t\t such as -pcom/example/. May be given more than once.");
+		out.println();
+		out.println("\t --cache=DIR \t Keep findings in DIR and only re-analyze classes that changed since the");
+		out.println("\t\t\t last run with the same analyzers, along with the classes affected by them.");
+		out.println();
+		out.println("\t --classpath=PATH \t Look up library classes in the jars and directories of PATH, separated");
+		out.println("\t\t\t as in java -cp, instead of the classpath DesignLint runs with.");
+		out.println();
+		out.println("\t --jdk-home=DIR \t Look up JDK classes in the JDK installed at DIR instead of the one");
+		out.println("\t\t\t DesignLint runs on.");
+		out.println();
+		out.println("\t --profile \t Print the wall time, CPU time and memory allocated by parsing, each phase of");
+		out.println("\t\t\t each analyzer and writing the report, after the summary.");
+		out.println();
+		out.println("\t --profile-classes \t Like --profile, and also measure each class on its own for the analyzers");
+		out.println("\t\t\t that look at one class at a time, listing the slowest classes.");
+		out.println();
+		out.println("\t --profile-json=FILE \t Write the measurements of --profile, or of --profile-classes if given,");
+		out.println("\t\t\t to FILE as JSON.");
+		out.println();
+		out.println("\t --format=FORMAT \t Write the report as text (the default), json, sarif or checkstyle-xml.");
+		out.println("\t\t\t Formats other than text list every finding whatever the verbosity, and");
+		out.println("\t\t\t --profile then prints to standard error.");
+		out.println();
+		out.println(
 				"\t -aXX \t\t Only run the analyzer specified by the code XX. This switch is used once for each analyzer desired,");
-		System.out.println("\t\t\t but excluding this switch will run all available switches.");
-		System.out.println();
-		System.out.println("ANALYZER CODES:");
-		System.out.println("\t GN - Generic Name Analyzer");
-		System.out.println("\t VN - Variable Name Analyzer");
-		System.out.println("\t ET - Exception Thrown Analyzer");
-		System.out.println("\t EH - equals() and hashcode() Analyzer");
-		System.out.println("\t HC - High Coupling Analyzer");
-		System.out.println("\t LK - Principle of Least Knowledge Analyzer");
-		System.out.println("\t DR - Don't Repeat Yourself (DRY) Analyzer");
-		System.out.println("\t CI - Code to Interface Analyzer");
-		System.out.println("\t SI - Singleton Pattern Detector");
-		System.out.println("\t OA - Object Adapter Pattern Detector");
-		System.out.println("\t ST - Strategy Pattern Detector");
-		System.out.println("\t TM - Template Method Pattern Detector");
-		System.out.println();
-		System.out.println();
-		System.out.println("This program uses OW2 ASM for Java bytecode analysis.");
-		System.out.println("For a copy of the license used by ASM, please go to https://asm.ow2.io/license.html");
+		out.println("\t\t\t but excluding this switch will run all available switches.");
+		out.println();
+		out.println("ANALYZER CODES:");
+		out.println("\t GN - Generic Name Analyzer");
+		out.println("\t VN - Variable Name Analyzer");
+		out.println("\t ET - Exception Thrown Analyzer");
+		out.println("\t EH - equals() and hashcode() Analyzer");
+		out.println("\t HC - High Coupling Analyzer");
+		out.println("\t LK - Principle of Least Knowledge Analyzer");
+		out.println("\t DR - Don't Repeat Yourself (DRY) Analyzer");
+		out.println("\t DC - DRY Analyzer, structural clone mode (duplicated bytecode fragments), only run when given");
+		out.println("\t CI - Code to Interface Analyzer");
+		out.println("\t SI - Singleton Pattern Detector");
+		out.println("\t OA - Object Adapter Pattern Detector");
+		out.println("\t ST - Strategy Pattern Detector");
+		out.println("\t TM - Template Method Pattern Detector");
+		out.println();
+		out.println();
+		out.println("This program uses OW2 ASM for Java bytecode analysis.");
+		out.println("For a copy of the license used by ASM, please go to https://asm.ow2.io/license.html");
+	}
+
+	/**
+	 * Stops a run because of a bad command line, or because help was asked for.
+	 * The help output is printed either way.
+	 */
+	private static class UsageException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		private final int status;
+
+		UsageException(String message) {
+			this(message, 1);
+		}
+
+		UsageException(String message, int status) {
+			super(message);
+			this.status = status;
+		}
 	}
 }
@@ -0,0 +1,324 @@
+package corpus;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Generates class files for a synthetic code base of any size, for measuring
+ * how DesignLint performs on projects much larger than the examples.
+ *
+ * Classes are laid out in chains as deep as the hierarchy depth, where each
+ * class extends the one before it and the first extends Object. Every class in
+ * a chain implements the same interface, taken from the generated interfaces
+ * in turn. Each class holds one field for every type it calls into, chosen at
+ * random from all generated types, and every method calls through each of
+ * those fields and a static helper. Some methods wrap their calls in a
+ * try/catch and some types declare a type parameter, in proportions set by
+ * the try/catch and generic densities.
+ *
+ * The same settings and seed always produce the same class files.
+ */
+public class CorpusGenerator {
+	private static final int TYPES_PER_PACKAGE = 50;
+	private static final String PACKAGE_ROOT = "corpus/generated/";
+	private static final String METHOD_DESC = "(I)I";
+	private static final String CAUGHT_EXCEPTION = "java/lang/IllegalStateException";
+	private static final String TYPE_PARAMETERS = "<T:Ljava/lang/Object;>";
+
+	private final int classCount;
+	private final int interfaceCount;
+	private long seed;
+	private int hierarchyDepth = 4;
+	private int methodsPerType = 5;
+	private int callFanOut = 3;
+	private double tryCatchDensity = 0.2;
+	private double genericDensity = 0.1;
+
+	/**
+	 * @param typeCount The number of classes and interfaces to generate, one in
+	 *                  five of them interfaces
+	 */
+	public CorpusGenerator(int typeCount) {
+		this(typeCount - typeCount / 5, typeCount / 5);
+	}
+
+	/**
+	 * @param classCount     The number of classes to generate
+	 * @param interfaceCount The number of interfaces to generate
+	 */
+	public CorpusGenerator(int classCount, int interfaceCount) {
+		if (classCount < 0 || interfaceCount < 0 || classCount + interfaceCount < 1) {
+			throw new IllegalArgumentException("A corpus needs at least one type!");
+		}
+		this.classCount = classCount;
+		this.interfaceCount = interfaceCount;
+	}
+
+	/**
+	 * @param seed The seed for choosing call targets, try/catch blocks and
+	 *             generic types
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * @param hierarchyDepth The number of classes in each inheritance chain
+	 */
+	public void setHierarchyDepth(int hierarchyDepth) {
+		if (hierarchyDepth < 1) {
+			throw new IllegalArgumentException("Hierarchy depth must be at least 1!");
+		}
+		this.hierarchyDepth = hierarchyDepth;
+	}
+
+	/**
+	 * @param methodsPerType The number of instance methods in every type,
+	 *                       besides constructors and the static helper
+	 */
+	public void setMethodsPerType(int methodsPerType) {
+		this.methodsPerType = methodsPerType;
+	}
+
+	/**
+	 * @param callFanOut The number of other types every class calls into from
+	 *                   each of its methods
+	 */
+	public void setCallFanOut(int callFanOut) {
+		this.callFanOut = callFanOut;
+	}
+
+	/**
+	 * @param tryCatchDensity The share of methods, from 0 to 1, that wrap their
+	 *                        calls in a try/catch
+	 */
+	public void setTryCatchDensity(double tryCatchDensity) {
+		this.tryCatchDensity = checkDensity(tryCatchDensity);
+	}
+
+	/**
+	 * @param genericDensity The share of types, from 0 to 1, that declare a
+	 *                       type parameter
+	 */
+	public void setGenericDensity(double genericDensity) {
+		this.genericDensity = checkDensity(genericDensity);
+	}
+
+	/**
+	 * @return The internal name of every generated type mapped to its class
+	 *         file, interfaces first, in generation order
+	 */
+	public Map<String, byte[]> generate() {
+		Random random = new Random(this.seed);
+		Map<String, byte[]> classFiles = new LinkedHashMap<>();
+		for (int index = 0; index < this.interfaceCount; index++) {
+			String name = interfaceName(index);
+			classFiles.put(name, this.generateInterface(name, random));
+		}
+		for (int index = 0; index < this.classCount; index++) {
+			String name = className(index);
+			classFiles.put(name, this.generateClass(index, name, random));
+		}
+		return classFiles;
+	}
+
+	/**
+	 * Writes every generated class file below <code>directory</code>, in
+	 * directories matching their packages.
+	 *
+	 * @return The internal names of the generated types, in generation order
+	 */
+	public String[] writeTo(Path directory) throws IOException {
+		Map<String, byte[]> classFiles = this.generate();
+		for (Map.Entry<String, byte[]> classFile : classFiles.entrySet()) {
+			Path target = directory.resolve(classFile.getKey() + ".class");
+			Files.createDirectories(target.getParent());
+			Files.write(target, classFile.getValue());
+		}
+		return classFiles.keySet().toArray(new String[classFiles.size()]);
+	}
+
+	private static double checkDensity(double density) {
+		if (density < 0 || density > 1) {
+			throw new IllegalArgumentException("Density must be between 0 and 1!");
+		}
+		return density;
+	}
+
+	private static String interfaceName(int index) {
+		return PACKAGE_ROOT + "p" + (index / TYPES_PER_PACKAGE) + "/Service" + index;
+	}
+
+	private static String className(int index) {
+		return PACKAGE_ROOT + "p" + (index / TYPES_PER_PACKAGE) + "/Component" + index;
+	}
+
+	/**
+	 * Generic types get a signature with a plain type parameter. Supertypes
+	 * are always used raw, so the signature never names another generic type.
+	 */
+	private String signature(Random random, String superName, String[] interfaces) {
+		if (random.nextDouble() >= this.genericDensity) {
+			return null;
+		}
+		StringBuilder signature = new StringBuilder(TYPE_PARAMETERS).append('L').append(superName).append(';');
+		for (String interfaceName : interfaces) {
+			signature.append('L').append(interfaceName).append(';');
+		}
+		return signature.toString();
+	}
+
+	private byte[] generateInterface(String name, Random random) {
+		ClassWriter writer = newClassWriter();
+		writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT | Opcodes.ACC_INTERFACE, name,
+				this.signature(random, "java/lang/Object", new String[0]), "java/lang/Object", null);
+		for (int method = 0; method < this.methodsPerType; method++) {
+			writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT, "run" + method, METHOD_DESC, null, null)
+					.visitEnd();
+		}
+		writer.visitEnd();
+		return writer.toByteArray();
+	}
+
+	private byte[] generateClass(int index, String name, Random random) {
+		int chainPosition = index % this.hierarchyDepth;
+		String superName = chainPosition == 0 ? "java/lang/Object" : className(index - 1);
+		String[] interfaces = this.interfaceCount == 0 ? new String[0]
+				: new String[] { interfaceName(index / this.hierarchyDepth % this.interfaceCount) };
+		String signature = this.signature(random, superName, interfaces);
+
+		ClassWriter writer = newClassWriter();
+		writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, signature, superName, interfaces);
+		if (signature != null) {
+			writer.visitField(Opcodes.ACC_PRIVATE, "value", "Ljava/lang/Object;", "TT;", null).visitEnd();
+		}
+
+		// Every call target is held in a field, so calls show up as coupling too
+		String[] dependencies = new String[this.callFanOut];
+		boolean[] dependencyIsInterface = new boolean[this.callFanOut];
+		for (int dependency = 0; dependency < this.callFanOut; dependency++) {
+			int target = random.nextInt(this.classCount + this.interfaceCount);
+			dependencyIsInterface[dependency] = target < this.interfaceCount;
+			dependencies[dependency] = dependencyIsInterface[dependency] ? interfaceName(target)
+					: className(target - this.interfaceCount);
+			writer.visitField(Opcodes.ACC_PRIVATE, "dependency" + dependency, "L" + dependencies[dependency] + ";",
+					null, null).visitEnd();
+		}
+
+		MethodVisitor constructor = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+		Label constructorStart = new Label();
+		Label constructorEnd = new Label();
+		constructor.visitCode();
+		constructor.visitLabel(constructorStart);
+		constructor.visitVarInsn(Opcodes.ALOAD, 0);
+		constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, superName, "<init>", "()V", false);
+		constructor.visitInsn(Opcodes.RETURN);
+		constructor.visitLabel(constructorEnd);
+		constructor.visitLocalVariable("this", "L" + name + ";", null, constructorStart, constructorEnd, 0);
+		constructor.visitMaxs(0, 0);
+		constructor.visitEnd();
+
+		for (int method = 0; method < this.methodsPerType; method++) {
+			this.generateMethod(writer, name, dependencies, dependencyIsInterface, method,
+					random.nextDouble() < this.tryCatchDensity);
+		}
+
+		MethodVisitor helper = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "helper", METHOD_DESC, null,
+				null);
+		helper.visitCode();
+		helper.visitVarInsn(Opcodes.ILOAD, 0);
+		helper.visitLdcInsn(index);
+		helper.visitInsn(Opcodes.IADD);
+		helper.visitInsn(Opcodes.IRETURN);
+		helper.visitMaxs(0, 0);
+		helper.visitEnd();
+
+		writer.visitEnd();
+		return writer.toByteArray();
+	}
+
+	/**
+	 * Generates <code>int runN(int value)</code>, which keeps a running total in
+	 * a local variable and adds to it the result of calling runN on every
+	 * dependency and then the static helper. With a try/catch, the calls are
+	 * wrapped in a handler for IllegalStateException that returns -1. Local
+	 * variables are named as javac does when compiling with debug information.
+	 */
+	private void generateMethod(ClassWriter writer, String name, String[] dependencies,
+			boolean[] dependencyIsInterface, int method, boolean tryCatch) {
+		String calledMethod = "run" + method;
+		MethodVisitor body = writer.visitMethod(Opcodes.ACC_PUBLIC, calledMethod, METHOD_DESC, null, null);
+		body.visitCode();
+		Label start = new Label();
+		Label tryStart = new Label();
+		Label tryEnd = new Label();
+		Label handler = new Label();
+		Label end = new Label();
+		if (tryCatch) {
+			body.visitTryCatchBlock(tryStart, tryEnd, handler, CAUGHT_EXCEPTION);
+		}
+		body.visitLabel(start);
+		body.visitVarInsn(Opcodes.ILOAD, 1);
+		body.visitVarInsn(Opcodes.ISTORE, 2);
+		body.visitLabel(tryStart);
+		for (int dependency = 0; dependency < dependencies.length; dependency++) {
+			String owner = dependencies[dependency];
+			body.visitVarInsn(Opcodes.ALOAD, 0);
+			body.visitFieldInsn(Opcodes.GETFIELD, name, "dependency" + dependency, "L" + owner + ";");
+			body.visitVarInsn(Opcodes.ILOAD, 2);
+			if (dependencyIsInterface[dependency]) {
+				body.visitMethodInsn(Opcodes.INVOKEINTERFACE, owner, calledMethod, METHOD_DESC, true);
+			} else {
+				body.visitMethodInsn(Opcodes.INVOKEVIRTUAL, owner, calledMethod, METHOD_DESC, false);
+			}
+			body.visitVarInsn(Opcodes.ILOAD, 2);
+			body.visitInsn(Opcodes.IADD);
+			body.visitVarInsn(Opcodes.ISTORE, 2);
+		}
+		body.visitVarInsn(Opcodes.ILOAD, 2);
+		body.visitMethodInsn(Opcodes.INVOKESTATIC, name, "helper", METHOD_DESC, false);
+		body.visitVarInsn(Opcodes.ILOAD, 2);
+		body.visitInsn(Opcodes.IADD);
+		body.visitVarInsn(Opcodes.ISTORE, 2);
+		body.visitLabel(tryEnd);
+		body.visitVarInsn(Opcodes.ILOAD, 2);
+		body.visitInsn(Opcodes.IRETURN);
+		if (tryCatch) {
+			body.visitLabel(handler);
+			body.visitVarInsn(Opcodes.ASTORE, 3);
+			body.visitInsn(Opcodes.ICONST_M1);
+			body.visitInsn(Opcodes.IRETURN);
+		}
+		body.visitLabel(end);
+		body.visitLocalVariable("this", "L" + name + ";", null, start, end, 0);
+		body.visitLocalVariable("value", "I", null, start, end, 1);
+		body.visitLocalVariable("total", "I", null, tryStart, end, 2);
+		if (tryCatch) {
+			body.visitLocalVariable("exception", "L" + CAUGHT_EXCEPTION + ";", null, handler, end, 3);
+		}
+		body.visitMaxs(0, 0);
+		body.visitEnd();
+	}
+
+	/**
+	 * The generated classes are never loaded, so frames are computed without
+	 * looking up common superclasses.
+	 */
+	private static ClassWriter newClassWriter() {
+		return new ClassWriter(ClassWriter.COMPUTE_FRAMES) {
+			@Override
+			protected String getCommonSuperClass(String firstType, String secondType) {
+				return "java/lang/Object";
+			}
+		};
+	}
+}
@@ -10,74 +10,514 @@ import org.objectweb.asm.tree.analysis.Frame;
 import org.objectweb.asm.tree.analysis.SourceInterpreter;
 import org.objectweb.asm.tree.analysis.SourceValue;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
 
 public class ASMParser {
 
-	private Map<String, ClassNode> classMap;
-	List<String> reusedDataList = new ArrayList<>();
-	List<MethodNode> reusedNodeList = new ArrayList<>();
-	ClassNode currentClassNode;
+	// Number of class streams a single parse task reads before it stops splitting
+	private static final int PARSE_TASK_THRESHOLD = 16;
+	// Constant pool tag of CONSTANT_Class entries
+	private static final int CONSTANT_CLASS_TAG = 7;
+	// Most classpath classes kept at once when they are loaded on demand
+	private static final int EXTERNAL_CLASS_CACHE_SIZE = 2048;
+
+	// Parsed classes are only written during construction, so every query
+	// method below is safe to call from several analyzers at once
+	private Map<String, ClassIndex> classMap;
+	private List<ParseFailure> parseFailures = new ArrayList<>();
+	// Call-site analysis results keyed by class, method name and descriptor.
+	// Several analyzers ask for the same methods, and the frame analysis
+	// behind each answer is the most expensive query the parser offers
+	private Map<String, List<MethodCall>> methodCallCache = new ConcurrentHashMap<>();
+	private AtomicLong methodCallRequests = new AtomicLong();
+	private AtomicLong methodCallCacheMisses = new AtomicLong();
+	// Headers of classpath classes loaded on demand while analyzing
+	private volatile ExternalClassCache externalClasses = new ExternalClassCache(EXTERNAL_CLASS_CACHE_SIZE, null);
+	private volatile boolean verifyCallSites;
+	// Built on first use from the parsed classes
+	private volatile TypeHierarchy typeHierarchy;
+	// Facts kept for parsed classes in streaming mode, null when full class
+	// trees are retained
+	private Set<ClassFact> retainedFacts;
 
+	/**
+	 * @throws IOException If a class cannot be found or read
+	 */
 	public ASMParser(String[] classList) throws IOException {
-		this.classMap = new HashMap<String, ClassNode>();
-		try {
-			for (String className : classList) {
-				className = className.replace('.', '/');
-				ClassReader reader = new ClassReader(className);
+		this.classMap = new HashMap<String, ClassIndex>();
+		for (String className : classList) {
+			className = className.replace('.', '/');
+			ClassReader reader = new ClassReader(className);
+
+			ClassNode classNode = new ClassNode();
+			reader.accept(classNode, ClassReader.EXPAND_FRAMES);
+			classMap.put(className, new ClassIndex(classNode));
+		}
+	}
 
-				this.currentClassNode = new ClassNode();
-				reader.accept(this.currentClassNode, ClassReader.EXPAND_FRAMES);
-				classMap.put(className, this.currentClassNode);
+	/**
+	 * @throws IOException If a stream cannot be read
+	 */
+	public ASMParser(InputStream[] classStreams) throws IOException {
+		this.classMap = new HashMap<>();
+		for (InputStream stream : classStreams) {
+			ClassIndex classIndex = readClass(stream);
+			classMap.put(classIndex.getName(), classIndex);
+		}
+	}
+
+	/**
+	 * Parses the given class streams across a fork-join pool with
+	 * <code>threadCount</code> workers. Unlike the sequential constructor, a
+	 * stream that cannot be read does not abort the run; it is recorded as a
+	 * {@link ParseFailure} and the remaining streams are still parsed. Parsed
+	 * classes are stored in stream order, so the result is indistinguishable from
+	 * a sequential parse of the same streams.
+	 * 
+	 * @param classStreams The streams containing class file bytecode
+	 * @param threadCount  The number of worker threads to parse with. Values of 1
+	 *                     or lower parse on the calling thread
+	 */
+	public ASMParser(InputStream[] classStreams, int threadCount) {
+		this(classStreams, threadCount, null);
+	}
+
+	/**
+	 * Parses the given class streams in streaming mode, keeping only the method
+	 * body information that <code>retainedFacts</code> asks for. Facts are
+	 * extracted from each class as soon as it is read, after which its
+	 * instructions, stack map frames and try/catch blocks are dropped. Class
+	 * files are read without stack map frames, and without code or debug
+	 * information when no requested fact needs them. Queries that depend on a
+	 * fact that was not requested throw an IllegalStateException.
+	 * 
+	 * @param classStreams  The streams containing class file bytecode
+	 * @param threadCount   The number of worker threads to parse with
+	 * @param retainedFacts The facts to keep, or null to keep full class trees
+	 *                      like {@link #ASMParser(InputStream[], int)}
+	 */
+	public ASMParser(InputStream[] classStreams, int threadCount, Set<ClassFact> retainedFacts) {
+		this.classMap = new HashMap<>();
+		if (retainedFacts != null) {
+			this.retainedFacts = EnumSet.noneOf(ClassFact.class);
+			this.retainedFacts.addAll(retainedFacts);
+		}
+		this.parseFailures = new CopyOnWriteArrayList<>();
+		ClassIndex[] parsedNodes = new ClassIndex[classStreams.length];
+
+		if (threadCount <= 1) {
+			for (int i = 0; i < classStreams.length; i++) {
+				parsedNodes[i] = parseStream(classStreams[i], i);
+			}
+		} else {
+			ForkJoinPool pool = new ForkJoinPool(threadCount);
+			try {
+				pool.invoke(new ParseTask(classStreams, parsedNodes, 0, classStreams.length));
+			} finally {
+				pool.shutdown();
 			}
-		} catch (IOException e) {
-			e.printStackTrace();
-			System.err.println("Error reading class definitions!");
-			System.exit(1);
 		}
 
+		for (ClassIndex classIndex : parsedNodes) {
+			if (classIndex != null) {
+				this.classMap.put(classIndex.getName(), classIndex);
+			}
+		}
 	}
 
-	public ASMParser(InputStream[] classStreams) throws IOException {
+	/**
+	 * Wraps classes that were already parsed, such as those kept by a
+	 * {@link ClassFileModel}. Classes are stored in the given order.
+	 * 
+	 * @param classes       Full class trees, as parsed by indexClassFile
+	 * @param parseFailures The failures to report for class files that could not
+	 *                      be parsed
+	 */
+	ASMParser(List<ClassIndex> classes, List<ParseFailure> parseFailures) {
+		this.classMap = new HashMap<>();
+		for (ClassIndex classIndex : classes) {
+			this.classMap.put(classIndex.getName(), classIndex);
+		}
+		this.parseFailures = new ArrayList<>(parseFailures);
+	}
+
+	/**
+	 * Parses class files as they arrive on a queue, typically filled by a
+	 * {@link ClassFileWalker} running on another thread, so that parsing
+	 * overlaps with directory enumeration. Reading stops at
+	 * {@link ClassFileWalker#END_OF_WALK}. Unreadable files are recorded as
+	 * {@link ParseFailure}s. Files are stored in path order once the queue is
+	 * drained, so the result does not depend on the order they arrived in.
+	 * 
+	 * @param classFiles    The queue of class file paths to parse
+	 * @param threadCount   The number of worker threads to parse with. Values of
+	 *                      1 or lower parse on the calling thread
+	 * @param retainedFacts The facts to keep, or null to keep full class trees
+	 * @throws InterruptedException If interrupted while waiting for the queue
+	 */
+	public ASMParser(BlockingQueue<Path> classFiles, int threadCount, Set<ClassFact> retainedFacts)
+			throws InterruptedException {
 		this.classMap = new HashMap<>();
+		if (retainedFacts != null) {
+			this.retainedFacts = EnumSet.noneOf(ClassFact.class);
+			this.retainedFacts.addAll(retainedFacts);
+		}
+		this.parseFailures = new CopyOnWriteArrayList<>();
+		List<ParsedFile> parsedFiles = Collections.synchronizedList(new ArrayList<>());
+
+		if (threadCount <= 1) {
+			this.drainQueue(classFiles, parsedFiles);
+		} else {
+			ExecutorService pool = Executors.newFixedThreadPool(threadCount);
+			try {
+				List<Future<?>> workers = new ArrayList<>();
+				for (int i = 0; i < threadCount; i++) {
+					workers.add(pool.submit(() -> {
+						this.drainQueue(classFiles, parsedFiles);
+						return null;
+					}));
+				}
+				for (Future<?> worker : workers) {
+					worker.get();
+				}
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Class file parsing failed", e.getCause());
+			} finally {
+				pool.shutdownNow();
+			}
+		}
+
+		parsedFiles.sort(Comparator.comparing(parsedFile -> parsedFile.path));
+		for (int i = 0; i < parsedFiles.size(); i++) {
+			ParsedFile parsedFile = parsedFiles.get(i);
+			if (parsedFile.failure != null) {
+				this.parseFailures.add(new ParseFailure(i, parsedFile.path.toString(), parsedFile.failure));
+			} else {
+				this.classMap.put(parsedFile.classIndex.getName(), parsedFile.classIndex);
+			}
+		}
+	}
+
+	/**
+	 * Parses files from the queue until the end of the walk is reached, then
+	 * puts the end marker back for the other workers.
+	 */
+	private void drainQueue(BlockingQueue<Path> classFiles, List<ParsedFile> parsedFiles)
+			throws InterruptedException {
+		Path path;
+		while ((path = classFiles.take()) != ClassFileWalker.END_OF_WALK) {
+			try (InputStream stream = Files.newInputStream(path)) {
+				ClassIndex classIndex = this.readClass(stream);
+				parsedFiles.add(new ParsedFile(path, classIndex, null));
+			} catch (IOException | RuntimeException e) {
+				parsedFiles.add(new ParsedFile(path, null, e));
+			}
+		}
+		classFiles.put(ClassFileWalker.END_OF_WALK);
+	}
+
+	private static class ParsedFile {
+		private final Path path;
+		private final ClassIndex classIndex;
+		private final Exception failure;
+
+		ParsedFile(Path path, ClassIndex classIndex, Exception failure) {
+			this.path = path;
+			this.classIndex = classIndex;
+			this.failure = failure;
+		}
+	}
+
+	/**
+	 * Reads a single class stream, recording a failure instead of throwing if the
+	 * stream is unreadable or does not contain valid bytecode.
+	 * 
+	 * @return The indexed class, or null if the stream failed
+	 */
+	private ClassIndex parseStream(InputStream stream, int index) {
 		try {
-			for (InputStream stream : classStreams) {
-				ClassReader reader = new ClassReader(stream);
+			return this.readClass(stream);
+		} catch (IOException | RuntimeException e) {
+			this.parseFailures.add(new ParseFailure(index, e));
+			return null;
+		}
+	}
 
-				this.currentClassNode = new ClassNode();
-				reader.accept(this.currentClassNode, ClassReader.EXPAND_FRAMES);
+	private ClassIndex readClass(InputStream stream) throws IOException {
+		byte[] classFile = readFully(stream);
+		if (this.retainedFacts == null) {
+			return indexClassFile(classFile);
+		}
+		ClassReader reader = new ClassReader(classFile);
+		ClassNode classNode = new ClassNode();
+		reader.accept(classNode, readerFlags(this.retainedFacts));
+		return this.extractFacts(classNode, digest(classFile), collectReferencedClasses(reader, classNode));
+	}
+
+	/**
+	 * Parses a class file, keeping its full class tree.
+	 */
+	static ClassIndex indexClassFile(byte[] classFile) {
+		ClassReader reader = new ClassReader(classFile);
+		ClassNode classNode = new ClassNode();
+		reader.accept(classNode, ClassReader.EXPAND_FRAMES);
+		return new ClassIndex(classNode, digest(classFile), collectReferencedClasses(reader, classNode));
+	}
 
-				String className = this.currentClassNode.name;
-				classMap.put(className, this.currentClassNode);
+	private static byte[] readFully(InputStream stream) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = stream.read(buffer)) != -1) {
+			bytes.write(buffer, 0, read);
+		}
+		return bytes.toByteArray();
+	}
+
+	static String digest(byte[] classFile) {
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(classFile);
+			StringBuilder hex = new StringBuilder(hash.length * 2);
+			for (byte b : hash) {
+				hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
 			}
-		} catch (IOException e) {
-			e.printStackTrace();
-			System.err.println("Error reading class definitions!");
-			System.exit(1);
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			// Every Java platform is required to support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Collects every class a class file refers to, from the class entries of its
+	 * constant pool and from the descriptors of its fields and methods. This
+	 * works even when method bodies were skipped.
+	 */
+	private static String[] collectReferencedClasses(ClassReader reader, ClassNode classNode) {
+		Set<String> referenced = new TreeSet<>();
+		char[] charBuffer = new char[reader.getMaxStringLength()];
+		for (int i = 1; i < reader.getItemCount(); i++) {
+			int offset = reader.getItem(i);
+			// The second slot of long and double constants has no offset
+			if (offset > 0 && reader.readByte(offset - 1) == CONSTANT_CLASS_TAG) {
+				addReferencedType(referenced, Type.getObjectType(reader.readUTF8(offset, charBuffer)));
+			}
+		}
+		for (FieldNode field : classNode.fields) {
+			addReferencedType(referenced, Type.getType(field.desc));
+		}
+		for (MethodNode method : classNode.methods) {
+			Type methodType = Type.getMethodType(method.desc);
+			addReferencedType(referenced, methodType.getReturnType());
+			for (Type argumentType : methodType.getArgumentTypes()) {
+				addReferencedType(referenced, argumentType);
+			}
+		}
+		referenced.remove(classNode.name);
+		return referenced.toArray(new String[referenced.size()]);
+	}
+
+	private static void addReferencedType(Set<String> referenced, Type type) {
+		if (type.getSort() == Type.ARRAY) {
+			type = type.getElementType();
+		}
+		if (type.getSort() == Type.OBJECT) {
+			referenced.add(type.getInternalName());
+		}
+	}
+
+	/**
+	 * Picks the ClassReader flags for streaming mode. Stack map frames are never
+	 * needed because call site analysis computes its own frames.
+	 */
+	private static int readerFlags(Set<ClassFact> facts) {
+		int flags = ClassReader.SKIP_FRAMES;
+		if (!facts.contains(ClassFact.LOCAL_VARIABLES) && !facts.contains(ClassFact.CALL_SITES)
+				&& !facts.contains(ClassFact.NORMALIZED_CODE)) {
+			flags |= ClassReader.SKIP_DEBUG;
+		}
+		if (facts.isEmpty()) {
+			flags |= ClassReader.SKIP_CODE;
+		}
+		return flags;
+	}
+
+	/**
+	 * Extracts the retained facts of a class read in streaming mode, then drops
+	 * the method bodies it no longer needs.
+	 */
+	private ClassIndex extractFacts(ClassNode classNode, String digest, String[] referencedClasses) {
+		Set<ClassFact> facts = this.retainedFacts;
+		String[] bodyTypes = null;
+		Map<String, String[]> caughtTypes = null;
+		List<NormalizedMethod> normalizedMethods = null;
+		if (!facts.contains(ClassFact.INSTRUCTIONS)) {
+			if (facts.contains(ClassFact.BODY_TYPES)) {
+				bodyTypes = collectMethodBodyTypes(classNode);
+			}
+			if (facts.contains(ClassFact.TRY_CATCH_TYPES)) {
+				caughtTypes = new HashMap<>();
+				for (MethodNode method : classNode.methods) {
+					caughtTypes.put(method.name, collectCaughtTypes(method));
+				}
+			}
+			if (facts.contains(ClassFact.NORMALIZED_CODE)) {
+				normalizedMethods = normalizeMethods(classNode);
+			}
+		}
+
+		ClassIndex classIndex = new ClassIndex(classNode, facts, bodyTypes, caughtTypes, normalizedMethods, digest,
+				referencedClasses);
+		if (facts.contains(ClassFact.CALL_SITES)) {
+			for (String methodName : new LinkedHashSet<>(Arrays.asList(classIndex.getMethodNames()))) {
+				this.cachedMethodCalls(classIndex.getName(), classIndex.getFirstMethod(methodName));
+			}
+		}
+
+		if (!facts.contains(ClassFact.INSTRUCTIONS)) {
+			for (MethodNode method : classNode.methods) {
+				method.instructions = new InsnList();
+				method.tryCatchBlocks = new ArrayList<>();
+				method.visibleLocalVariableAnnotations = null;
+				method.invisibleLocalVariableAnnotations = null;
+				if (!facts.contains(ClassFact.LOCAL_VARIABLES)) {
+					method.localVariables = null;
+				} else if (method.localVariables != null) {
+					// The scope labels would otherwise keep the whole instruction list reachable
+					LabelNode detached = new LabelNode();
+					List<LocalVariableNode> locals = new ArrayList<>(method.localVariables.size());
+					for (LocalVariableNode local : method.localVariables) {
+						locals.add(new LocalVariableNode(local.name, local.desc, local.signature, detached, detached,
+								local.index));
+					}
+					method.localVariables = locals;
+				}
+			}
+		}
+		return classIndex;
+	}
+
+	private ClassIndex requireFact(String className, ClassFact fact) {
+		ClassIndex classIndex = getClassIndex(className);
+		if (!classIndex.hasFact(fact)) {
+			throw new IllegalStateException(
+					"Error! " + className + " was parsed without " + fact + " information.");
+		}
+		return classIndex;
+	}
+
+	/**
+	 * Splits a range of class streams in half until it is small enough to parse
+	 * directly, letting idle workers steal the other halves.
+	 */
+	private class ParseTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final InputStream[] streams;
+		private final ClassIndex[] parsedNodes;
+		private final int start;
+		private final int end;
+
+		ParseTask(InputStream[] streams, ClassIndex[] parsedNodes, int start, int end) {
+			this.streams = streams;
+			this.parsedNodes = parsedNodes;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.end - this.start <= PARSE_TASK_THRESHOLD) {
+				for (int i = this.start; i < this.end; i++) {
+					this.parsedNodes[i] = parseStream(this.streams[i], i);
+				}
+				return;
+			}
+
+			int middle = (this.start + this.end) >>> 1;
+			invokeAll(new ParseTask(this.streams, this.parsedNodes, this.start, middle),
+					new ParseTask(this.streams, this.parsedNodes, middle, this.end));
 		}
 	}
 
 	/**
-	 * Creates an array and places the current data in the reused data list,
-	 * then clears it
+	 * Returns the class streams that could not be parsed. Only the parallel and
+	 * queue constructors record failures; the other constructors throw an
+	 * IOException instead.
 	 * 
-	 * @return The contents of reusedDataList before clearing
+	 * @return The failures in stream order
 	 */
-	private String[] dataListAsArray() {
-		String[] returnList = new String[reusedDataList.size()];
-		this.reusedDataList.toArray(returnList);
-		this.reusedDataList.clear();
-		return returnList;
+	public List<ParseFailure> getParseFailures() {
+		List<ParseFailure> failures = new ArrayList<>(this.parseFailures);
+		failures.sort(Comparator.comparingInt(ParseFailure::getStreamIndex));
+		return failures;
 	}
 
-	private List<String> dataListAsList() {
-		List<String> returnList = new ArrayList<>(this.reusedDataList);
-		this.reusedDataList.clear();
+	private static String[] listAsArray(List<String> list) {
+		String[] returnList = new String[list.size()];
+		list.toArray(returnList);
 		return returnList;
 	}
 
+	private static List<List<String>> copyMethodList(List<List<String>> methods) {
+		List<List<String>> copy = new ArrayList<>(methods.size());
+		for (List<String> method : methods) {
+			copy.add(new ArrayList<>(method));
+		}
+		return copy;
+	}
+
+	/**
+	 * Looks up a class among the parsed classes, then among the classpath classes
+	 * that have been loaded on demand and are still cached.
+	 * 
+	 * @return The class index, or null if the class is not loaded
+	 */
+	private ClassIndex getClassIndex(String className) {
+		ClassIndex classIndex = this.classMap.get(className);
+		if (classIndex == null) {
+			classIndex = this.externalClasses.getIfPresent(className);
+		}
+		return classIndex;
+	}
+
+	private ClassNode getClassNode(String className) {
+		return getClassIndex(className).getClassNode();
+	}
+
+	/**
+	 * Returns the index for a class, reading its header from the classpath if it
+	 * was not one of the parsed classes. Classpath classes carry no method
+	 * bodies.
+	 * 
+	 * @throws IOException If the class cannot be found on the classpath
+	 */
+	private ClassIndex loadClassIndex(String className) throws IOException {
+		ClassIndex classIndex = this.classMap.get(className);
+		if (classIndex != null) {
+			return classIndex;
+		}
+		return this.externalClasses.load(className);
+	}
+
 	/**
 	 * This method is for the presentation layer's functionality.
 	 * 
@@ -89,15 +529,53 @@ public class ASMParser {
 		return classNames;
 	}
 
+	/**
+	 * Returns a hash of the class file a class was parsed from, which changes
+	 * whenever the class file does.
+	 * 
+	 * @return The lowercase hex SHA-256 of the class file bytes, or null if the
+	 *         class was loaded from the classpath by name
+	 */
+	public String getClassDigest(String className) {
+		return getClassIndex(className).getDigest();
+	}
+
+	/**
+	 * Returns every class a parsed class refers to anywhere in its class file,
+	 * whether or not it was parsed, excluding the class itself.
+	 * 
+	 * @return The internal names of the referenced classes, sorted
+	 */
+	public String[] getReferencedClasses(String className) {
+		return getClassIndex(className).getReferencedClasses().clone();
+	}
+
 	public String getSuperName(String className) {
-		this.currentClassNode = this.classMap.get(className);
-		return this.currentClassNode.superName;
+		return getClassIndex(className).getSuperName();
 	}
 
 	public String[] getInterfaces(String className) {
-		this.currentClassNode = this.classMap.get(className);
-		this.reusedDataList = new ArrayList<>(this.currentClassNode.interfaces);
-		return dataListAsArray();
+		return getClassIndex(className).getInterfaces().clone();
+	}
+
+	/**
+	 * Provides the superclass and interface relationships of all parsed classes.
+	 * Built the first time it is asked for and shared after that.
+	 * 
+	 * @return The type hierarchy of the parsed classes
+	 */
+	public TypeHierarchy getTypeHierarchy() {
+		TypeHierarchy hierarchy = this.typeHierarchy;
+		if (hierarchy == null) {
+			synchronized (this) {
+				hierarchy = this.typeHierarchy;
+				if (hierarchy == null) {
+					hierarchy = new TypeHierarchy(this.classMap.values());
+					this.typeHierarchy = hierarchy;
+				}
+			}
+		}
+		return hierarchy;
 	}
 
 	/**
@@ -113,13 +591,7 @@ public class ASMParser {
 			throw new IllegalArgumentException("Error! The specified class was not found in the parsed class map.");
 		}
 
-		this.currentClassNode = this.classMap.get(className);
-
-		for (MethodNode node : this.currentClassNode.methods) {
-			reusedDataList.add(node.name);
-		}
-
-		return dataListAsArray();
+		return this.classMap.get(className).getMethodNames().clone();
 	}
 
 	/**
@@ -133,21 +605,13 @@ public class ASMParser {
 	 */
 
 	public String[] getMethodExceptionSignature(String className, String methodName) {
-		this.currentClassNode = this.classMap.get(className);
-
-		MethodNode decompMethod = null;
-		for (MethodNode node : this.currentClassNode.methods) {
-			if (node.name.equals(methodName)) {
-				decompMethod = node;
-			}
-		}
+		MethodNode decompMethod = getClassIndex(className).getLastMethod(methodName);
 
 		if (decompMethod == null) {
 			throw new IllegalArgumentException("Error! Specified Method was not found in the class!");
 		}
 
-		reusedDataList = new ArrayList<>(decompMethod.exceptions);
-		return dataListAsArray();
+		return listAsArray(decompMethod.exceptions);
 	}
 
 	/**
@@ -163,25 +627,27 @@ public class ASMParser {
 	 * 
 	 */
 	public String[] getMethodExceptionCaught(String className, String methodName) {
-		this.currentClassNode = this.classMap.get(className);
-
-		MethodNode decompMethod = null;
-		for (MethodNode node : this.currentClassNode.methods) {
-			if (node.name.equals(methodName)) {
-				decompMethod = node;
-			}
-		}
+		ClassIndex classIndex = requireFact(className, ClassFact.TRY_CATCH_TYPES);
+		MethodNode decompMethod = classIndex.getLastMethod(methodName);
 
 		if (decompMethod == null) {
 			throw new IllegalArgumentException("Error! Specified Method was not found in the class!");
 		}
 
-		List<TryCatchBlockNode> caughtExceptions = decompMethod.tryCatchBlocks;
-		for (TryCatchBlockNode block : caughtExceptions) {
-			reusedDataList.add(block.type);
+		String[] caughtTypes = classIndex.getCaughtTypes(methodName);
+		if (caughtTypes != null) {
+			return caughtTypes.clone();
+		}
+		return collectCaughtTypes(decompMethod);
+	}
+
+	private static String[] collectCaughtTypes(MethodNode method) {
+		List<String> caughtTypes = new ArrayList<>();
+		for (TryCatchBlockNode block : method.tryCatchBlocks) {
+			caughtTypes.add(block.type);
 		}
 
-		return dataListAsArray();
+		return listAsArray(caughtTypes);
 	}
 
 	/**
@@ -196,14 +662,7 @@ public class ASMParser {
 			throw new IllegalArgumentException("Error! The specified class was not found in the parsed class map.");
 		}
 
-		this.currentClassNode = this.classMap.get(className);
-
-		for (MethodNode node : this.currentClassNode.methods) {
-			if (node.access == Opcodes.ACC_PUBLIC + Opcodes.ACC_STATIC) {
-				reusedDataList.add(node.name);
-			}
-		}
-		return dataListAsArray();
+		return this.classMap.get(className).getPublicStaticMethodNames().clone();
 	}
 
 	/**
@@ -214,16 +673,7 @@ public class ASMParser {
 	 *         false
 	 */
 	public boolean isClassConstructorPrivate(String className) {
-		this.currentClassNode = this.classMap.get(className);
-
-		for (MethodNode method : this.currentClassNode.methods) {
-			if (method.name.equals("<init>")) {
-				if (method.access == Opcodes.ACC_PRIVATE) {
-					return true;
-				}
-			}
-		}
-		return false;
+		return getClassIndex(className).isConstructorPrivate();
 	}
 
 	/**
@@ -233,48 +683,21 @@ public class ASMParser {
 	 * @return list of fieldNames that are private static
 	 */
 	public String[] getClassStaticPrivateFieldNames(String className) {
-		this.currentClassNode = this.classMap.get(className);
-		this.reusedDataList = new ArrayList<>();
-
-		for (FieldNode field : this.currentClassNode.fields) {
-
-			if (field.access == Opcodes.ACC_PRIVATE + Opcodes.ACC_STATIC) {
-				this.reusedDataList.add(field.name);
-			}
-		}
-
-		return dataListAsArray();
+		return getClassIndex(className).getPrivateStaticFieldNames().clone();
 	}
 
 	public List<String> getClassFieldNames(String className) {
-		this.currentClassNode = this.classMap.get(className);
-
-		for (FieldNode field : this.currentClassNode.fields) {
-			if ((field.access & Opcodes.ACC_STATIC) == 0) {
-				this.reusedDataList.add(field.name);
-			}
-		}
-
-		return dataListAsList();
+		return new ArrayList<>(getClassIndex(className).getInstanceFieldNames());
 	}
 
 	public List<String> getGlobalNames(String className) {
-		this.currentClassNode = this.classMap.get(className);
-
-		for (FieldNode field : this.currentClassNode.fields) {
-			if ((field.access & Opcodes.ACC_STATIC) != 0) {
-				this.reusedDataList.add(field.name);
-			}
-		}
-
-		return dataListAsList();
+		return new ArrayList<>(getClassIndex(className).getStaticFieldNames());
 	}
 
 	public Map<String, List<String>> findCorrectMethodInfo(String className, Boolean names_and_vars) {
 		Map<String, List<String>> methodNames = new HashMap<>();
-		this.currentClassNode = this.classMap.get(className);
 
-		for (MethodNode method : this.currentClassNode.methods) {
+		for (MethodNode method : requireFact(className, ClassFact.LOCAL_VARIABLES).getClassNode().methods) {
 			if (method.localVariables == null) {
 				methodNames.put(method.name, new ArrayList<String>());
 			} else {
@@ -293,70 +716,43 @@ public class ASMParser {
 		return methodNames;
 	}
 
+	/**
+	 * @return The descriptors of the fields of a parsed class, or null if the
+	 *         class was not parsed
+	 */
 	public List<String> getClassFieldTypes(String className) {
-		this.currentClassNode = this.classMap.get(className);
-		if (this.currentClassNode == null) {
-			System.out.println("Node not found");
+		ClassIndex classIndex = getClassIndex(className);
+		if (classIndex == null) {
 			return null;
 		}
 
-		for (FieldNode field : this.currentClassNode.fields) {
-			this.reusedDataList.add(field.desc);
-		}
-
-		return this.reusedDataList;
+		return new ArrayList<>(classIndex.getFieldDescriptors());
 	}
 
 	public List<String> getInterfacesList(String className) {
-		if (this.classMap.get(className) == null) {
-			try {
-				ClassReader reader = new ClassReader(className);
-				this.currentClassNode = new ClassNode();
-				reader.accept(this.currentClassNode, ClassReader.EXPAND_FRAMES);
-
-				this.classMap.put(className, this.currentClassNode);
-				return this.currentClassNode.interfaces;
-			} catch (IOException e) {
-				System.out.println("Class Not Found: " + className);
-				return new ArrayList<>();
-			}
-		} else {
-			return this.classMap.get(className).interfaces;
+		try {
+			return new ArrayList<>(Arrays.asList(loadClassIndex(className).getInterfaces()));
+		} catch (IOException e) {
+			// Classes that cannot be found implement nothing we can check
+			return new ArrayList<>();
 		}
 	}
 
 	public boolean compareMethodFromInterface(String className, String methodName, String interfaceName) {
+		// Holds on to both indexes, since the cache may evict either one before
+		// the comparison
+		ClassIndex classIndex;
+		ClassIndex interfaceIndex;
 		try {
-			if (!this.classMap.keySet().contains(className)) {
-				ClassReader reader = new ClassReader(className);
-				this.currentClassNode = new ClassNode();
-				reader.accept(this.currentClassNode, ClassReader.EXPAND_FRAMES);
-				this.classMap.put(className, this.currentClassNode);
-			}
-
-			if (!this.classMap.keySet().contains(interfaceName)) {
-				ClassReader reader1 = new ClassReader(interfaceName);
-				this.currentClassNode = new ClassNode();
-				reader1.accept(this.currentClassNode, ClassReader.EXPAND_FRAMES);
-				this.classMap.put(interfaceName, this.currentClassNode);
-			}
+			classIndex = loadClassIndex(className);
+			interfaceIndex = loadClassIndex(interfaceName);
 		} catch (IOException e) {
-			e.printStackTrace();
-		}
-
-		MethodNode original;
-		MethodNode compare;
-		try {
-			original = getMethodNode(className, methodName);
-		} catch (IllegalArgumentException e) {
-			original = null;
+			// Like getInterfacesList, a class that cannot be found matches nothing
+			return false;
 		}
 
-		try {
-			compare = getMethodNode(interfaceName, methodName);
-		} catch (IllegalArgumentException e) {
-			compare = null;
-		}
+		MethodNode original = classIndex.getFirstMethod(methodName);
+		MethodNode compare = interfaceIndex.getFirstMethod(methodName);
 
 		if (original != null && compare != null) {
 			if (original.desc.compareTo(compare.desc) == 0) {
@@ -369,38 +765,16 @@ public class ASMParser {
 	}
 
 	public List<List<String>> getAbstractMethods(String className) {
-		this.currentClassNode = this.classMap.get(className);
-		this.reusedNodeList = this.currentClassNode.methods;
-		List<List<String>> abstractMethods = new ArrayList<>();
-		for (MethodNode method : this.reusedNodeList) {
-			if ((method.access & Opcodes.ACC_ABSTRACT) != 0) {
-				List<String> list = new ArrayList<>();
-				list.add(method.name);
-				list.add(method.desc);
-				abstractMethods.add(list);
-			}
-		}
-		return abstractMethods;
+		return copyMethodList(getClassIndex(className).getAbstractMethods());
 	}
 
 	public List<List<String>> getConcreteMethods(String className) {
-		this.currentClassNode = this.classMap.get(className);
-		this.reusedNodeList = this.currentClassNode.methods;
-		List<List<String>> abstractMethods = new ArrayList<>();
-		for (MethodNode method : this.reusedNodeList) {
-			if ((method.access & Opcodes.ACC_ABSTRACT) == 0) {
-				List<String> list = new ArrayList<>();
-				list.add(method.name);
-				list.add(method.desc);
-				abstractMethods.add(list);
-			}
-		}
-
-		return abstractMethods;
+		return copyMethodList(getClassIndex(className).getConcreteMethods());
 	}
 
 	public List<String> getAbstractMethodsInConcrete(String className, List<String> methodName,
 			List<List<String>> methodList) {
+		List<String> abstractCalls = new ArrayList<>();
 		List<MethodCall> methodCalls = getMethodCalls(className, methodName.get(0));
 		for (MethodCall method : methodCalls) {
 			if (method.getInvokedClass().compareTo(className) == 0) {
@@ -408,33 +782,30 @@ public class ASMParser {
 					if (methodList.get(i).get(0).compareTo(method.getCalledMethodName()) == 0) {
 						MethodNode node = getMethodNode(className, method.getCalledMethodName());
 						if ((node.access & Opcodes.ACC_ABSTRACT) != 0) {
-							reusedDataList.add(node.name);
+							abstractCalls.add(node.name);
 						}
 					}
 				}
 			}
 		}
-		return dataListAsList();
+		return abstractCalls;
 	}
 
 	public String getSignature(String className) {
-		return (this.classMap.get(className).signature);
+		return (getClassNode(className).signature);
 	}
 
 	public String getSignatureNonEnum(String className) {
-		return (this.classMap.get(className).access - 0x4000) < 0 ? this.getSignature(className) : null;
+		return (getClassIndex(className).getAccess() - 0x4000) < 0 ? this.getSignature(className) : null;
 	}
 
 	private MethodNode getMethodNode(String className, String methodName) {
-		this.currentClassNode = this.classMap.get(className);
-		this.reusedNodeList = this.currentClassNode.methods;
-		MethodNode method = null;
-		for (MethodNode mNode : this.reusedNodeList) {
-			if (mNode.name.equals(methodName)) {
-				method = mNode;
-				break;
-			}
+		ClassIndex classIndex = getClassIndex(className);
+		if (classIndex == null) {
+			throw new IllegalArgumentException("Error! The specified class was not found in the parsed class map.");
 		}
+
+		MethodNode method = classIndex.getFirstMethod(methodName);
 		if (method == null) {
 			throw new IllegalArgumentException("Error! Specified Method was not found in the class!");
 		}
@@ -450,123 +821,235 @@ public class ASMParser {
 	 * @param className  The name of the class where the method should reside in
 	 * @param methodName The name of the method to retrieve method call information
 	 *                   from
-	 * @return List of MethodCall Objects
+	 * @return Unmodifiable list of MethodCall Objects, shared between callers
 	 * 
 	 */
 	public List<MethodCall> getMethodCalls(String className, String methodName) {
-		List<MethodCall> methodCalls = new ArrayList<MethodCall>();
 		MethodNode method = this.getMethodNode(className, methodName);
-		Analyzer<SourceValue> analyzer = new Analyzer<SourceValue>(new SourceInterpreter());
-		Set<String> newVars = new HashSet<String>();
-		Set<String> fieldStructVars = new HashSet<String>();
+		requireFact(className, ClassFact.CALL_SITES);
+		return this.cachedMethodCalls(className, method);
+	}
+
+	/**
+	 * Provides the body of every method of a class that has one, reduced to
+	 * tokens that are equal for structurally identical code. Used to find
+	 * duplicated code regardless of variable names and literal values.
+	 * 
+	 * @param className The name of the class to read
+	 * @return The normalized methods in declaration order, without abstract and
+	 *         native methods
+	 */
+	public List<NormalizedMethod> getNormalizedMethods(String className) {
+		ClassIndex classIndex = requireFact(className, ClassFact.NORMALIZED_CODE);
+		if (classIndex.getNormalizedMethods() != null) {
+			return classIndex.getNormalizedMethods();
+		}
+		return normalizeMethods(classIndex.getClassNode());
+	}
+
+	private static List<NormalizedMethod> normalizeMethods(ClassNode classNode) {
+		List<NormalizedMethod> methods = new ArrayList<>();
+		for (MethodNode method : classNode.methods) {
+			if (method.instructions.size() > 0) {
+				methods.add(InstructionNormalizer.normalize(classNode.name, method));
+			}
+		}
+		return Collections.unmodifiableList(methods);
+	}
 
+	private List<MethodCall> cachedMethodCalls(String className, MethodNode method) {
+		this.methodCallRequests.incrementAndGet();
+		return this.methodCallCache.computeIfAbsent(className + '.' + method.name + method.desc, key -> {
+			this.methodCallCacheMisses.incrementAndGet();
+			return Collections.unmodifiableList(this.analyzeMethodCalls(className, method));
+		});
+	}
+
+	/**
+	 * @return The number of getMethodCalls requests answered from the cache
+	 */
+	public long getMethodCallCacheHits() {
+		return this.methodCallRequests.get() - this.methodCallCacheMisses.get();
+	}
+
+	/**
+	 * @return The number of getMethodCalls requests that ran the frame analysis
+	 */
+	public long getMethodCallCacheMisses() {
+		return this.methodCallCacheMisses.get();
+	}
+
+	/**
+	 * Sets where classes that were not parsed are looked up, such as the library
+	 * and JDK types named by getInterfacesList. Defaults to the classpath
+	 * DesignLint runs with. Must be called before analyzers run, and empties the
+	 * cache of classes already loaded.
+	 * 
+	 * @param classpath The classpath to search, or null for DesignLint's own
+	 */
+	public void setExternalClasspath(ExternalClasspath classpath) {
+		this.externalClasses = new ExternalClassCache(EXTERNAL_CLASS_CACHE_SIZE, classpath);
+	}
+
+	/**
+	 * @return The number of classpath class lookups answered from the cache,
+	 *         including classes already known to be missing
+	 */
+	public long getExternalClassCacheHits() {
+		return this.externalClasses.getHits();
+	}
+
+	/**
+	 * @return The number of classpath class lookups that had to search the
+	 *         classpath
+	 */
+	public long getExternalClassCacheMisses() {
+		return this.externalClasses.getMisses();
+	}
+
+	/**
+	 * Turns on a correctness check for the fast call site path. Every method that
+	 * is resolved without frame analysis is then also run through the full
+	 * analysis, and an IllegalStateException is thrown if the two disagree. Meant
+	 * for tests; it makes getMethodCalls slower than never using the fast path.
+	 * 
+	 * @param verifyCallSites true to compare both paths on every uncached request
+	 */
+	public void setCallSiteVerification(boolean verifyCallSites) {
+		this.verifyCallSites = verifyCallSites;
+	}
+
+	private List<MethodCall> analyzeMethodCalls(String className, MethodNode method) {
+		if (!StraightLineStack.containsMethodCall(method)) {
+			return new ArrayList<MethodCall>();
+		}
+
+		StraightLineStack straightLine = StraightLineStack.simulate(method);
+		if (straightLine == null) {
+			return this.analyzeMethodCallsWithFrames(className, method);
+		}
+
+		List<MethodCall> methodCalls = this.collectMethodCalls(method, straightLine::getStack);
+		if (this.verifyCallSites) {
+			List<MethodCall> expected = this.analyzeMethodCallsWithFrames(className, method);
+			if (!expected.equals(methodCalls)) {
+				throw new IllegalStateException("Fast call site analysis of " + className + "." + method.name
+						+ method.desc + " found " + methodCalls + " but frame analysis found " + expected);
+			}
+		}
+		return methodCalls;
+	}
+
+	private List<MethodCall> analyzeMethodCallsWithFrames(String className, MethodNode method) {
+		Analyzer<SourceValue> analyzer = new Analyzer<SourceValue>(new SourceInterpreter());
 		try {
 			Frame<SourceValue>[] frames = analyzer.analyze(className, method);
-			instructions: for (int i = 0; i < frames.length; i++) {
-				AbstractInsnNode insn = method.instructions.get(i);
-				if (insn.getType() == AbstractInsnNode.METHOD_INSN) {
-					MethodInsnNode call = (MethodInsnNode) insn;
-
-					if (call.getOpcode() == Opcodes.INVOKESPECIAL && call.name.equals("<init>")) {
-						if (!call.owner.equals("java/lang/Object") &&
-								call.getNext().getType() == AbstractInsnNode.VAR_INSN) {
-							VarInsnNode newVar = (VarInsnNode) call.getNext();
-							if (newVar.var < method.localVariables.size()) {
-								newVars.add(method.localVariables.get(newVar.var).name);
-							}
-							continue instructions;
+			return this.collectMethodCalls(method, i -> {
+				List<Collection<AbstractInsnNode>> stack = new ArrayList<>(frames[i].getStackSize());
+				for (int j = 0; j < frames[i].getStackSize(); j++) {
+					stack.add(frames[i].getStack(j).insns);
+				}
+				return stack;
+			});
+		} catch (AnalyzerException e) {
+			e.printStackTrace();
+			return new ArrayList<MethodCall>();
+		}
+	}
+
+	/**
+	 * Classifies the invoker of every call in a method.
+	 * 
+	 * @param stackAt Gives the producers of each operand stack value before a call
+	 *                instruction, bottom of the stack first
+	 */
+	private List<MethodCall> collectMethodCalls(MethodNode method,
+			IntFunction<List<Collection<AbstractInsnNode>>> stackAt) {
+		List<MethodCall> methodCalls = new ArrayList<MethodCall>();
+		Set<String> newVars = new HashSet<String>();
+		Set<String> fieldStructVars = new HashSet<String>();
+		LocalVariableScopes scopes = new LocalVariableScopes(method);
+		int argumentCount = Type.getArgumentTypes(method.desc).length;
+
+		AbstractInsnNode[] insns = method.instructions.toArray();
+		instructions: for (int i = 0; i < insns.length; i++) {
+			AbstractInsnNode insn = insns[i];
+			if (insn.getType() == AbstractInsnNode.METHOD_INSN) {
+				MethodInsnNode call = (MethodInsnNode) insn;
+
+				if (call.getOpcode() == Opcodes.INVOKESPECIAL && call.name.equals("<init>")) {
+					if (!call.owner.equals("java/lang/Object") &&
+							call.getNext().getType() == AbstractInsnNode.VAR_INSN) {
+						VarInsnNode newVar = (VarInsnNode) call.getNext();
+						if (newVar.var < method.localVariables.size()) {
+							newVars.add(method.localVariables.get(newVar.var).name);
 						}
+						continue instructions;
 					}
-					Map<Integer, LocalVariableNode> varsCurrentContext = this.getLocalVarContext(method, i);
-					for (int j = 0; j < frames[i].getStackSize(); j++) {
-						SourceValue value = (SourceValue) frames[i].getStack(j);
-						for (AbstractInsnNode insn2 : value.insns) {
-							switch (insn2.getType()) {
-								case AbstractInsnNode.FIELD_INSN:
-									methodCalls.add(new MethodCall(((MethodInsnNode) insn).name,
-											Invoker.FIELD,
-											((FieldInsnNode) insn2).name,
-											call.owner));
-									if (call.owner.length() > 9 && call.owner.substring(0, 9).equals("java/util")
-											&& call.getNext().getType() == AbstractInsnNode.TYPE_INSN) {
-										if (call.getNext().getNext().getType() == AbstractInsnNode.VAR_INSN) {
-											VarInsnNode fieldVar = (VarInsnNode) call.getNext().getNext();
-											if (varsCurrentContext.containsKey(fieldVar.var)) {
-												fieldStructVars.add(varsCurrentContext.get(fieldVar.var).name);
-											}
-										}
-									}
-									continue instructions;
-								case AbstractInsnNode.VAR_INSN:
-									VarInsnNode varInsn = (VarInsnNode) insn2;
-
-									Type[] arguments = Type.getArgumentTypes(method.desc);
-									if (varInsn.var > 0 && varInsn.var < arguments.length + 1) {
-										methodCalls.add(new MethodCall(((MethodInsnNode) insn).name,
-												Invoker.PARAMETER,
-												method.localVariables.get(varInsn.var).name,
-												call.owner));
-									} else if (!varsCurrentContext.containsKey(varInsn.var)) {
-										continue instructions;
-									} else if (newVars.contains(varsCurrentContext.get(varInsn.var).name)) {
-										methodCalls.add(new MethodCall(((MethodInsnNode) insn).name,
-												Invoker.CONSTRUCTED,
-												varsCurrentContext.get(varInsn.var).name,
-												call.owner));
-									} else {
-										Invoker type = Invoker.RETURNED;
-										if (fieldStructVars.contains(varsCurrentContext.get(varInsn.var).name)) {
-											type = Invoker.FIELD;
+				}
+				Map<Integer, LocalVariableNode> varsCurrentContext = scopes.liveAt(i);
+				for (Collection<AbstractInsnNode> producers : stackAt.apply(i)) {
+					for (AbstractInsnNode insn2 : producers) {
+						switch (insn2.getType()) {
+							case AbstractInsnNode.FIELD_INSN:
+								methodCalls.add(new MethodCall(((MethodInsnNode) insn).name,
+										Invoker.FIELD,
+										((FieldInsnNode) insn2).name,
+										call.owner));
+								if (call.owner.length() > 9 && call.owner.substring(0, 9).equals("java/util")
+										&& call.getNext().getType() == AbstractInsnNode.TYPE_INSN) {
+									if (call.getNext().getNext().getType() == AbstractInsnNode.VAR_INSN) {
+										VarInsnNode fieldVar = (VarInsnNode) call.getNext().getNext();
+										if (varsCurrentContext.containsKey(fieldVar.var)) {
+											fieldStructVars.add(varsCurrentContext.get(fieldVar.var).name);
 										}
-										methodCalls.add(new MethodCall(((MethodInsnNode) insn).name,
-												type,
-												varsCurrentContext.get(varInsn.var).name,
-												call.owner));
 									}
+								}
+								continue instructions;
+							case AbstractInsnNode.VAR_INSN:
+								VarInsnNode varInsn = (VarInsnNode) insn2;
+
+								if (varInsn.var > 0 && varInsn.var < argumentCount + 1) {
+									methodCalls.add(new MethodCall(((MethodInsnNode) insn).name,
+											Invoker.PARAMETER,
+											method.localVariables.get(varInsn.var).name,
+											call.owner));
+								} else if (!varsCurrentContext.containsKey(varInsn.var)) {
 									continue instructions;
-								case AbstractInsnNode.METHOD_INSN:
+								} else if (newVars.contains(varsCurrentContext.get(varInsn.var).name)) {
+									methodCalls.add(new MethodCall(((MethodInsnNode) insn).name,
+											Invoker.CONSTRUCTED,
+											varsCurrentContext.get(varInsn.var).name,
+											call.owner));
+								} else {
 									Invoker type = Invoker.RETURNED;
+									if (fieldStructVars.contains(varsCurrentContext.get(varInsn.var).name)) {
+										type = Invoker.FIELD;
+									}
 									methodCalls.add(new MethodCall(((MethodInsnNode) insn).name,
 											type,
-											"",
+											varsCurrentContext.get(varInsn.var).name,
 											call.owner));
-									continue instructions;
-								default:
-									break;
-							}
+								}
+								continue instructions;
+							case AbstractInsnNode.METHOD_INSN:
+								Invoker type = Invoker.RETURNED;
+								methodCalls.add(new MethodCall(((MethodInsnNode) insn).name,
+										type,
+										"",
+										call.owner));
+								continue instructions;
+							default:
+								break;
 						}
 					}
 				}
 			}
-		} catch (AnalyzerException e) {
-			e.printStackTrace();
 		}
 
 		return methodCalls;
 	}
 
-	private Map<Integer, LocalVariableNode> getLocalVarContext(MethodNode method, int index) {
-		Map<Integer, LocalVariableNode> vars = new HashMap<Integer, LocalVariableNode>();
-		int localVarIndex = 0;
-		for (LocalVariableNode var : method.localVariables) {
-			int start = 0;
-			int end = 0;
-			for (int i = 0; i < method.instructions.size(); i++) {
-				if (method.instructions.get(i) == var.start) {
-					start = i;
-				}
-				if (method.instructions.get(i) == var.end) {
-					end = i;
-				}
-			}
-			if (start <= index && index < end) {
-				vars.put(localVarIndex, var);
-				localVarIndex++;
-			}
-		}
-		return vars;
-	}
-
 	/**
 	 * Determines all of the types used by fields of a specified parsed class.
 	 * This does not actually associate any information about what field has what
@@ -578,9 +1061,9 @@ public class ASMParser {
 	 */
 	public String[] getFieldTypeNames(String className) {
 		Set<String> types = new HashSet<>();
-		this.currentClassNode = this.classMap.get(className);
+		ClassNode classNode = getClassNode(className);
 
-		for (FieldNode field : this.currentClassNode.fields) {
+		for (FieldNode field : classNode.fields) {
 			String internalTypeName = field.desc;
 			String betterTypeName = Type.getType(internalTypeName).getInternalName();
 
@@ -612,9 +1095,9 @@ public class ASMParser {
 
 	public String[] getAllMethodReturnTypes(String className) {
 		Set<String> types = new HashSet<>();
-		this.currentClassNode = this.classMap.get(className);
+		ClassNode classNode = getClassNode(className);
 
-		for (MethodNode method : this.currentClassNode.methods) {
+		for (MethodNode method : classNode.methods) {
 			String betterTypeName = Type.getReturnType(method.desc).getInternalName();
 
 			betterTypeName = betterTypeName.replaceAll("\\(.*\\)", "");
@@ -642,9 +1125,9 @@ public class ASMParser {
 	 */
 	public String[] getAllMethodParameterTypes(String className) {
 		Set<String> types = new HashSet<>();
-		this.currentClassNode = this.classMap.get(className);
+		ClassNode classNode = getClassNode(className);
 
-		for (MethodNode method : this.currentClassNode.methods) {
+		for (MethodNode method : classNode.methods) {
 			for (Type paramType : Type.getArgumentTypes(method.desc)) {
 				String betterTypeName = "";
 				if (paramType.getSort() == Type.ARRAY) {
@@ -669,10 +1152,17 @@ public class ASMParser {
 	}
 
 	public String[] getAllMethodBodyTypes(String className) {
+		ClassIndex classIndex = requireFact(className, ClassFact.BODY_TYPES);
+		if (classIndex.getMethodBodyTypes() != null) {
+			return classIndex.getMethodBodyTypes().clone();
+		}
+		return collectMethodBodyTypes(classIndex.getClassNode());
+	}
+
+	private static String[] collectMethodBodyTypes(ClassNode classNode) {
 		Set<String> types = new HashSet<>();
-		this.currentClassNode = this.classMap.get(className);
 
-		for (MethodNode method : this.currentClassNode.methods) {
+		for (MethodNode method : classNode.methods) {
 			for (AbstractInsnNode instruction : method.instructions) {
 				String betterTypeName = "";
 
@@ -709,9 +1199,9 @@ public class ASMParser {
 
 	public String[] getAllMethodLocalTypes(String className) {
 		Set<String> types = new HashSet<>();
-		this.currentClassNode = this.classMap.get(className);
+		ClassNode classNode = requireFact(className, ClassFact.LOCAL_VARIABLES).getClassNode();
 
-		for (MethodNode method : this.currentClassNode.methods) {
+		for (MethodNode method : classNode.methods) {
 			if (method.localVariables != null) {
 				for (LocalVariableNode local : method.localVariables) {
 
@@ -744,12 +1234,8 @@ public class ASMParser {
 
 	public String[] getExtendsImplementsTypes(String className) {
 		Set<String> types = new HashSet<>();
-		this.currentClassNode = this.classMap.get(className);
-
-		if (this.currentClassNode.interfaces != null) {
-			for (String interfaceType : this.currentClassNode.interfaces) {
-				types.add(interfaceType);
-			}
+		for (String interfaceType : getClassIndex(className).getInterfaces()) {
+			types.add(interfaceType);
 		}
 
 		String[] result = new String[types.size()];
@@ -758,24 +1244,18 @@ public class ASMParser {
 	}
 
 	public boolean isInterface(String className) {
-		return ((this.classMap.get(className).access & Opcodes.ACC_INTERFACE) == Opcodes.ACC_INTERFACE);
+		return ((getClassIndex(className).getAccess() & Opcodes.ACC_INTERFACE) == Opcodes.ACC_INTERFACE);
 	}
 
 	public boolean isEnum(String className) {
-		return ((this.classMap.get(className).access & Opcodes.ACC_ENUM) == Opcodes.ACC_ENUM);
+		return ((getClassIndex(className).getAccess() & Opcodes.ACC_ENUM) == Opcodes.ACC_ENUM);
 	}
 
 	public boolean isFinal(String className) {
-		return (this.classMap.get(className).access & Opcodes.ACC_FINAL) == Opcodes.ACC_FINAL;
+		return (getClassIndex(className).getAccess() & Opcodes.ACC_FINAL) == Opcodes.ACC_FINAL;
 	}
 
 	public boolean allMethodsStatic(String className) {
-		for (MethodNode method : this.classMap.get(className).methods) {
-			if ((!method.name.equals("<init>") &&
-					(method.access & Opcodes.ACC_STATIC) != Opcodes.ACC_STATIC)) {
-				return false;
-			}
-		}
-		return true;
+		return getClassIndex(className).isAllMethodsStatic();
 	}
 }
@@ -0,0 +1,240 @@
+package datasource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Reads class files straight out of a JAR, WAR, EAR or ZIP archive without
+ * extracting it to disk. Classes stored directly in the archive are streamed
+ * from the {@link ZipFile} when the parser reads them. Library jars nested in
+ * <code>WEB-INF/lib</code> or <code>BOOT-INF/lib</code> are read from the outer
+ * archive in a single pass, and only their class files are held in memory.
+ *
+ * The streams returned by this class are only readable until it is closed.
+ */
+public class ArchiveClassSource implements Closeable {
+	private static final String[] ARCHIVE_EXTENSIONS = { ".jar", ".war", ".ear", ".zip" };
+	// Directories that hold the application's own classes in WARs and Spring Boot jars
+	private static final String[] CLASS_ROOTS = { "WEB-INF/classes/", "BOOT-INF/classes/" };
+	private static final String[] LIBRARY_ROOTS = { "WEB-INF/lib/", "BOOT-INF/lib/" };
+
+	private final ZipFile archive;
+	private final String archivePath;
+	private final String[] entryPrefixes;
+	private final List<String> entryNames = new ArrayList<>();
+	private final List<InputStream> streams = new ArrayList<>();
+
+	/**
+	 * Opens an archive and finds every class file in it, including those in
+	 * nested library jars.
+	 *
+	 * @param archivePath   The path of the archive to read
+	 * @param entryPrefixes Only classes whose internal name starts with one of
+	 *                      these prefixes are read, for example
+	 *                      <code>com/example/</code>. Null or empty reads every
+	 *                      class
+	 * @throws IOException If the archive or a nested jar cannot be read
+	 */
+	public ArchiveClassSource(String archivePath, String[] entryPrefixes) throws IOException {
+		this.archivePath = archivePath;
+		this.entryPrefixes = normalizePrefixes(entryPrefixes);
+		this.archive = new ZipFile(archivePath);
+		try {
+			this.scanArchive();
+		} catch (IOException | RuntimeException e) {
+			this.archive.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return true if the path names a file type this class can read
+	 */
+	public static boolean isArchive(String path) {
+		String lowerPath = path.toLowerCase(Locale.ROOT);
+		for (String extension : ARCHIVE_EXTENSIONS) {
+			if (lowerPath.endsWith(extension)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return A readable location for each class, such as
+	 *         <code>app.war!/WEB-INF/lib/util.jar!/com/example/Util.class</code>,
+	 *         in the same order as {@link #getStreams()}
+	 */
+	public String[] getEntryNames() {
+		return this.entryNames.toArray(new String[this.entryNames.size()]);
+	}
+
+	/**
+	 * @return One stream of class file bytecode for each class found
+	 */
+	public InputStream[] getStreams() {
+		return this.streams.toArray(new InputStream[this.streams.size()]);
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.archive.close();
+	}
+
+	private void scanArchive() throws IOException {
+		Enumeration<? extends ZipEntry> entries = this.archive.entries();
+		while (entries.hasMoreElements()) {
+			ZipEntry entry = entries.nextElement();
+			if (entry.isDirectory()) {
+				continue;
+			}
+
+			String name = entry.getName();
+			if (isNestedLibrary(name)) {
+				this.scanNestedLibrary(entry);
+			} else if (this.isWantedClass(name)) {
+				this.entryNames.add(this.archivePath + "!/" + name);
+				this.streams.add(new EntryStream(this.archive, entry));
+			}
+		}
+	}
+
+	private void scanNestedLibrary(ZipEntry libraryEntry) throws IOException {
+		try (ZipInputStream library = new ZipInputStream(this.archive.getInputStream(libraryEntry))) {
+			ZipEntry entry;
+			while ((entry = library.getNextEntry()) != null) {
+				if (!entry.isDirectory() && this.isWantedClass(entry.getName())) {
+					this.entryNames.add(this.archivePath + "!/" + libraryEntry.getName() + "!/" + entry.getName());
+					this.streams.add(new ByteArrayInputStream(readFully(library)));
+				}
+			}
+		}
+	}
+
+	private static boolean isNestedLibrary(String name) {
+		if (!name.endsWith(".jar")) {
+			return false;
+		}
+		for (String root : LIBRARY_ROOTS) {
+			if (name.startsWith(root)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean isWantedClass(String name) {
+		// Multi-release variants and other metadata would shadow the real classes
+		if (!name.endsWith(".class") || name.startsWith("META-INF/")) {
+			return false;
+		}
+		if (this.entryPrefixes.length == 0) {
+			return true;
+		}
+
+		String className = name;
+		for (String root : CLASS_ROOTS) {
+			if (className.startsWith(root)) {
+				className = className.substring(root.length());
+				break;
+			}
+		}
+		for (String prefix : this.entryPrefixes) {
+			if (className.startsWith(prefix)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static String[] normalizePrefixes(String[] entryPrefixes) {
+		if (entryPrefixes == null) {
+			return new String[0];
+		}
+		String[] normalized = new String[entryPrefixes.length];
+		for (int i = 0; i < entryPrefixes.length; i++) {
+			normalized[i] = entryPrefixes[i].replace('.', '/');
+		}
+		return normalized;
+	}
+
+	private static byte[] readFully(InputStream stream) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = stream.read(buffer)) != -1) {
+			bytes.write(buffer, 0, read);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Opens its archive entry on the first read and releases it again once the
+	 * end is reached, so that large archives do not hold an inflater open for
+	 * every class at once.
+	 */
+	private static class EntryStream extends InputStream {
+		private final ZipFile archive;
+		private final ZipEntry entry;
+		private InputStream delegate;
+		private boolean finished;
+
+		EntryStream(ZipFile archive, ZipEntry entry) {
+			this.archive = archive;
+			this.entry = entry;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (!this.open()) {
+				return -1;
+			}
+			int value = this.delegate.read();
+			if (value == -1) {
+				this.close();
+			}
+			return value;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			if (!this.open()) {
+				return -1;
+			}
+			int read = this.delegate.read(buffer, offset, length);
+			if (read == -1) {
+				this.close();
+			}
+			return read;
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.finished = true;
+			if (this.delegate != null) {
+				this.delegate.close();
+				this.delegate = null;
+			}
+		}
+
+		private boolean open() throws IOException {
+			if (this.finished) {
+				return false;
+			}
+			if (this.delegate == null) {
+				this.delegate = this.archive.getInputStream(this.entry);
+			}
+			return true;
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package datasource;
+
+/**
+ * Kinds of method body information an analyzer can ask ASMParser to keep when
+ * classes are parsed in streaming mode. The structure of a class (its name,
+ * supertypes, signature, access flags, fields and method declarations) is
+ * always kept; everything read from method bodies is only kept when one of
+ * these facts asks for it.
+ */
+public enum ClassFact {
+	/** Names and types of method local variables */
+	LOCAL_VARIABLES,
+	/** Exception types caught by each method */
+	TRY_CATCH_TYPES,
+	/** Method calls and their invokers, as returned by getMethodCalls */
+	CALL_SITES,
+	/** Types referenced by instructions in method bodies */
+	BODY_TYPES,
+	/** The raw instruction lists of every method */
+	INSTRUCTIONS,
+	/** Method bodies as token sequences, as returned by getNormalizedMethods */
+	NORMALIZED_CODE
+}
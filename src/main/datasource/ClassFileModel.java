@@ -0,0 +1,130 @@
+package datasource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps parsed class files in memory between runs of a long running process,
+ * so that each run only parses the class files that changed since the last
+ * one. A file whose modification time and size are unchanged is reused
+ * without being read. A file that was touched but whose content hash is
+ * unchanged is read but not parsed again.
+ *
+ * Parsers built from the model share its class trees, so they must only be
+ * used for one run at a time. The model remembers which class files each root
+ * asked for last, and drops the ones the latest refresh of that root no longer
+ * asked for and no other root uses, so it does not grow without bound as trees
+ * change. Class files that can no longer be read are dropped as well.
+ */
+public class ClassFileModel {
+	private final Map<Path, ModelEntry> entries = new HashMap<>();
+	// The class files the latest refresh of each root asked for
+	private final Map<Path, Set<Path>> rootFiles = new HashMap<>();
+	private long reparsedCount;
+
+	/**
+	 * Brings the model up to date with the given class files and builds a parser
+	 * over them. Files that cannot be read or parsed are reported as
+	 * {@link ParseFailure}s by the parser, with their path as the source.
+	 *
+	 * @param root       The directory the class files were found in, or null
+	 *                   if they were named one by one
+	 * @param classFiles The class files to analyze
+	 * @return A parser holding exactly the classes in <code>classFiles</code>
+	 */
+	public synchronized ASMParser refresh(Path root, List<Path> classFiles) {
+		List<ClassIndex> classes = new ArrayList<>(classFiles.size());
+		List<ParseFailure> failures = new ArrayList<>();
+		Set<Path> requested = new HashSet<>();
+
+		for (Path classFile : classFiles) {
+			Path key = classFile.toAbsolutePath().normalize();
+			requested.add(key);
+			try {
+				BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+				ModelEntry entry = this.entries.get(key);
+				if (entry == null || !entry.matches(attributes)) {
+					entry = this.reload(key, attributes, entry);
+					this.entries.put(key, entry);
+				}
+				classes.add(entry.classIndex);
+			} catch (IOException | RuntimeException e) {
+				this.entries.remove(key);
+				failures.add(new ParseFailure(failures.size(), classFile.toString(), e));
+			}
+		}
+
+		Path rootKey = root == null ? null : root.toAbsolutePath().normalize();
+		Set<Path> previous = this.rootFiles.put(rootKey, requested);
+		if (previous != null) {
+			this.dropUnused(previous, requested);
+		}
+		return new ASMParser(classes, failures);
+	}
+
+	// Drops the entries of files no longer requested, unless another root
+	// still asks for them
+	private void dropUnused(Set<Path> previous, Set<Path> requested) {
+		dropping: for (Path key : previous) {
+			if (requested.contains(key)) {
+				continue;
+			}
+			for (Set<Path> files : this.rootFiles.values()) {
+				if (files.contains(key)) {
+					continue dropping;
+				}
+			}
+			this.entries.remove(key);
+		}
+	}
+
+	/**
+	 * @return How many class files the model holds
+	 */
+	public synchronized int size() {
+		return this.entries.size();
+	}
+
+	/**
+	 * @return How many class files have been parsed since the model was created
+	 */
+	public synchronized long getReparsedCount() {
+		return this.reparsedCount;
+	}
+
+	private ModelEntry reload(Path classFile, BasicFileAttributes attributes, ModelEntry previous)
+			throws IOException {
+		byte[] bytes = Files.readAllBytes(classFile);
+		String digest = ASMParser.digest(bytes);
+		if (previous != null && digest.equals(previous.classIndex.getDigest())) {
+			return new ModelEntry(attributes, previous.classIndex);
+		}
+		this.reparsedCount++;
+		return new ModelEntry(attributes, ASMParser.indexClassFile(bytes));
+	}
+
+	private static class ModelEntry {
+		private final FileTime lastModified;
+		private final long size;
+		private final ClassIndex classIndex;
+
+		ModelEntry(BasicFileAttributes attributes, ClassIndex classIndex) {
+			this.lastModified = attributes.lastModifiedTime();
+			this.size = attributes.size();
+			this.classIndex = classIndex;
+		}
+
+		boolean matches(BasicFileAttributes attributes) {
+			return this.lastModified.equals(attributes.lastModifiedTime()) && this.size == attributes.size();
+		}
+	}
+}
@@ -0,0 +1,198 @@
+package datasource;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finds every class file below a directory and hands each one to a queue as
+ * soon as it is found, so that a consumer such as ASMParser can start parsing
+ * before the walk is finished. Directories are listed lazily one at a time, and
+ * with more than one thread, sibling subtrees are walked in parallel.
+ *
+ * Symbolic links can be followed. Every directory is visited at most once, so
+ * links that loop back to an ancestor or point into a tree that was already
+ * walked do not produce the same class file twice.
+ */
+public class ClassFileWalker {
+	/**
+	 * Placed on the queue after the last class file. Compare with
+	 * <code>==</code>, it is never a real path.
+	 */
+	public static final Path END_OF_WALK = Paths.get("");
+
+	private static final LinkOption[] NO_LINK_OPTIONS = {};
+	private static final LinkOption[] NOFOLLOW_LINK_OPTIONS = { LinkOption.NOFOLLOW_LINKS };
+	// How often a walk blocked on a full queue checks whether it was cancelled
+	private static final long CANCEL_CHECK_MILLIS = 50;
+
+	private final boolean followLinks;
+	private final int threadCount;
+	private final Set<Object> visitedDirectories = ConcurrentHashMap.newKeySet();
+	private final List<String> walkFailures = new CopyOnWriteArrayList<>();
+	private volatile boolean cancelled;
+
+	/**
+	 * @param followLinks True to walk into symbolic links, false to skip them
+	 * @param threadCount The number of threads to walk with. Values of 1 or lower
+	 *                    walk on the calling thread
+	 */
+	public ClassFileWalker(boolean followLinks, int threadCount) {
+		this.followLinks = followLinks;
+		this.threadCount = threadCount;
+	}
+
+	/**
+	 * Walks the tree below <code>root</code>, putting every class file on
+	 * <code>classFiles</code> followed by {@link #END_OF_WALK}. Blocks whenever
+	 * the queue is full. Unreadable directories are skipped and reported by
+	 * {@link #getWalkFailures()}.
+	 *
+	 * @param root       The directory to walk
+	 * @param classFiles The queue to fill
+	 * @throws InterruptedException If interrupted while waiting for queue space
+	 */
+	public void walk(Path root, BlockingQueue<Path> classFiles) throws InterruptedException {
+		try {
+			if (this.threadCount <= 1) {
+				this.walkDirectory(root, classFiles, null);
+			} else {
+				ForkJoinPool pool = new ForkJoinPool(this.threadCount);
+				try {
+					pool.invoke(new WalkTask(root, classFiles));
+				} finally {
+					pool.shutdown();
+				}
+			}
+		} finally {
+			if (!this.cancelled) {
+				classFiles.put(END_OF_WALK);
+			}
+		}
+	}
+
+	/**
+	 * Stops a walk whose class files are no longer wanted. The walk queues no
+	 * further class files and no {@link #END_OF_WALK}, even when blocked on a
+	 * full queue.
+	 */
+	public void cancel() {
+		this.cancelled = true;
+	}
+
+	/**
+	 * @return A description of each directory that could not be read
+	 */
+	public List<String> getWalkFailures() {
+		return new ArrayList<>(this.walkFailures);
+	}
+
+	/**
+	 * Lists one directory, queuing its class files and descending into its
+	 * subdirectories. Subdirectories are forked as tasks when
+	 * <code>subtasks</code> is given and walked directly otherwise.
+	 */
+	private void walkDirectory(Path directory, BlockingQueue<Path> classFiles, List<WalkTask> subtasks)
+			throws InterruptedException {
+		if (!this.markVisited(directory)) {
+			return;
+		}
+
+		LinkOption[] linkOptions = this.followLinks ? NO_LINK_OPTIONS : NOFOLLOW_LINK_OPTIONS;
+		try (DirectoryStream<Path> children = Files.newDirectoryStream(directory)) {
+			for (Path child : children) {
+				if (this.cancelled) {
+					return;
+				}
+				if (!this.followLinks && Files.isSymbolicLink(child)) {
+					continue;
+				}
+
+				BasicFileAttributes attributes;
+				try {
+					attributes = Files.readAttributes(child, BasicFileAttributes.class, linkOptions);
+				} catch (IOException e) {
+					// Dangling links and files deleted during the walk
+					continue;
+				}
+
+				if (attributes.isDirectory()) {
+					if (subtasks == null) {
+						this.walkDirectory(child, classFiles, null);
+					} else {
+						WalkTask subtask = new WalkTask(child, classFiles);
+						subtask.fork();
+						subtasks.add(subtask);
+					}
+				} else if (attributes.isRegularFile() && child.getFileName().toString().endsWith(".class")) {
+					this.queue(classFiles, child);
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			this.walkFailures.add(directory + ": " + e);
+		}
+	}
+
+	private void queue(BlockingQueue<Path> classFiles, Path classFile) throws InterruptedException {
+		while (!this.cancelled && !classFiles.offer(classFile, CANCEL_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+			// Still full, check again
+		}
+	}
+
+	/**
+	 * @return true if the directory had not been visited before
+	 */
+	private boolean markVisited(Path directory) {
+		Object key;
+		try {
+			BasicFileAttributes attributes = Files.readAttributes(directory, BasicFileAttributes.class);
+			key = attributes.fileKey();
+			if (key == null) {
+				// Some file systems have no inode-like keys
+				key = directory.toRealPath();
+			}
+		} catch (IOException e) {
+			key = directory.toAbsolutePath().normalize();
+		}
+		return this.visitedDirectories.add(key);
+	}
+
+	private class WalkTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final Path directory;
+		private final BlockingQueue<Path> classFiles;
+
+		WalkTask(Path directory, BlockingQueue<Path> classFiles) {
+			this.directory = directory;
+			this.classFiles = classFiles;
+		}
+
+		@Override
+		protected void compute() {
+			List<WalkTask> subtasks = new ArrayList<>();
+			try {
+				walkDirectory(this.directory, this.classFiles, subtasks);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			for (WalkTask subtask : subtasks) {
+				subtask.join();
+			}
+		}
+	}
+}
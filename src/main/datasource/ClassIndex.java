@@ -0,0 +1,287 @@
+package datasource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.MethodNode;
+
+/**
+ * Immutable lookup tables for a single decompiled class, built once when the
+ * class is parsed so that ASMParser queries do not have to rescan the method
+ * and field lists of the ClassNode on every call.
+ *
+ * Arrays and lists handed out by this class are shared and must be copied
+ * before being returned to analyzers.
+ *
+ * In streaming mode the method bodies of the ClassNode are discarded once the
+ * index is built, and the facts that were extracted from them are carried here
+ * instead. Queries must check {@link #hasFact(ClassFact)} before relying on
+ * body information.
+ */
+final class ClassIndex {
+	private static final String[] EMPTY = new String[0];
+
+	private final ClassNode classNode;
+
+	private final String[] interfaces;
+	private final String[] methodNames;
+	private final String[] publicStaticMethodNames;
+	private final Map<String, List<MethodNode>> methodsByName;
+	private final Map<String, MethodNode> methodsBySignature;
+	private final boolean constructorPrivate;
+	private final boolean allMethodsStatic;
+
+	private final List<String> instanceFieldNames;
+	private final List<String> staticFieldNames;
+	private final String[] privateStaticFieldNames;
+	private final List<String> fieldDescriptors;
+
+	private final List<List<String>> abstractMethods;
+	private final List<List<String>> concreteMethods;
+
+	private final Set<ClassFact> facts;
+	private final String[] methodBodyTypes;
+	private final Map<String, String[]> caughtTypes;
+	private final List<NormalizedMethod> normalizedMethods;
+
+	private final String digest;
+	private final String[] referencedClasses;
+
+	/**
+	 * Indexes a class whose full tree is kept, so every fact can be read from the
+	 * ClassNode on demand.
+	 */
+	ClassIndex(ClassNode classNode) {
+		this(classNode, null, EMPTY);
+	}
+
+	/**
+	 * Indexes a class whose full tree is kept, read from class file bytes.
+	 * 
+	 * @param digest            The hash of the class file bytes
+	 * @param referencedClasses The classes the class file refers to
+	 */
+	ClassIndex(ClassNode classNode, String digest, String[] referencedClasses) {
+		this(classNode, EnumSet.allOf(ClassFact.class), null, null, null, digest, referencedClasses);
+	}
+
+	/**
+	 * Indexes a class parsed in streaming mode.
+	 * 
+	 * @param facts           The facts that are available for this class
+	 * @param methodBodyTypes The precomputed body types, or null if they are
+	 *                        read from the instructions
+	 * @param caughtTypes     The precomputed caught exception types by method
+	 *                        name, or null if they are read from the methods
+	 * @param normalizedMethods The precomputed normalized method bodies, or null
+	 *                          if they are read from the instructions
+	 * @param digest            The hash of the class file bytes
+	 * @param referencedClasses The classes the class file refers to
+	 */
+	ClassIndex(ClassNode classNode, Set<ClassFact> facts, String[] methodBodyTypes,
+			Map<String, String[]> caughtTypes, List<NormalizedMethod> normalizedMethods, String digest,
+			String[] referencedClasses) {
+		this.classNode = classNode;
+		this.normalizedMethods = normalizedMethods;
+		this.digest = digest;
+		this.referencedClasses = referencedClasses;
+		this.facts = facts;
+		this.methodBodyTypes = methodBodyTypes;
+		this.caughtTypes = caughtTypes;
+		this.interfaces = classNode.interfaces == null ? EMPTY : classNode.interfaces.toArray(EMPTY);
+
+		List<String> names = new ArrayList<>();
+		List<String> publicStatic = new ArrayList<>();
+		Map<String, List<MethodNode>> byName = new HashMap<>();
+		Map<String, MethodNode> bySignature = new HashMap<>();
+		List<List<String>> abstractList = new ArrayList<>();
+		List<List<String>> concreteList = new ArrayList<>();
+		boolean privateConstructor = false;
+		boolean onlyStatic = true;
+
+		for (MethodNode method : classNode.methods) {
+			names.add(method.name);
+			byName.computeIfAbsent(method.name, name -> new ArrayList<>(1)).add(method);
+			bySignature.putIfAbsent(method.name + method.desc, method);
+
+			if (method.access == Opcodes.ACC_PUBLIC + Opcodes.ACC_STATIC) {
+				publicStatic.add(method.name);
+			}
+			if (method.name.equals("<init>")) {
+				if (method.access == Opcodes.ACC_PRIVATE) {
+					privateConstructor = true;
+				}
+			} else if ((method.access & Opcodes.ACC_STATIC) != Opcodes.ACC_STATIC) {
+				onlyStatic = false;
+			}
+
+			List<String> nameAndDesc = Collections.unmodifiableList(Arrays.asList(method.name, method.desc));
+			if ((method.access & Opcodes.ACC_ABSTRACT) != 0) {
+				abstractList.add(nameAndDesc);
+			} else {
+				concreteList.add(nameAndDesc);
+			}
+		}
+
+		List<String> instanceFields = new ArrayList<>();
+		List<String> staticFields = new ArrayList<>();
+		List<String> privateStaticFields = new ArrayList<>();
+		List<String> descriptors = new ArrayList<>();
+		for (FieldNode field : classNode.fields) {
+			descriptors.add(field.desc);
+			if ((field.access & Opcodes.ACC_STATIC) == 0) {
+				instanceFields.add(field.name);
+			} else {
+				staticFields.add(field.name);
+			}
+			if (field.access == Opcodes.ACC_PRIVATE + Opcodes.ACC_STATIC) {
+				privateStaticFields.add(field.name);
+			}
+		}
+
+		this.methodNames = names.toArray(EMPTY);
+		this.publicStaticMethodNames = publicStatic.toArray(EMPTY);
+		this.methodsByName = byName;
+		this.methodsBySignature = bySignature;
+		this.constructorPrivate = privateConstructor;
+		this.allMethodsStatic = onlyStatic;
+		this.instanceFieldNames = instanceFields;
+		this.staticFieldNames = staticFields;
+		this.privateStaticFieldNames = privateStaticFields.toArray(EMPTY);
+		this.fieldDescriptors = descriptors;
+		this.abstractMethods = abstractList;
+		this.concreteMethods = concreteList;
+	}
+
+	ClassNode getClassNode() {
+		return this.classNode;
+	}
+
+	String getName() {
+		return this.classNode.name;
+	}
+
+	/**
+	 * @return The hash of the class file bytes, or null if the class was loaded
+	 *         from the classpath by name
+	 */
+	String getDigest() {
+		return this.digest;
+	}
+
+	String[] getReferencedClasses() {
+		return this.referencedClasses;
+	}
+
+	String getSuperName() {
+		return this.classNode.superName;
+	}
+
+	int getAccess() {
+		return this.classNode.access;
+	}
+
+	String[] getInterfaces() {
+		return this.interfaces;
+	}
+
+	String[] getMethodNames() {
+		return this.methodNames;
+	}
+
+	String[] getPublicStaticMethodNames() {
+		return this.publicStaticMethodNames;
+	}
+
+	/**
+	 * @return The first declared method with the given name, or null
+	 */
+	MethodNode getFirstMethod(String methodName) {
+		List<MethodNode> overloads = this.methodsByName.get(methodName);
+		return overloads == null ? null : overloads.get(0);
+	}
+
+	/**
+	 * @return The last declared method with the given name, or null
+	 */
+	MethodNode getLastMethod(String methodName) {
+		List<MethodNode> overloads = this.methodsByName.get(methodName);
+		return overloads == null ? null : overloads.get(overloads.size() - 1);
+	}
+
+	/**
+	 * @return The method with the given name and descriptor, or null
+	 */
+	MethodNode getMethod(String methodName, String methodDesc) {
+		return this.methodsBySignature.get(methodName + methodDesc);
+	}
+
+	boolean isConstructorPrivate() {
+		return this.constructorPrivate;
+	}
+
+	boolean isAllMethodsStatic() {
+		return this.allMethodsStatic;
+	}
+
+	List<String> getInstanceFieldNames() {
+		return this.instanceFieldNames;
+	}
+
+	List<String> getStaticFieldNames() {
+		return this.staticFieldNames;
+	}
+
+	String[] getPrivateStaticFieldNames() {
+		return this.privateStaticFieldNames;
+	}
+
+	List<String> getFieldDescriptors() {
+		return this.fieldDescriptors;
+	}
+
+	List<List<String>> getAbstractMethods() {
+		return this.abstractMethods;
+	}
+
+	List<List<String>> getConcreteMethods() {
+		return this.concreteMethods;
+	}
+
+	boolean hasFact(ClassFact fact) {
+		return this.facts.contains(fact);
+	}
+
+	/**
+	 * @return The precomputed body types, or null if they must be read from the
+	 *         instructions
+	 */
+	String[] getMethodBodyTypes() {
+		return this.methodBodyTypes;
+	}
+
+	/**
+	 * @return The precomputed caught exception types of the last method declared
+	 *         with the given name, or null if they must be read from the method
+	 */
+	String[] getCaughtTypes(String methodName) {
+		return this.caughtTypes == null ? null : this.caughtTypes.get(methodName);
+	}
+
+	/**
+	 * @return The precomputed normalized method bodies, or null if they must be
+	 *         read from the instructions
+	 */
+	List<NormalizedMethod> getNormalizedMethods() {
+		return this.normalizedMethods;
+	}
+}
@@ -0,0 +1,131 @@
+package datasource;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+
+/**
+ * Holds the JDK and library classes that analyzers look up while analyzing the
+ * parsed classes, such as the interfaces of a called class. Only class headers
+ * are read: the name, supertypes, fields and method declarations, but no
+ * method bodies or debug information.
+ *
+ * The cache keeps at most a fixed number of classes and evicts the least
+ * recently used one when full. Classes that could not be found are remembered
+ * the same way, so that a missing class costs one classpath lookup per run
+ * instead of one per query. Safe to use from several analyzers at once.
+ *
+ * Classes are read from an {@link ExternalClasspath} when one is given, or
+ * otherwise from the classpath DesignLint itself runs with.
+ */
+class ExternalClassCache {
+	private final int capacity;
+	private final ExternalClasspath classpath;
+	private final Map<String, ClassIndex> classes;
+	// Class name -> why it could not be loaded
+	private final Map<String, String> missingClasses;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * @param capacity  The most classes, and separately the most missing class
+	 *                  names, to keep
+	 * @param classpath Where to read classes from, or null for DesignLint's own
+	 *                  classpath
+	 */
+	ExternalClassCache(int capacity, ExternalClasspath classpath) {
+		this.capacity = capacity;
+		this.classpath = classpath;
+		this.classes = new LinkedHashMap<String, ClassIndex>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, ClassIndex> eldest) {
+				return this.size() > ExternalClassCache.this.capacity;
+			}
+		};
+		this.missingClasses = new LinkedHashMap<String, String>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+				return this.size() > ExternalClassCache.this.capacity;
+			}
+		};
+	}
+
+	/**
+	 * @return The cached class, or null if it has not been loaded or was evicted.
+	 *         Does not count towards the statistics.
+	 */
+	synchronized ClassIndex getIfPresent(String className) {
+		return this.classes.get(className);
+	}
+
+	/**
+	 * Returns a class from the cache, reading it from the classpath on a miss.
+	 * Concurrent loads of the same class all receive the first index stored.
+	 *
+	 * @throws IOException If the class is not on the classpath, now or when it
+	 *                     was last looked for
+	 */
+	ClassIndex load(String className) throws IOException {
+		synchronized (this) {
+			ClassIndex cached = this.classes.get(className);
+			if (cached != null) {
+				this.hits.incrementAndGet();
+				return cached;
+			}
+			String missingReason = this.missingClasses.get(className);
+			if (missingReason != null) {
+				this.hits.incrementAndGet();
+				throw new IOException(missingReason);
+			}
+		}
+
+		// Read outside the lock so that one slow lookup does not hold up others
+		this.misses.incrementAndGet();
+		ClassIndex classIndex;
+		try {
+			classIndex = readHeader(className);
+		} catch (IOException e) {
+			synchronized (this) {
+				this.missingClasses.put(className, e.getMessage());
+			}
+			throw e;
+		}
+
+		synchronized (this) {
+			ClassIndex existing = this.classes.putIfAbsent(className, classIndex);
+			return existing == null ? classIndex : existing;
+		}
+	}
+
+	/**
+	 * @return The number of loads answered from the cache, found or missing
+	 */
+	long getHits() {
+		return this.hits.get();
+	}
+
+	/**
+	 * @return The number of loads that had to search the classpath
+	 */
+	long getMisses() {
+		return this.misses.get();
+	}
+
+	private ClassIndex readHeader(String className) throws IOException {
+		ClassReader reader = this.classpath == null ? new ClassReader(className)
+				: new ClassReader(this.classpath.readClass(className));
+		ClassNode classNode = new ClassNode();
+		reader.accept(classNode, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+		return new ClassIndex(classNode, EnumSet.noneOf(ClassFact.class), null, null, null, null, new String[0]);
+	}
+}
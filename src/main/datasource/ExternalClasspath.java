@@ -0,0 +1,496 @@
+package datasource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.ProviderNotFoundException;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * The classes a linted program was compiled against, for looking up library
+ * and JDK types instead of using the classes DesignLint itself runs with.
+ *
+ * Every class on the classpath is indexed when this object is created, so a
+ * lookup is one hash map probe followed by one read. Jars are memory mapped
+ * and only their central directories are read up front; class files are
+ * inflated from the mapping when they are asked for. JDK classes are read
+ * from the <code>lib/modules</code> image of a JDK 9 or later through the
+ * <code>jrt</code> file system, indexed by package, or from the jars in
+ * <code>lib</code> and <code>jre/lib</code> of an older JDK. The JDK is
+ * searched before the classpath, and earlier classpath entries before later
+ * ones, as the JVM would.
+ *
+ * Safe to read from several threads at once. Classes cannot be read once this
+ * is closed.
+ */
+public class ExternalClasspath implements Closeable {
+	private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+	private static final int ZIP64_END_OF_CENTRAL_DIRECTORY = 0x06064b50;
+	private static final int ZIP64_LOCATOR = 0x07064b50;
+	private static final int CENTRAL_DIRECTORY_ENTRY = 0x02014b50;
+	private static final int LOCAL_HEADER = 0x04034b50;
+	private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+	private static final int ZIP64_LOCATOR_SIZE = 20;
+	private static final int MAX_COMMENT_LENGTH = 0xFFFF;
+	private static final int STORED = 0;
+	private static final int DEFLATED = 8;
+
+	// Class name -> where its class file is, for classpath entries and old JDKs
+	private final Map<String, ClassLocation> classLocations = new HashMap<>();
+	// Package name -> module holding it, for JDK module images
+	private final Map<String, String> modulesByPackage = new HashMap<>();
+	private final List<FileChannel> channels = new ArrayList<>();
+	private FileSystem moduleImage;
+	// Loads the target JDK's jrt file system when running on Java 8
+	private URLClassLoader moduleImageLoader;
+	// Reads JDK classes when no JDK home was given
+	private final ClassLoader platformLoader;
+	// Every file indexed, with its size and modification time, while indexing
+	private final StringBuilder fingerprint = new StringBuilder();
+	private final String digest;
+
+	/**
+	 * Indexes a classpath and a JDK.
+	 *
+	 * @param classpath Jars and class directories, in search order. Entries that
+	 *                  do not exist are ignored, as they are by the JVM
+	 * @param jdkHome   The home directory of the JDK the code was built against,
+	 *                  or null to use the JDK DesignLint runs on
+	 * @throws IOException If the JDK home is not a JDK, or a jar cannot be read
+	 */
+	public ExternalClasspath(List<Path> classpath, Path jdkHome) throws IOException {
+		try {
+			if (jdkHome != null) {
+				this.platformLoader = null;
+				this.indexJdk(jdkHome);
+			} else {
+				this.platformLoader = ClassLoader.getSystemClassLoader().getParent();
+				this.fingerprint.append("java.home ").append(System.getProperty("java.home")).append(' ')
+						.append(System.getProperty("java.version")).append('\n');
+			}
+			for (Path entry : classpath) {
+				if (Files.isDirectory(entry)) {
+					this.indexDirectory(entry);
+				} else if (Files.isRegularFile(entry)) {
+					this.indexArchive(entry);
+				}
+			}
+			this.digest = ASMParser.digest(this.fingerprint.toString().getBytes(StandardCharsets.UTF_8));
+			this.fingerprint.setLength(0);
+		} catch (IOException | RuntimeException e) {
+			this.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Splits a classpath string such as <code>lib/a.jar:classes</code> on the
+	 * platform's path separator.
+	 */
+	public static List<Path> parseClasspath(String classpath, Path workingDirectory) {
+		List<Path> entries = new ArrayList<>();
+		for (String entry : classpath.split(File.pathSeparator)) {
+			if (!entry.isEmpty()) {
+				entries.add(workingDirectory == null ? new File(entry).toPath() : workingDirectory.resolve(entry));
+			}
+		}
+		return entries;
+	}
+
+	/**
+	 * Returns a hash of the JDK and of every jar and class file on the
+	 * classpath, with their sizes and modification times, taken when they were
+	 * indexed. It changes whenever a different JDK or classpath is given, or a
+	 * file on it changes.
+	 * 
+	 * @return The lowercase hex SHA-256 of the indexed files
+	 */
+	public String getDigest() {
+		return this.digest;
+	}
+
+	/**
+	 * @param className The internal name of a class, such as
+	 *                  <code>java/util/List</code>
+	 * @return The bytes of the class file
+	 * @throws IOException If the class is not on the classpath or cannot be read
+	 */
+	public byte[] readClass(String className) throws IOException {
+		if (this.moduleImage != null) {
+			int packageEnd = className.lastIndexOf('/');
+			String module = packageEnd < 0 ? null
+					: this.modulesByPackage.get(className.substring(0, packageEnd).replace('/', '.'));
+			if (module != null) {
+				try {
+					return Files.readAllBytes(this.moduleImage.getPath("/modules", module, className + ".class"));
+				} catch (NoSuchFileException e) {
+					// Not in the JDK after all, so the classpath is searched next
+				}
+			}
+		} else if (this.platformLoader != null) {
+			try (InputStream stream = this.platformLoader.getResourceAsStream(className + ".class")) {
+				if (stream != null) {
+					return readFully(stream);
+				}
+			}
+		}
+
+		ClassLocation location = this.classLocations.get(className);
+		if (location == null) {
+			throw new IOException("Class not found");
+		}
+		return location.read();
+	}
+
+	/**
+	 * Closes the jars and the module image. Memory mappings are released once
+	 * they are garbage collected.
+	 */
+	@Override
+	public void close() throws IOException {
+		IOException failure = null;
+		for (FileChannel channel : this.channels) {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				failure = e;
+			}
+		}
+		if (this.moduleImage != null) {
+			try {
+				this.moduleImage.close();
+			} catch (IOException e) {
+				failure = e;
+			}
+		}
+		if (this.moduleImageLoader != null) {
+			try {
+				this.moduleImageLoader.close();
+			} catch (IOException e) {
+				failure = e;
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * Opens the module image of a JDK 9 or later. Java 8 has no jrt file
+	 * system of its own, so there it is loaded from the target JDK's
+	 * <code>lib/jrt-fs.jar</code>, as the JDK documents for older runtimes.
+	 */
+	private FileSystem openModuleImage(Path jdkHome) throws IOException {
+		Path jrtFileSystem = jdkHome.resolve("lib").resolve("jrt-fs.jar");
+		if (!Files.isRegularFile(jrtFileSystem)) {
+			throw new IOException(
+					"JDK home " + jdkHome + " has a lib/modules image but no lib/jrt-fs.jar to read it with");
+		}
+		Map<String, String> environment = Collections.singletonMap("java.home", jdkHome.toString());
+		try {
+			return FileSystems.newFileSystem(URI.create("jrt:/"), environment);
+		} catch (ProviderNotFoundException e) {
+			// Running on Java 8, fall back to the target JDK's provider
+		}
+		this.moduleImageLoader = new URLClassLoader(new URL[] { jrtFileSystem.toUri().toURL() });
+		try {
+			return FileSystems.newFileSystem(URI.create("jrt:/"), environment, this.moduleImageLoader);
+		} catch (ProviderNotFoundException e) {
+			throw new IOException("Could not load the jrt file system from " + jrtFileSystem
+					+ "; reading the module image of JDK home " + jdkHome + " needs a Java 9 or later runtime");
+		}
+	}
+
+	private void indexJdk(Path jdkHome) throws IOException {
+		if (Files.isRegularFile(jdkHome.resolve("lib").resolve("modules"))) {
+			this.addToFingerprint(jdkHome.resolve("lib").resolve("modules").toFile());
+			this.moduleImage = this.openModuleImage(jdkHome);
+			try (DirectoryStream<Path> packages = Files.newDirectoryStream(this.moduleImage.getPath("/packages"))) {
+				for (Path packageDirectory : packages) {
+					try (DirectoryStream<Path> modules = Files.newDirectoryStream(packageDirectory)) {
+						for (Path module : modules) {
+							this.modulesByPackage.putIfAbsent(packageDirectory.getFileName().toString(),
+									module.getFileName().toString());
+						}
+					}
+				}
+			}
+			return;
+		}
+
+		// JDK 8 and older keep their classes in rt.jar and its neighbours
+		boolean foundJars = false;
+		for (Path libDirectory : new Path[] { jdkHome.resolve("jre").resolve("lib"), jdkHome.resolve("lib") }) {
+			if (!Files.isDirectory(libDirectory)) {
+				continue;
+			}
+			List<Path> jars = new ArrayList<>();
+			try (DirectoryStream<Path> entries = Files.newDirectoryStream(libDirectory, "*.jar")) {
+				for (Path jar : entries) {
+					jars.add(jar);
+				}
+			}
+			Collections.sort(jars);
+			for (Path jar : jars) {
+				this.indexArchive(jar);
+				foundJars = true;
+			}
+		}
+		if (!foundJars) {
+			throw new IOException("No lib/modules image or runtime jars found in JDK home " + jdkHome);
+		}
+	}
+
+	private void indexDirectory(Path directory) throws IOException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.filter(file -> file.toString().endsWith(".class")).sorted().forEach(file -> {
+				String relative = directory.relativize(file).toString().replace(File.separatorChar, '/');
+				String className = relative.substring(0, relative.length() - ".class".length());
+				this.classLocations.putIfAbsent(className, new FileLocation(file));
+				this.addToFingerprint(file.toFile());
+			});
+		}
+	}
+
+	private void indexArchive(Path archivePath) throws IOException {
+		this.addToFingerprint(archivePath.toFile());
+		FileChannel channel = FileChannel.open(archivePath, StandardOpenOption.READ);
+		this.channels.add(channel);
+		if (channel.size() > Integer.MAX_VALUE) {
+			throw new IOException("Archive is too large to map: " + archivePath);
+		}
+		ByteBuffer archive = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+				.order(ByteOrder.LITTLE_ENDIAN);
+
+		int end = findEndOfCentralDirectory(archive, archivePath);
+		long entryCount = archive.getShort(end + 10) & 0xFFFF;
+		long directoryOffset = archive.getInt(end + 16) & 0xFFFFFFFFL;
+		int locator = end - ZIP64_LOCATOR_SIZE;
+		if (locator >= 0 && archive.getInt(locator) == ZIP64_LOCATOR) {
+			long zip64End = archive.getLong(locator + 8);
+			if (zip64End < 0 || zip64End > end || archive.getInt((int) zip64End) != ZIP64_END_OF_CENTRAL_DIRECTORY) {
+				throw new IOException("Corrupt ZIP64 directory in " + archivePath);
+			}
+			entryCount = archive.getLong((int) zip64End + 32);
+			directoryOffset = archive.getLong((int) zip64End + 48);
+		}
+
+		int position = checkedOffset(directoryOffset, archive, archivePath);
+		for (long i = 0; i < entryCount; i++) {
+			if (position + 46 > archive.limit() || archive.getInt(position) != CENTRAL_DIRECTORY_ENTRY) {
+				throw new IOException("Corrupt central directory in " + archivePath);
+			}
+			int flags = archive.getShort(position + 8) & 0xFFFF;
+			int method = archive.getShort(position + 10) & 0xFFFF;
+			long compressedSize = archive.getInt(position + 20) & 0xFFFFFFFFL;
+			long size = archive.getInt(position + 24) & 0xFFFFFFFFL;
+			int nameLength = archive.getShort(position + 28) & 0xFFFF;
+			int extraLength = archive.getShort(position + 30) & 0xFFFF;
+			int commentLength = archive.getShort(position + 32) & 0xFFFF;
+			long headerOffset = archive.getInt(position + 42) & 0xFFFFFFFFL;
+
+			String name = decodeName(archive, position + 46, nameLength);
+			// Encrypted entries cannot be read, and multi-release variants and
+			// other metadata would shadow the real classes
+			if ((flags & 0x1) == 0 && name.endsWith(".class") && !name.startsWith("META-INF/")
+					&& !name.endsWith("module-info.class")) {
+				if (compressedSize == 0xFFFFFFFFL || size == 0xFFFFFFFFL || headerOffset == 0xFFFFFFFFL) {
+					long[] zip64Values = readZip64Extra(archive, position + 46 + nameLength, extraLength,
+							new long[] { size, compressedSize, headerOffset });
+					size = zip64Values[0];
+					compressedSize = zip64Values[1];
+					headerOffset = zip64Values[2];
+				}
+				String className = name.substring(0, name.length() - ".class".length());
+				this.classLocations.putIfAbsent(className, new ArchiveLocation(archive, archivePath,
+						checkedOffset(headerOffset, archive, archivePath), method,
+						checkedSize(compressedSize, archivePath), checkedSize(size, archivePath)));
+			}
+			position += 46 + nameLength + extraLength + commentLength;
+		}
+	}
+
+	private void addToFingerprint(File file) {
+		this.fingerprint.append(file.getAbsolutePath()).append(' ').append(file.length()).append(' ')
+				.append(file.lastModified()).append('\n');
+	}
+
+	private static int findEndOfCentralDirectory(ByteBuffer archive, Path archivePath) throws IOException {
+		int lowest = Math.max(0, archive.limit() - END_OF_CENTRAL_DIRECTORY_SIZE - MAX_COMMENT_LENGTH);
+		for (int position = archive.limit() - END_OF_CENTRAL_DIRECTORY_SIZE; position >= lowest; position--) {
+			if (archive.getInt(position) == END_OF_CENTRAL_DIRECTORY) {
+				return position;
+			}
+		}
+		throw new IOException("Not a zip archive: " + archivePath);
+	}
+
+	/**
+	 * Replaces the values that did not fit a central directory entry with the
+	 * ones in its ZIP64 extra field. Only the values that were too large are
+	 * stored there, in this order.
+	 */
+	private static long[] readZip64Extra(ByteBuffer archive, int extraStart, int extraLength, long[] values) {
+		int position = extraStart;
+		while (position + 4 <= extraStart + extraLength) {
+			int id = archive.getShort(position) & 0xFFFF;
+			int length = archive.getShort(position + 2) & 0xFFFF;
+			if (id == 0x0001) {
+				int field = position + 4;
+				for (int i = 0; i < values.length && field + 8 <= position + 4 + length; i++) {
+					if (values[i] == 0xFFFFFFFFL) {
+						values[i] = archive.getLong(field);
+						field += 8;
+					}
+				}
+				break;
+			}
+			position += 4 + length;
+		}
+		return values;
+	}
+
+	private static String decodeName(ByteBuffer archive, int start, int length) {
+		byte[] name = new byte[length];
+		ByteBuffer view = archive.duplicate();
+		view.position(start);
+		view.get(name);
+		return new String(name, StandardCharsets.UTF_8);
+	}
+
+	private static int checkedOffset(long offset, ByteBuffer archive, Path archivePath) throws IOException {
+		if (offset < 0 || offset >= archive.limit()) {
+			throw new IOException("Corrupt central directory in " + archivePath);
+		}
+		return (int) offset;
+	}
+
+	private static int checkedSize(long size, Path archivePath) throws IOException {
+		if (size < 0 || size > Integer.MAX_VALUE) {
+			throw new IOException("Class file is too large in " + archivePath);
+		}
+		return (int) size;
+	}
+
+	private static byte[] readFully(InputStream stream) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = stream.read(buffer)) != -1) {
+			bytes.write(buffer, 0, read);
+		}
+		return bytes.toByteArray();
+	}
+
+	private interface ClassLocation {
+		byte[] read() throws IOException;
+	}
+
+	private static class FileLocation implements ClassLocation {
+		private final Path file;
+
+		FileLocation(Path file) {
+			this.file = file;
+		}
+
+		@Override
+		public byte[] read() throws IOException {
+			return Files.readAllBytes(this.file);
+		}
+	}
+
+	/**
+	 * A class file inside a memory mapped jar, found through the central
+	 * directory. The local header is only read when the class is, since its
+	 * name and extra field lengths may differ from the central directory's.
+	 */
+	private static class ArchiveLocation implements ClassLocation {
+		private final ByteBuffer archive;
+		private final Path archivePath;
+		private final int headerOffset;
+		private final int method;
+		private final int compressedSize;
+		private final int size;
+
+		ArchiveLocation(ByteBuffer archive, Path archivePath, int headerOffset, int method, int compressedSize,
+				int size) {
+			this.archive = archive;
+			this.archivePath = archivePath;
+			this.headerOffset = headerOffset;
+			this.method = method;
+			this.compressedSize = compressedSize;
+			this.size = size;
+		}
+
+		@Override
+		public byte[] read() throws IOException {
+			if (this.headerOffset + 30 > this.archive.limit() || this.archive.getInt(this.headerOffset) != LOCAL_HEADER) {
+				throw new IOException("Corrupt entry in " + this.archivePath);
+			}
+			int dataStart = this.headerOffset + 30 + (this.archive.getShort(this.headerOffset + 26) & 0xFFFF)
+					+ (this.archive.getShort(this.headerOffset + 28) & 0xFFFF);
+			if (dataStart + this.compressedSize > this.archive.limit()) {
+				throw new IOException("Corrupt entry in " + this.archivePath);
+			}
+
+			if (this.method != STORED && this.method != DEFLATED) {
+				throw new IOException("Unsupported compression method " + this.method + " in " + this.archivePath);
+			}
+
+			// Read through a private view, so that readers never share a position.
+			// Raw inflation needs one spare byte after the compressed data
+			byte[] stored = new byte[this.method == STORED ? this.compressedSize : this.compressedSize + 1];
+			ByteBuffer view = this.archive.duplicate();
+			view.position(dataStart);
+			view.get(stored, 0, this.compressedSize);
+			if (this.method == STORED) {
+				return stored;
+			}
+
+			Inflater inflater = new Inflater(true);
+			try {
+				inflater.setInput(stored);
+				byte[] classFile = new byte[this.size];
+				int inflated = 0;
+				while (inflated < this.size && !inflater.finished()) {
+					int read = inflater.inflate(classFile, inflated, this.size - inflated);
+					if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+						break;
+					}
+					inflated += read;
+				}
+				if (inflated != this.size) {
+					throw new IOException("Truncated entry in " + this.archivePath);
+				}
+				return classFile;
+			} catch (DataFormatException e) {
+				throw new IOException("Corrupt entry in " + this.archivePath, e);
+			} finally {
+				inflater.end();
+			}
+		}
+	}
+}
@@ -0,0 +1,141 @@
+package datasource;
+
+import java.util.Arrays;
+
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.IntInsnNode;
+import org.objectweb.asm.tree.InvokeDynamicInsnNode;
+import org.objectweb.asm.tree.LdcInsnNode;
+import org.objectweb.asm.tree.LineNumberNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.MultiANewArrayInsnNode;
+import org.objectweb.asm.tree.TypeInsnNode;
+
+/**
+ * Turns method bodies into {@link NormalizedMethod}s. Each kept instruction
+ * becomes one token holding its opcode in the low 8 bits and a 24 bit hash of
+ * its normalized operand in the rest. Loads of constants are folded into a
+ * single LDC token per constant type, so <code>ICONST_1</code>,
+ * <code>BIPUSH 40</code> and <code>LDC 70000</code> all look alike.
+ */
+final class InstructionNormalizer {
+	private static final int INT_CONSTANT = 1;
+	private static final int LONG_CONSTANT = 2;
+	private static final int FLOAT_CONSTANT = 3;
+	private static final int DOUBLE_CONSTANT = 4;
+	private static final int STRING_CONSTANT = 5;
+	private static final int CLASS_CONSTANT = 6;
+	private static final int OTHER_CONSTANT = 7;
+
+	private InstructionNormalizer() {
+	}
+
+	/**
+	 * @param ownerName The internal name of the class declaring the method
+	 * @return The normalized method, with no tokens for abstract and native
+	 *         methods
+	 */
+	static NormalizedMethod normalize(String ownerName, MethodNode method) {
+		int[] tokens = new int[method.instructions.size()];
+		int[] lines = new int[tokens.length];
+		int count = 0;
+		int line = 0;
+
+		for (AbstractInsnNode insn : method.instructions) {
+			switch (insn.getType()) {
+				case AbstractInsnNode.LINE:
+					line = ((LineNumberNode) insn).line;
+					continue;
+				case AbstractInsnNode.LABEL:
+				case AbstractInsnNode.FRAME:
+					continue;
+				default:
+					break;
+			}
+			tokens[count] = token(ownerName, insn);
+			lines[count] = line;
+			count++;
+		}
+
+		return new NormalizedMethod(method.name, method.desc, Arrays.copyOf(tokens, count),
+				Arrays.copyOf(lines, count));
+	}
+
+	private static int token(String ownerName, AbstractInsnNode insn) {
+		int opcode = insn.getOpcode();
+		switch (insn.getType()) {
+			case AbstractInsnNode.INSN:
+				if (opcode >= Opcodes.ICONST_M1 && opcode <= Opcodes.ICONST_5) {
+					return constant(INT_CONSTANT);
+				}
+				if (opcode == Opcodes.LCONST_0 || opcode == Opcodes.LCONST_1) {
+					return constant(LONG_CONSTANT);
+				}
+				if (opcode >= Opcodes.FCONST_0 && opcode <= Opcodes.FCONST_2) {
+					return constant(FLOAT_CONSTANT);
+				}
+				if (opcode == Opcodes.DCONST_0 || opcode == Opcodes.DCONST_1) {
+					return constant(DOUBLE_CONSTANT);
+				}
+				return opcode;
+			case AbstractInsnNode.INT_INSN:
+				if (opcode == Opcodes.NEWARRAY) {
+					return withOperand(opcode, ((IntInsnNode) insn).operand);
+				}
+				return constant(INT_CONSTANT);
+			case AbstractInsnNode.LDC_INSN:
+				return constant(constantType(((LdcInsnNode) insn).cst));
+			case AbstractInsnNode.FIELD_INSN:
+				FieldInsnNode field = (FieldInsnNode) insn;
+				if (field.owner.equals(ownerName)) {
+					// Fields of the class itself only keep their type
+					return withOperand(opcode, field.desc.hashCode());
+				}
+				return withOperand(opcode, (field.owner + '.' + field.name + field.desc).hashCode());
+			case AbstractInsnNode.METHOD_INSN:
+				MethodInsnNode call = (MethodInsnNode) insn;
+				String owner = call.owner.equals(ownerName) ? "" : call.owner;
+				return withOperand(opcode, (owner + '.' + call.name + call.desc).hashCode());
+			case AbstractInsnNode.INVOKE_DYNAMIC_INSN:
+				InvokeDynamicInsnNode dynamic = (InvokeDynamicInsnNode) insn;
+				return withOperand(opcode, (dynamic.name + dynamic.desc).hashCode());
+			case AbstractInsnNode.TYPE_INSN:
+				return withOperand(opcode, ((TypeInsnNode) insn).desc.hashCode());
+			case AbstractInsnNode.MULTIANEWARRAY_INSN:
+				MultiANewArrayInsnNode array = (MultiANewArrayInsnNode) insn;
+				return withOperand(opcode, 31 * array.desc.hashCode() + array.dims);
+			default:
+				// Local variable slots, jump targets and switch keys are ignored
+				return opcode;
+		}
+	}
+
+	private static int constantType(Object constant) {
+		if (constant instanceof Integer) {
+			return INT_CONSTANT;
+		} else if (constant instanceof Long) {
+			return LONG_CONSTANT;
+		} else if (constant instanceof Float) {
+			return FLOAT_CONSTANT;
+		} else if (constant instanceof Double) {
+			return DOUBLE_CONSTANT;
+		} else if (constant instanceof String) {
+			return STRING_CONSTANT;
+		} else if (constant instanceof Type) {
+			return CLASS_CONSTANT;
+		}
+		return OTHER_CONSTANT;
+	}
+
+	private static int constant(int constantType) {
+		return withOperand(Opcodes.LDC, constantType);
+	}
+
+	private static int withOperand(int opcode, int operandHash) {
+		return opcode | (operandHash << 8);
+	}
+}
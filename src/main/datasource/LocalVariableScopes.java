@@ -0,0 +1,102 @@
+package datasource;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.LabelNode;
+import org.objectweb.asm.tree.LocalVariableNode;
+import org.objectweb.asm.tree.MethodNode;
+
+/**
+ * Answers which local variables of a method are in scope at a given
+ * instruction. The start and end label of every variable are resolved with a
+ * single pass over the instructions, and the set of live variables is then
+ * swept forward, so querying every instruction of a method in order costs time
+ * linear in the size of the method.
+ *
+ * Instances keep a cursor and are meant to be used by one thread for one
+ * method at a time.
+ */
+class LocalVariableScopes {
+	private final List<LocalVariableNode> variables;
+	private final int[] starts;
+	private final int[] ends;
+	// Variable positions ordered by where their scope starts and ends
+	private final Integer[] byStart;
+	private final Integer[] byEnd;
+
+	private final BitSet live = new BitSet();
+	private int nextStart;
+	private int nextEnd;
+	private int cursor = -1;
+
+	LocalVariableScopes(MethodNode method) {
+		this.variables = method.localVariables == null ? Collections.<LocalVariableNode>emptyList()
+				: method.localVariables;
+
+		Map<LabelNode, Integer> labelIndexes = new HashMap<>();
+		int index = 0;
+		for (AbstractInsnNode insn : method.instructions) {
+			if (insn.getType() == AbstractInsnNode.LABEL) {
+				labelIndexes.put((LabelNode) insn, index);
+			}
+			index++;
+		}
+
+		int count = this.variables.size();
+		this.starts = new int[count];
+		this.ends = new int[count];
+		this.byStart = new Integer[count];
+		this.byEnd = new Integer[count];
+		for (int i = 0; i < count; i++) {
+			LocalVariableNode variable = this.variables.get(i);
+			// Labels missing from the instruction list count as the first instruction
+			this.starts[i] = labelIndexes.getOrDefault(variable.start, 0);
+			this.ends[i] = labelIndexes.getOrDefault(variable.end, 0);
+			this.byStart[i] = i;
+			this.byEnd[i] = i;
+		}
+		Arrays.sort(this.byStart, (a, b) -> Integer.compare(this.starts[a], this.starts[b]));
+		Arrays.sort(this.byEnd, (a, b) -> Integer.compare(this.ends[a], this.ends[b]));
+	}
+
+	/**
+	 * Returns the variables whose scope covers the given instruction. Keys count
+	 * up from 0 in the order the variables are declared in the method's local
+	 * variable table, matching the numbering getMethodCalls has always used.
+	 *
+	 * @param index The position of the instruction in the method
+	 * @return The variables in scope at that instruction
+	 */
+	Map<Integer, LocalVariableNode> liveAt(int index) {
+		if (index < this.cursor) {
+			this.live.clear();
+			this.nextStart = 0;
+			this.nextEnd = 0;
+		}
+		this.cursor = index;
+
+		while (this.nextEnd < this.byEnd.length && this.ends[this.byEnd[this.nextEnd]] <= index) {
+			this.live.clear(this.byEnd[this.nextEnd++]);
+		}
+		while (this.nextStart < this.byStart.length && this.starts[this.byStart[this.nextStart]] <= index) {
+			int variable = this.byStart[this.nextStart++];
+			if (this.ends[variable] > index) {
+				this.live.set(variable);
+			}
+		}
+
+		Map<Integer, LocalVariableNode> vars = new HashMap<Integer, LocalVariableNode>();
+		int localVarIndex = 0;
+		for (int i = this.live.nextSetBit(0); i >= 0; i = this.live.nextSetBit(i + 1)) {
+			vars.put(localVarIndex, this.variables.get(i));
+			localVarIndex++;
+		}
+		return vars;
+	}
+}
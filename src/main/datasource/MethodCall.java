@@ -1,5 +1,7 @@
 package datasource;
 
+import java.util.Objects;
+
 public class MethodCall {
 	private String calledMethodName;
 	private Invoker invokerStatus;
@@ -36,4 +38,24 @@ public class MethodCall {
 				"InvokerName: " + this.invokerName + "\n" +
 				"InvokerClass: " + this.invokedClass;
 	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof MethodCall)) {
+			return false;
+		}
+		MethodCall other = (MethodCall) obj;
+		return Objects.equals(this.calledMethodName, other.calledMethodName)
+				&& this.invokerStatus == other.invokerStatus
+				&& Objects.equals(this.invokerName, other.invokerName)
+				&& Objects.equals(this.invokedClass, other.invokedClass);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(this.calledMethodName, this.invokerStatus, this.invokerName, this.invokedClass);
+	}
 }
@@ -0,0 +1,50 @@
+package datasource;
+
+/**
+ * The instructions of one method body reduced to a sequence of integer tokens,
+ * so that structurally identical code compares equal. Labels, line numbers and
+ * stack map frames are left out, local variable slots are ignored, and
+ * constants only keep their type. Two methods that differ only in the names of
+ * their locals, the values of their literals or the names of fields of their
+ * own class produce the same tokens.
+ */
+public final class NormalizedMethod {
+	private final String name;
+	private final String descriptor;
+	private final int[] tokens;
+	private final int[] lines;
+
+	NormalizedMethod(String name, String descriptor, int[] tokens, int[] lines) {
+		this.name = name;
+		this.descriptor = descriptor;
+		this.tokens = tokens;
+		this.lines = lines;
+	}
+
+	public String getName() {
+		return this.name;
+	}
+
+	public String getDescriptor() {
+		return this.descriptor;
+	}
+
+	/**
+	 * @return The number of tokens, one for each instruction that was kept
+	 */
+	public int getInstructionCount() {
+		return this.tokens.length;
+	}
+
+	public int getToken(int index) {
+		return this.tokens[index];
+	}
+
+	/**
+	 * @return The source line of the token at <code>index</code>, or 0 if the
+	 *         class file has no line numbers
+	 */
+	public int getLine(int index) {
+		return this.lines[index];
+	}
+}
@@ -0,0 +1,44 @@
+package datasource;
+
+/**
+ * Describes a class stream that ASMParser was unable to read or decompile.
+ */
+public class ParseFailure {
+	private int streamIndex;
+	private String source;
+	private Exception cause;
+
+	public ParseFailure(int streamIndex, Exception cause) {
+		this(streamIndex, null, cause);
+	}
+
+	public ParseFailure(int streamIndex, String source, Exception cause) {
+		this.streamIndex = streamIndex;
+		this.source = source;
+		this.cause = cause;
+	}
+
+	/**
+	 * @return The index of the failed stream in the array given to ASMParser
+	 */
+	public int getStreamIndex() {
+		return this.streamIndex;
+	}
+
+	/**
+	 * @return The path of the failed class file, or null if the parser was given
+	 *         streams instead of files
+	 */
+	public String getSource() {
+		return this.source;
+	}
+
+	public Exception getCause() {
+		return this.cause;
+	}
+
+	public String toString() {
+		return "Stream Index: " + this.streamIndex + "\n" +
+				"Cause: " + this.cause;
+	}
+}
@@ -0,0 +1,233 @@
+package datasource;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.InvokeDynamicInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.MultiANewArrayInsnNode;
+
+/**
+ * Records which instruction pushed each operand stack value at every call site
+ * of a method, without running a full ASM frame analysis.
+ *
+ * This only works for straight-line code, where every instruction is reached
+ * from exactly one predecessor and every stack value therefore has exactly one
+ * producer. Methods containing jumps, switches, exception handlers, stack
+ * shuffles whose effect depends on value sizes, or code after a return or
+ * throw are rejected, and callers must fall back to
+ * {@link org.objectweb.asm.tree.analysis.Analyzer} for them. For accepted
+ * methods the producers match what a SourceInterpreter frame analysis reports.
+ */
+final class StraightLineStack {
+	private final AbstractInsnNode[][] callSiteStacks;
+
+	private StraightLineStack(AbstractInsnNode[][] callSiteStacks) {
+		this.callSiteStacks = callSiteStacks;
+	}
+
+	static boolean containsMethodCall(MethodNode method) {
+		for (AbstractInsnNode insn : method.instructions) {
+			if (insn.getType() == AbstractInsnNode.METHOD_INSN) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Simulates the operand stack of a method from its first instruction.
+	 *
+	 * @return The recorded call site stacks, or null if the method is not
+	 *         straight-line code
+	 */
+	static StraightLineStack simulate(MethodNode method) {
+		if (method.tryCatchBlocks != null && !method.tryCatchBlocks.isEmpty()) {
+			return null;
+		}
+
+		AbstractInsnNode[] insns = method.instructions.toArray();
+		AbstractInsnNode[][] callSiteStacks = new AbstractInsnNode[insns.length][];
+		List<AbstractInsnNode> stack = new ArrayList<>();
+		boolean terminated = false;
+
+		for (int i = 0; i < insns.length; i++) {
+			AbstractInsnNode insn = insns[i];
+			int opcode = insn.getOpcode();
+			if (opcode < 0) {
+				// Labels, line numbers and frames do not touch the stack
+				continue;
+			}
+			if (terminated) {
+				return null;
+			}
+
+			int popped;
+			int pushed;
+			switch (insn.getType()) {
+				case AbstractInsnNode.INSN:
+					if (opcode == Opcodes.DUP) {
+						if (stack.isEmpty()) {
+							return null;
+						}
+						// The original value keeps its producer, the copy is produced by the DUP
+						stack.add(insn);
+						continue;
+					}
+					popped = simpleInsnPops(opcode);
+					if (popped < 0) {
+						return null;
+					}
+					pushed = simpleInsnPushes(opcode);
+					terminated = (opcode >= Opcodes.IRETURN && opcode <= Opcodes.RETURN) || opcode == Opcodes.ATHROW;
+					break;
+				case AbstractInsnNode.INT_INSN:
+					popped = opcode == Opcodes.NEWARRAY ? 1 : 0;
+					pushed = 1;
+					break;
+				case AbstractInsnNode.VAR_INSN:
+					if (opcode == Opcodes.RET) {
+						return null;
+					}
+					boolean load = opcode >= Opcodes.ILOAD && opcode <= Opcodes.ALOAD;
+					popped = load ? 0 : 1;
+					pushed = load ? 1 : 0;
+					break;
+				case AbstractInsnNode.TYPE_INSN:
+					popped = opcode == Opcodes.NEW ? 0 : 1;
+					pushed = 1;
+					break;
+				case AbstractInsnNode.FIELD_INSN:
+					popped = fieldInsnPops(opcode);
+					pushed = opcode == Opcodes.GETSTATIC || opcode == Opcodes.GETFIELD ? 1 : 0;
+					break;
+				case AbstractInsnNode.METHOD_INSN:
+					callSiteStacks[i] = stack.toArray(new AbstractInsnNode[stack.size()]);
+					String desc = ((MethodInsnNode) insn).desc;
+					popped = Type.getArgumentTypes(desc).length + (opcode == Opcodes.INVOKESTATIC ? 0 : 1);
+					pushed = Type.getReturnType(desc).getSort() == Type.VOID ? 0 : 1;
+					break;
+				case AbstractInsnNode.INVOKE_DYNAMIC_INSN:
+					String dynamicDesc = ((InvokeDynamicInsnNode) insn).desc;
+					popped = Type.getArgumentTypes(dynamicDesc).length;
+					pushed = Type.getReturnType(dynamicDesc).getSort() == Type.VOID ? 0 : 1;
+					break;
+				case AbstractInsnNode.LDC_INSN:
+					popped = 0;
+					pushed = 1;
+					break;
+				case AbstractInsnNode.IINC_INSN:
+					popped = 0;
+					pushed = 0;
+					break;
+				case AbstractInsnNode.MULTIANEWARRAY_INSN:
+					popped = ((MultiANewArrayInsnNode) insn).dims;
+					pushed = 1;
+					break;
+				default:
+					// Jumps, switches and anything unknown need real frames
+					return null;
+			}
+
+			if (popped > stack.size()) {
+				return null;
+			}
+			stack.subList(stack.size() - popped, stack.size()).clear();
+			for (int p = 0; p < pushed; p++) {
+				stack.add(insn);
+			}
+		}
+
+		return new StraightLineStack(callSiteStacks);
+	}
+
+	/**
+	 * Returns the producers of the operand stack values just before the
+	 * instruction at the given index, bottom of the stack first. Only call sites
+	 * are recorded.
+	 */
+	List<Collection<AbstractInsnNode>> getStack(int index) {
+		AbstractInsnNode[] producers = this.callSiteStacks[index];
+		List<Collection<AbstractInsnNode>> stack = new ArrayList<>(producers.length);
+		for (AbstractInsnNode producer : producers) {
+			stack.add(Collections.singletonList(producer));
+		}
+		return stack;
+	}
+
+	private static int fieldInsnPops(int opcode) {
+		switch (opcode) {
+			case Opcodes.GETSTATIC:
+				return 0;
+			case Opcodes.PUTSTATIC:
+			case Opcodes.GETFIELD:
+				return 1;
+			default:
+				return 2;
+		}
+	}
+
+	/**
+	 * @return How many values a zero-operand instruction pops, or -1 for stack
+	 *         shuffles that are not simulated
+	 */
+	private static int simpleInsnPops(int opcode) {
+		if (opcode == Opcodes.NOP || opcode == Opcodes.RETURN) {
+			return 0;
+		}
+		if (opcode >= Opcodes.ACONST_NULL && opcode <= Opcodes.DCONST_1) {
+			return 0;
+		}
+		if (opcode >= Opcodes.IALOAD && opcode <= Opcodes.SALOAD) {
+			return 2;
+		}
+		if (opcode >= Opcodes.IASTORE && opcode <= Opcodes.SASTORE) {
+			return 3;
+		}
+		if (opcode == Opcodes.POP) {
+			return 1;
+		}
+		if (opcode >= Opcodes.POP2 && opcode <= Opcodes.SWAP) {
+			return -1;
+		}
+		if (opcode >= Opcodes.IADD && opcode <= Opcodes.DREM) {
+			return 2;
+		}
+		if (opcode >= Opcodes.INEG && opcode <= Opcodes.DNEG) {
+			return 1;
+		}
+		if (opcode >= Opcodes.ISHL && opcode <= Opcodes.LXOR) {
+			return 2;
+		}
+		if (opcode >= Opcodes.I2L && opcode <= Opcodes.I2S) {
+			return 1;
+		}
+		if (opcode >= Opcodes.LCMP && opcode <= Opcodes.DCMPG) {
+			return 2;
+		}
+		if (opcode >= Opcodes.IRETURN && opcode <= Opcodes.ARETURN) {
+			return 1;
+		}
+		if (opcode == Opcodes.ARRAYLENGTH || opcode == Opcodes.ATHROW || opcode == Opcodes.MONITORENTER
+				|| opcode == Opcodes.MONITOREXIT) {
+			return 1;
+		}
+		return -1;
+	}
+
+	private static int simpleInsnPushes(int opcode) {
+		if ((opcode >= Opcodes.ACONST_NULL && opcode <= Opcodes.DCONST_1)
+				|| (opcode >= Opcodes.IALOAD && opcode <= Opcodes.SALOAD)
+				|| (opcode >= Opcodes.IADD && opcode <= Opcodes.DCMPG)
+				|| opcode == Opcodes.ARRAYLENGTH) {
+			return 1;
+		}
+		return 0;
+	}
+}
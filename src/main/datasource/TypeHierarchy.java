@@ -0,0 +1,290 @@
+package datasource;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The superclass and interface relationships of every parsed class, built once
+ * and shared by all analyzers through {@link ASMParser#getTypeHierarchy()}.
+ *
+ * Every parsed class, and every type a parsed class directly extends or
+ * implements, is a node with an integer id. Parsed classes get the lowest ids,
+ * in the parser's class order, followed by the outside types in the order they
+ * were first named. Direct relationships are kept as adjacency arrays and the
+ * transitive closures are computed up front, so the direct subclasses,
+ * implementors and supertypes of a type are found in constant time. Supertypes
+ * of classes that were not parsed are not known.
+ *
+ * Instances are immutable and safe to share between threads. Lists handed out
+ * are unmodifiable views.
+ */
+public final class TypeHierarchy {
+	private static final int[] NONE = new int[0];
+
+	private final String[] names;
+	private final Map<String, Integer> ids;
+	private final int parsedCount;
+
+	private final int[] superclasses;
+	private final int[][] interfaces;
+	private final int[][] subclasses;
+	private final int[][] implementors;
+	// Sorted by id so that subtype checks can binary search them
+	private final int[][] ancestors;
+	private final int[][] descendants;
+
+	TypeHierarchy(Collection<ClassIndex> classes) {
+		List<String> nameList = new ArrayList<>();
+		this.ids = new HashMap<>();
+		for (ClassIndex classIndex : classes) {
+			this.addNode(nameList, classIndex.getName());
+		}
+		this.parsedCount = nameList.size();
+
+		int[] superclassList = new int[this.parsedCount];
+		int[][] interfaceLists = new int[this.parsedCount][];
+		int index = 0;
+		for (ClassIndex classIndex : classes) {
+			String superName = classIndex.getSuperName();
+			superclassList[index] = superName == null ? -1 : this.addNode(nameList, superName);
+			String[] interfaceNames = classIndex.getInterfaces();
+			interfaceLists[index] = new int[interfaceNames.length];
+			for (int i = 0; i < interfaceNames.length; i++) {
+				interfaceLists[index][i] = this.addNode(nameList, interfaceNames[i]);
+			}
+			index++;
+		}
+
+		int size = nameList.size();
+		this.names = nameList.toArray(new String[size]);
+		this.superclasses = Arrays.copyOf(superclassList, size);
+		Arrays.fill(this.superclasses, this.parsedCount, size, -1);
+		this.interfaces = Arrays.copyOf(interfaceLists, size);
+		Arrays.fill(this.interfaces, this.parsedCount, size, NONE);
+
+		this.subclasses = invert(size, this.superclasses);
+		this.implementors = invert(size, this.interfaces);
+		this.ancestors = new int[size][];
+		for (int id = 0; id < size; id++) {
+			this.computeAncestors(id);
+		}
+		this.descendants = invert(size, this.ancestors);
+	}
+
+	private int addNode(List<String> nameList, String name) {
+		Integer id = this.ids.get(name);
+		if (id == null) {
+			id = nameList.size();
+			this.ids.put(name, id);
+			nameList.add(name);
+		}
+		return id;
+	}
+
+	/**
+	 * @return The number of types in the hierarchy
+	 */
+	public int size() {
+		return this.names.length;
+	}
+
+	/**
+	 * @return The id of the type, or -1 if it is not in the hierarchy
+	 */
+	public int getId(String className) {
+		Integer id = this.ids.get(className);
+		return id == null ? -1 : id;
+	}
+
+	public String getName(int id) {
+		return this.names[id];
+	}
+
+	/**
+	 * @return true if the type was parsed, false if it is only named as a
+	 *         supertype or is not in the hierarchy
+	 */
+	public boolean isParsed(String className) {
+		int id = this.getId(className);
+		return id >= 0 && id < this.parsedCount;
+	}
+
+	/**
+	 * @return The direct superclass of a parsed type, or null if it has none or
+	 *         is not known
+	 */
+	public String getSuperclass(String className) {
+		int id = this.getId(className);
+		return id < 0 || this.superclasses[id] < 0 ? null : this.names[this.superclasses[id]];
+	}
+
+	/**
+	 * @return The interfaces a type directly implements, or that an interface
+	 *         directly extends, in declaration order
+	 */
+	public List<String> getDirectInterfaces(String className) {
+		return this.view(this.interfaces, className);
+	}
+
+	/**
+	 * @return The direct superclass of a type, if it has one, followed by its
+	 *         direct interfaces
+	 */
+	public List<String> getDirectSupertypes(String className) {
+		int id = this.getId(className);
+		if (id < 0) {
+			return Collections.emptyList();
+		}
+		if (this.superclasses[id] < 0) {
+			return new IdList(this.interfaces[id]);
+		}
+		int[] supertypes = new int[this.interfaces[id].length + 1];
+		supertypes[0] = this.superclasses[id];
+		System.arraycopy(this.interfaces[id], 0, supertypes, 1, this.interfaces[id].length);
+		return new IdList(supertypes);
+	}
+
+	/**
+	 * @return The parsed types whose superclass is the given type, in id order
+	 */
+	public List<String> getDirectSubclasses(String className) {
+		return this.view(this.subclasses, className);
+	}
+
+	/**
+	 * @return The parsed classes and interfaces that directly list the given type
+	 *         among their interfaces, in id order
+	 */
+	public List<String> getDirectImplementors(String className) {
+		return this.view(this.implementors, className);
+	}
+
+	/**
+	 * @return Every type the given type extends or implements, directly or not,
+	 *         in id order
+	 */
+	public List<String> getAllSupertypes(String className) {
+		return this.view(this.ancestors, className);
+	}
+
+	/**
+	 * @return Every parsed type that extends or implements the given type,
+	 *         directly or not, in id order
+	 */
+	public List<String> getAllSubtypes(String className) {
+		return this.view(this.descendants, className);
+	}
+
+	/**
+	 * @return true if <code>subtype</code> extends or implements
+	 *         <code>supertype</code>, directly or not. A type is not its own
+	 *         subtype.
+	 */
+	public boolean isSubtypeOf(String subtype, String supertype) {
+		int subId = this.getId(subtype);
+		int superId = this.getId(supertype);
+		return subId >= 0 && superId >= 0 && Arrays.binarySearch(this.ancestors[subId], superId) >= 0;
+	}
+
+	private List<String> view(int[][] relation, String className) {
+		int id = this.getId(className);
+		return id < 0 ? Collections.emptyList() : new IdList(relation[id]);
+	}
+
+	private int[] computeAncestors(int id) {
+		if (this.ancestors[id] != null) {
+			return this.ancestors[id];
+		}
+		// Marks the type as in progress, so a malformed cycle ends here
+		this.ancestors[id] = NONE;
+
+		int[] collected = NONE;
+		int count = 0;
+		int[] direct = this.interfaces[id];
+		for (int i = -1; i < direct.length; i++) {
+			int supertype = i < 0 ? this.superclasses[id] : direct[i];
+			if (supertype < 0) {
+				continue;
+			}
+			int[] inherited = this.computeAncestors(supertype);
+			if (collected.length < count + inherited.length + 1) {
+				collected = Arrays.copyOf(collected, Math.max(2 * collected.length, count + inherited.length + 1));
+			}
+			collected[count++] = supertype;
+			System.arraycopy(inherited, 0, collected, count, inherited.length);
+			count += inherited.length;
+		}
+
+		this.ancestors[id] = sortedUnique(collected, count);
+		return this.ancestors[id];
+	}
+
+	private static int[] sortedUnique(int[] values, int count) {
+		if (count == 0) {
+			return NONE;
+		}
+		Arrays.sort(values, 0, count);
+		int unique = 1;
+		for (int i = 1; i < count; i++) {
+			if (values[i] != values[unique - 1]) {
+				values[unique++] = values[i];
+			}
+		}
+		return Arrays.copyOf(values, unique);
+	}
+
+	/**
+	 * Reverses a relation, listing the sources of each target in id order.
+	 */
+	private static int[][] invert(int size, int[][] relation) {
+		int[] counts = new int[size];
+		for (int[] targets : relation) {
+			for (int target : targets) {
+				counts[target]++;
+			}
+		}
+		int[][] inverted = new int[size][];
+		for (int id = 0; id < size; id++) {
+			inverted[id] = counts[id] == 0 ? NONE : new int[counts[id]];
+			counts[id] = 0;
+		}
+		for (int source = 0; source < relation.length; source++) {
+			for (int target : relation[source]) {
+				inverted[target][counts[target]++] = source;
+			}
+		}
+		return inverted;
+	}
+
+	private static int[][] invert(int size, int[] relation) {
+		int[][] asArrays = new int[relation.length][];
+		for (int id = 0; id < relation.length; id++) {
+			asArrays[id] = relation[id] < 0 ? NONE : new int[] { relation[id] };
+		}
+		return invert(size, asArrays);
+	}
+
+	private class IdList extends AbstractList<String> {
+		private final int[] typeIds;
+
+		IdList(int[] typeIds) {
+			this.typeIds = typeIds;
+		}
+
+		@Override
+		public String get(int index) {
+			return names[this.typeIds[index]];
+		}
+
+		@Override
+		public int size() {
+			return this.typeIds.length;
+		}
+	}
+}
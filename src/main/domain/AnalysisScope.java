@@ -0,0 +1,15 @@
+package domain;
+
+/**
+ * Describes which classes an analyzer's findings about a class depend on, so
+ * that an incremental run knows which cached findings are still valid after
+ * some class files changed.
+ */
+public enum AnalysisScope {
+	/** Findings about a class only depend on that class */
+	LOCAL,
+	/** Findings about a class also depend on the classes it references */
+	DEPENDENT,
+	/** Findings depend on the whole set of analyzed classes */
+	GLOBAL
+}
@@ -1,6 +1,10 @@
 package domain;
 
 //Abstract class that all analyzers should extend.
+//Analyzers also declare a static REQUIRED_FACTS set naming the method body
+//information they read, so streaming parses can drop everything else.
+//A static SCOPE says which classes their findings depend on, so incremental
+//runs only re-analyze classes whose findings may have changed.
 public abstract class DomainAnalyzer {
 
     public AnalyzerReturn getFeedback(String[] classList) {
@@ -1,8 +1,11 @@
 package domain.analyzer;
 
 import datasource.ASMParser;
+import datasource.ClassFact;
 import datasource.Invoker;
 import datasource.MethodCall;
+import datasource.TypeHierarchy;
+import domain.AnalysisScope;
 import domain.DomainAnalyzer;
 import domain.message.ErrorLinterMessage;
 import domain.message.LinterMessage;
@@ -13,6 +16,10 @@ import java.util.*;
 
 public class CodeToInterfaceAnalyzer extends DomainAnalyzer {
 
+	public static final Set<ClassFact> REQUIRED_FACTS = Collections
+			.unmodifiableSet(EnumSet.of(ClassFact.CALL_SITES, ClassFact.LOCAL_VARIABLES));
+	public static final AnalysisScope SCOPE = AnalysisScope.DEPENDENT;
+
 	private ASMParser parser;
 
 	// Parsed Data
@@ -164,12 +171,16 @@ public class CodeToInterfaceAnalyzer extends DomainAnalyzer {
 
 	public void checkMethodSignature(String className, String methodName) {
 		List<MethodCall> methodCalls = this.parser.getMethodCalls(className, methodName);
+		TypeHierarchy hierarchy = this.parser.getTypeHierarchy();
 
 		for (MethodCall method : methodCalls) {
 			if (method.getInvoker() == Invoker.FIELD) {
 				continue;
 			}
-			List<String> interfaces = parser.getInterfacesList(method.getInvokedClass());
+			// Library classes are not in the hierarchy and are loaded by the parser
+			List<String> interfaces = hierarchy.isParsed(method.getInvokedClass())
+					? hierarchy.getDirectInterfaces(method.getInvokedClass())
+					: parser.getInterfacesList(method.getInvokedClass());
 			if (interfaces == null) {
 				continue;
 			} else if (interfaces.size() > 0) {
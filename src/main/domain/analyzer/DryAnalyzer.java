@@ -2,12 +2,18 @@ package domain.analyzer;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import datasource.ASMParser;
+import datasource.ClassFact;
 import datasource.MethodCall;
+import domain.AnalysisScope;
 import domain.DomainAnalyzer;
 import domain.Method;
 import domain.message.LinterMessage;
@@ -23,14 +29,23 @@ import domain.AnalyzerReturn;
  */
 public class DryAnalyzer extends DomainAnalyzer {
 
+	public static final Set<ClassFact> REQUIRED_FACTS = Collections.unmodifiableSet(EnumSet.of(ClassFact.CALL_SITES));
+	public static final AnalysisScope SCOPE = AnalysisScope.GLOBAL;
+
 	private ASMParser parser;
 	private List<LinterMessage> errors;
 	private Map<String, List<Method>> classToMethods;
+	// Called method name -> every method that calls it, in classToMethods order
+	private Map<String, List<CallingMethod>> callersByName;
+	// Class and method names that already have a duplication warning
+	private Set<String> reportedMethods;
 
 	public DryAnalyzer(ASMParser parser) {
 		this.parser = parser;
 		this.errors = new ArrayList<>();
 		this.classToMethods = new HashMap<>();
+		this.callersByName = new HashMap<>();
+		this.reportedMethods = new HashSet<>();
 	}
 
 	public DryAnalyzer(String[] classList) {
@@ -41,6 +56,8 @@ public class DryAnalyzer extends DomainAnalyzer {
 		}
 		this.errors = new ArrayList<>();
 		this.classToMethods = new HashMap<>();
+		this.callersByName = new HashMap<>();
+		this.reportedMethods = new HashSet<>();
 	}
 
 	/**
@@ -60,6 +77,30 @@ public class DryAnalyzer extends DomainAnalyzer {
 			}
 			this.classToMethods.put(className, methods);
 		}
+		this.indexCallers();
+	}
+
+	/**
+	 * Builds the map from each called method name to the methods that call it, so
+	 * that duplicates can be looked up instead of searched for. Each method is
+	 * listed at most once per name, in the order the analysis visits methods.
+	 */
+	private void indexCallers() {
+		this.callersByName.clear();
+		for (String className : this.classToMethods.keySet()) {
+			for (Method method : this.classToMethods.get(className)) {
+				if (method.getName().equals("<init>")) {
+					continue;
+				}
+				for (MethodCall methodCall : method.getMethodCalls()) {
+					List<CallingMethod> callers = this.callersByName.computeIfAbsent(methodCall.getCalledMethodName(),
+							k -> new ArrayList<>());
+					if (callers.isEmpty() || callers.get(callers.size() - 1).method != method) {
+						callers.add(new CallingMethod(className, method));
+					}
+				}
+			}
+		}
 	}
 
 	/**
@@ -70,7 +111,7 @@ public class DryAnalyzer extends DomainAnalyzer {
 	public void analyzeData() {
 		for (String className : this.classToMethods.keySet()) {
 			for (Method method : this.classToMethods.get(className)) {
-				if (method.getName() != "<init>") {
+				if (!method.getName().equals("<init>")) {
 					for (MethodCall methodCall : method.getMethodCalls()) {
 
 						checkForDuplication(className, method, methodCall);
@@ -91,37 +132,21 @@ public class DryAnalyzer extends DomainAnalyzer {
 	 * 
 	 */
 	public void checkForDuplication(String classNameToCheck, Method methodToCheck, MethodCall methodCallToCheck) {
+		if (methodToCheck.getName().equals("<init>")
+				|| this.reportedMethods.contains(classNameToCheck + "." + methodToCheck.getName())) {
+			return;
+		}
 
-		for (String className : this.classToMethods.keySet()) {
-
-			for (Method method : this.classToMethods.get(className)) {
-				if (method.getName().equals("<init>")) {
-					continue;
-				}
-				if (className.equals(classNameToCheck) && methodToCheck.equals(method)) {
-					continue;
-				} else {
-					for (MethodCall methodCall : method.getMethodCalls()) {
-
-						if (methodCall.getCalledMethodName().equals(methodCallToCheck.getCalledMethodName())) {
-
-							LinterMessage e = new WarningLinterMessage(classNameToCheck, methodToCheck.getName(),
-									"Duplication in method " + method.getName() + " from class " + className);
-							boolean addE = true;
-							for (LinterMessage err : this.errors) {
-								if (err.className.equals(e.className) && err.methodName.equals(e.methodName)) {
-									addE = false;
-								}
-							}
-							if (addE) {
-								if (!e.methodName.equals("<init>")) {
-									errors.add(e);
-								}
-							}
-							continue;
-						}
-					}
-				}
+		List<CallingMethod> callers = this.callersByName.get(methodCallToCheck.getCalledMethodName());
+		if (callers == null) {
+			return;
+		}
+		for (CallingMethod caller : callers) {
+			if (caller.method != methodToCheck) {
+				errors.add(new WarningLinterMessage(classNameToCheck, methodToCheck.getName(),
+						"Duplication in method " + caller.method.getName() + " from class " + caller.className));
+				this.reportedMethods.add(classNameToCheck + "." + methodToCheck.getName());
+				return;
 			}
 		}
 	}
@@ -131,4 +156,14 @@ public class DryAnalyzer extends DomainAnalyzer {
 		return new AnalyzerReturn("DryAnalyzer", this.errors);
 	}
 
+	private static class CallingMethod {
+		private final String className;
+		private final Method method;
+
+		CallingMethod(String className, Method method) {
+			this.className = className;
+			this.method = method;
+		}
+	}
+
 }
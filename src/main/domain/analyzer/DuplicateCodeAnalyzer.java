@@ -0,0 +1,237 @@
+package domain.analyzer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import datasource.ASMParser;
+import datasource.ClassFact;
+import datasource.NormalizedMethod;
+import domain.AnalysisScope;
+import domain.AnalyzerReturn;
+import domain.DomainAnalyzer;
+import domain.message.LinterMessage;
+import domain.message.WarningLinterMessage;
+
+/**
+ * The structural clone mode of the DRY analyzer. Instead of comparing the names
+ * of called methods, this compares the normalized bytecode of method bodies and
+ * reports fragments of at least {@link #MIN_CLONE_INSTRUCTIONS} instructions
+ * that also appear in an earlier method, in the same class or another one.
+ *
+ * Every window of {@link #MIN_CLONE_INSTRUCTIONS} tokens gets a Rabin-Karp
+ * rolling hash, and the first place each hash was seen is kept in a hash
+ * table. A window whose hash was seen before is checked token by token and
+ * then extended as far as both copies agree, so the whole analysis takes time
+ * close to linear in the total size of the bytecode.
+ */
+public class DuplicateCodeAnalyzer extends DomainAnalyzer {
+
+	public static final Set<ClassFact> REQUIRED_FACTS = Collections
+			.unmodifiableSet(EnumSet.of(ClassFact.NORMALIZED_CODE));
+	public static final AnalysisScope SCOPE = AnalysisScope.GLOBAL;
+
+	// Roughly six to ten lines of source code
+	public static final int MIN_CLONE_INSTRUCTIONS = 30;
+
+	public static final String DUPLICATE_FORMAT_STRING = "Duplicated code: %d instructions%s also appear in method %s of class %s%s";
+
+	private static final long HASH_BASE = 1_000_003L;
+
+	private ASMParser parser;
+	private List<String> methodClasses;
+	private List<NormalizedMethod> methods;
+	private List<LinterMessage> errors;
+
+	public DuplicateCodeAnalyzer(ASMParser parser) {
+		this.parser = parser;
+		this.methodClasses = new ArrayList<>();
+		this.methods = new ArrayList<>();
+		this.errors = new ArrayList<>();
+	}
+
+	@Override
+	public void getRelevantData(String[] classList) {
+		for (String className : classList) {
+			className = className.replace('.', '/');
+			for (NormalizedMethod method : this.parser.getNormalizedMethods(className)) {
+				if (method.getInstructionCount() >= MIN_CLONE_INSTRUCTIONS) {
+					this.methodClasses.add(className);
+					this.methods.add(method);
+				}
+			}
+		}
+	}
+
+	@Override
+	public void analyzeData() {
+		long highestPower = 1;
+		for (int i = 1; i < MIN_CLONE_INSTRUCTIONS; i++) {
+			highestPower *= HASH_BASE;
+		}
+
+		WindowTable firstSeen = new WindowTable();
+		for (int methodIndex = 0; methodIndex < this.methods.size(); methodIndex++) {
+			NormalizedMethod method = this.methods.get(methodIndex);
+			int windowCount = method.getInstructionCount() - MIN_CLONE_INSTRUCTIONS + 1;
+
+			long hash = 0;
+			for (int i = 0; i < MIN_CLONE_INSTRUCTIONS; i++) {
+				hash = hash * HASH_BASE + token(method, i);
+			}
+
+			// Windows before this offset are part of a fragment already reported
+			int coveredUntil = 0;
+			for (int start = 0; start < windowCount; start++) {
+				if (start > 0) {
+					hash = (hash - token(method, start - 1) * highestPower) * HASH_BASE
+							+ token(method, start + MIN_CLONE_INSTRUCTIONS - 1);
+				}
+
+				long earlier = firstSeen.putIfAbsent(hash, location(methodIndex, start));
+				if (earlier < 0 || start < coveredUntil) {
+					continue;
+				}
+
+				int length = this.matchLength(location(methodIndex, start), earlier);
+				if (length >= MIN_CLONE_INSTRUCTIONS) {
+					this.report(methodIndex, start, earlier, length);
+					coveredUntil = start + length - MIN_CLONE_INSTRUCTIONS + 1;
+				}
+			}
+		}
+	}
+
+	@Override
+	public AnalyzerReturn composeReturnType() {
+		return new AnalyzerReturn("DryAnalyzer (Structural Clones)", this.errors);
+	}
+
+	/**
+	 * @return How many tokens agree from the two locations on, or 0 if the
+	 *         first window differs because two windows only shared a hash
+	 */
+	private int matchLength(long current, long earlier) {
+		NormalizedMethod method = this.methods.get(methodIndex(current));
+		NormalizedMethod earlierMethod = this.methods.get(methodIndex(earlier));
+		int start = offset(current);
+		int earlierStart = offset(earlier);
+
+		int limit = Math.min(method.getInstructionCount() - start, earlierMethod.getInstructionCount() - earlierStart);
+		if (method == earlierMethod) {
+			// A fragment must not overlap the copy it repeats
+			limit = Math.min(limit, start - earlierStart);
+		}
+
+		int length = 0;
+		while (length < limit && method.getToken(start + length) == earlierMethod.getToken(earlierStart + length)) {
+			length++;
+		}
+		return length < MIN_CLONE_INSTRUCTIONS ? 0 : length;
+	}
+
+	private void report(int methodIndex, int start, long earlier, int length) {
+		NormalizedMethod method = this.methods.get(methodIndex);
+		NormalizedMethod earlierMethod = this.methods.get(methodIndex(earlier));
+		int earlierStart = offset(earlier);
+
+		String message = String.format(DUPLICATE_FORMAT_STRING, length,
+				lineRange(method, start, length), earlierMethod.getName(),
+				this.methodClasses.get(methodIndex(earlier)), lineRange(earlierMethod, earlierStart, length));
+		this.errors.add(new WarningLinterMessage(this.methodClasses.get(methodIndex), method.getName(), message));
+	}
+
+	private static String lineRange(NormalizedMethod method, int start, int length) {
+		int first = method.getLine(start);
+		int last = method.getLine(start + length - 1);
+		if (first == 0 || last == 0) {
+			return "";
+		}
+		return first == last ? " (line " + first + ")" : " (lines " + first + "-" + last + ")";
+	}
+
+	private static long token(NormalizedMethod method, int index) {
+		return method.getToken(index) & 0xFFFFFFFFL;
+	}
+
+	private static long location(int methodIndex, int offset) {
+		return ((long) methodIndex << 32) | offset;
+	}
+
+	private static int methodIndex(long location) {
+		return (int) (location >>> 32);
+	}
+
+	private static int offset(long location) {
+		return (int) location;
+	}
+
+	/**
+	 * Open addressing map from window hashes to the location where each hash was
+	 * first seen. Avoids boxing a key and a value for every window of the code
+	 * base.
+	 */
+	private static class WindowTable {
+		private static final long EMPTY = -1;
+
+		private long[] hashes = new long[1024];
+		private long[] locations = newLocations(1024);
+		private int size;
+
+		/**
+		 * @return The location already stored for <code>hash</code>, or -1 if
+		 *         <code>location</code> was stored
+		 */
+		long putIfAbsent(long hash, long location) {
+			int mask = this.hashes.length - 1;
+			int slot = mix(hash) & mask;
+			while (this.locations[slot] != EMPTY) {
+				if (this.hashes[slot] == hash) {
+					return this.locations[slot];
+				}
+				slot = (slot + 1) & mask;
+			}
+
+			this.hashes[slot] = hash;
+			this.locations[slot] = location;
+			if (++this.size * 2 > this.hashes.length) {
+				this.grow();
+			}
+			return EMPTY;
+		}
+
+		private void grow() {
+			long[] oldHashes = this.hashes;
+			long[] oldLocations = this.locations;
+			this.hashes = new long[oldHashes.length * 2];
+			this.locations = newLocations(oldHashes.length * 2);
+			int mask = this.hashes.length - 1;
+			for (int i = 0; i < oldHashes.length; i++) {
+				if (oldLocations[i] != EMPTY) {
+					int slot = mix(oldHashes[i]) & mask;
+					while (this.locations[slot] != EMPTY) {
+						slot = (slot + 1) & mask;
+					}
+					this.hashes[slot] = oldHashes[i];
+					this.locations[slot] = oldLocations[i];
+				}
+			}
+		}
+
+		private static long[] newLocations(int capacity) {
+			long[] locations = new long[capacity];
+			Arrays.fill(locations, EMPTY);
+			return locations;
+		}
+
+		private static int mix(long hash) {
+			hash ^= hash >>> 33;
+			hash *= 0xFF51AFD7ED558CCDL;
+			hash ^= hash >>> 33;
+			return (int) hash;
+		}
+	}
+}
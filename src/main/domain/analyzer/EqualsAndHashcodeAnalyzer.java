@@ -2,11 +2,16 @@ package domain.analyzer;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import datasource.ASMParser;
+import datasource.ClassFact;
+import domain.AnalysisScope;
 import domain.AnalyzerReturn;
 import domain.DomainAnalyzer;
 import domain.message.InfoLinterMessage;
@@ -14,6 +19,9 @@ import domain.message.LinterMessage;
 
 public class EqualsAndHashcodeAnalyzer extends DomainAnalyzer {
 
+	public static final Set<ClassFact> REQUIRED_FACTS = Collections.unmodifiableSet(EnumSet.noneOf(ClassFact.class));
+	public static final AnalysisScope SCOPE = AnalysisScope.LOCAL;
+
 	ASMParser parser;
 	public Map<String, String[]> classAndMethodNames;
 	List<LinterMessage> errorList = new ArrayList<>();
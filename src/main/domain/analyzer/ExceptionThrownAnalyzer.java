@@ -2,18 +2,26 @@ package domain.analyzer;
 
 import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import datasource.ASMParser;
+import datasource.ClassFact;
+import domain.AnalysisScope;
 import domain.DomainAnalyzer;
 import domain.message.LinterMessage;
 import domain.message.WarningLinterMessage;
 import domain.AnalyzerReturn;
 
 public class ExceptionThrownAnalyzer extends DomainAnalyzer {
+	public static final Set<ClassFact> REQUIRED_FACTS = Collections
+			.unmodifiableSet(EnumSet.of(ClassFact.TRY_CATCH_TYPES));
+	public static final AnalysisScope SCOPE = AnalysisScope.LOCAL;
 	public static final String JAVA_EXCEPTION_INTERNAL_CLASS = "java/lang/Exception";
 	public static final String JAVA_RUNTIMEEXCEPTION_INTERNAL_CLASS = "java/lang/RuntimeException";
 	public static final String JAVA_ERROR_INTERNAL_CLASS = "java/lang/Error";
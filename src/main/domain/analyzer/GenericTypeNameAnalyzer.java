@@ -1,11 +1,16 @@
 package domain.analyzer;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import datasource.ASMParser;
+import datasource.ClassFact;
+import domain.AnalysisScope;
 import domain.DomainAnalyzer;
 import domain.message.LinterMessage;
 import domain.message.WarningLinterMessage;
@@ -13,6 +18,9 @@ import domain.AnalyzerReturn;
 
 public class GenericTypeNameAnalyzer extends DomainAnalyzer {
 
+	public static final Set<ClassFact> REQUIRED_FACTS = Collections.unmodifiableSet(EnumSet.noneOf(ClassFact.class));
+	public static final AnalysisScope SCOPE = AnalysisScope.LOCAL;
+
 	private Map<String, String> classToSignature;
 	private List<LinterMessage> namingViolations;
 	private ASMParser parser;
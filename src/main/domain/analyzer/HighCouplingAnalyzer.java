@@ -1,6 +1,8 @@
 package domain.analyzer;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -8,6 +10,8 @@ import java.util.Map;
 import java.util.Set;
 
 import datasource.ASMParser;
+import datasource.ClassFact;
+import domain.AnalysisScope;
 import domain.DomainAnalyzer;
 import domain.message.LinterMessage;
 import domain.message.WarningLinterMessage;
@@ -15,6 +19,10 @@ import domain.AnalyzerReturn;
 
 public class HighCouplingAnalyzer extends DomainAnalyzer {
 
+	public static final Set<ClassFact> REQUIRED_FACTS = Collections
+			.unmodifiableSet(EnumSet.of(ClassFact.BODY_TYPES, ClassFact.LOCAL_VARIABLES));
+	public static final AnalysisScope SCOPE = AnalysisScope.LOCAL;
+
 	public static final String JAVA_RUNTIME_CLASS_QUALIFIER_REGEX = "^java\\/.*";
 	public static final String JAVA_RUNTIME_SUN_CLASS_QUALIFIER_REGEX = "^((com\\/)?sun\\/).*";
 
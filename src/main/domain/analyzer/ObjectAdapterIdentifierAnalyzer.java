@@ -1,15 +1,21 @@
 package domain.analyzer;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import datasource.ASMParser;
+import datasource.ClassFact;
 import datasource.Invoker;
 import datasource.MethodCall;
+import datasource.TypeHierarchy;
+import domain.AnalysisScope;
 import domain.DomainAnalyzer;
 import domain.Method;
 import domain.message.LinterMessage;
@@ -18,6 +24,9 @@ import domain.AnalyzerReturn;
 
 public class ObjectAdapterIdentifierAnalyzer extends DomainAnalyzer {
 
+	public static final Set<ClassFact> REQUIRED_FACTS = Collections.unmodifiableSet(EnumSet.of(ClassFact.CALL_SITES));
+	public static final AnalysisScope SCOPE = AnalysisScope.GLOBAL;
+
 	private ASMParser parser;
 	private List<LinterMessage> adapterIdentifications;
 	private Map<String, Set<String>> classToPotentialTargets;
@@ -39,9 +48,10 @@ public class ObjectAdapterIdentifierAnalyzer extends DomainAnalyzer {
 			this.consideredClasses.add(className.replace('.', '/'));
 		}
 
+		TypeHierarchy hierarchy = this.parser.getTypeHierarchy();
 		for (String className : this.consideredClasses) {
 
-			Set<Method> methods = new HashSet<Method>();
+			Set<Method> methods = new LinkedHashSet<Method>();
 			String[] methodArr = this.parser.getMethods(className);
 			for (int i = 0; i < methodArr.length; i++) {
 				List<MethodCall> methodCalls = this.parser.getMethodCalls(className, methodArr[i]);
@@ -50,15 +60,10 @@ public class ObjectAdapterIdentifierAnalyzer extends DomainAnalyzer {
 			}
 			this.classToMethods.put(className, methods);
 
-			String[] classImplements = this.parser.getInterfaces(className);
-			String superType = this.parser.getSuperName(className);
 			Set<String> potentialTargets = new HashSet<String>();
-			if (this.consideredClasses.contains(superType)) {
-				potentialTargets.add(superType);
-			}
-			for (String interfaceName : classImplements) {
-				if (this.consideredClasses.contains(interfaceName)) {
-					potentialTargets.add(interfaceName);
+			for (String supertype : hierarchy.getDirectSupertypes(className)) {
+				if (this.consideredClasses.contains(supertype)) {
+					potentialTargets.add(supertype);
 				}
 			}
 			this.classToPotentialTargets.put(className, potentialTargets);
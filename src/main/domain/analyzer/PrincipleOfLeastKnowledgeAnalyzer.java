@@ -1,14 +1,19 @@
 package domain.analyzer;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import datasource.ASMParser;
+import datasource.ClassFact;
 import datasource.MethodCall;
+import domain.AnalysisScope;
 import domain.DomainAnalyzer;
 import domain.Method;
 import domain.message.LinterMessage;
@@ -17,6 +22,9 @@ import domain.AnalyzerReturn;
 
 public class PrincipleOfLeastKnowledgeAnalyzer extends DomainAnalyzer {
 
+	public static final Set<ClassFact> REQUIRED_FACTS = Collections.unmodifiableSet(EnumSet.of(ClassFact.CALL_SITES));
+	public static final AnalysisScope SCOPE = AnalysisScope.GLOBAL;
+
 	private Set<String> consideredClasses;
 	private Map<String, Set<Method>> classToMethods;
 	private List<LinterMessage> demeterViolations;
@@ -36,7 +44,7 @@ public class PrincipleOfLeastKnowledgeAnalyzer extends DomainAnalyzer {
 		}
 
 		for (String className : this.consideredClasses) {
-			Set<Method> methods = new HashSet<Method>();
+			Set<Method> methods = new LinkedHashSet<Method>();
 			String[] methodArr = parser.getMethods(className);
 			for (int i = 0; i < methodArr.length; i++) {
 				List<MethodCall> methodCalls = parser.getMethodCalls(className, methodArr[i]);
@@ -2,11 +2,16 @@ package domain.analyzer;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import datasource.ASMParser;
+import datasource.ClassFact;
+import domain.AnalysisScope;
 import domain.AnalyzerReturn;
 import domain.DomainAnalyzer;
 import domain.message.LinterMessage;
@@ -14,6 +19,9 @@ import domain.message.PatternLinterMessage;
 
 public class SingletonAnalyzer extends DomainAnalyzer {
 
+	public static final Set<ClassFact> REQUIRED_FACTS = Collections.unmodifiableSet(EnumSet.noneOf(ClassFact.class));
+	public static final AnalysisScope SCOPE = AnalysisScope.LOCAL;
+
 	private ASMParser parser;
 	private List<LinterMessage> errors;
 	private Map<String, String[]> validFields;
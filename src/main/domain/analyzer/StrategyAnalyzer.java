@@ -1,12 +1,19 @@
 package domain.analyzer;
 
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import datasource.ASMParser;
+import datasource.ClassFact;
+import datasource.TypeHierarchy;
+import domain.AnalysisScope;
 import domain.AnalyzerReturn;
 import domain.DomainAnalyzer;
 import domain.message.ErrorLinterMessage;
@@ -16,6 +23,9 @@ import domain.message.WarningLinterMessage;
 
 public class StrategyAnalyzer extends DomainAnalyzer {
 
+	public static final Set<ClassFact> REQUIRED_FACTS = Collections.unmodifiableSet(EnumSet.noneOf(ClassFact.class));
+	public static final AnalysisScope SCOPE = AnalysisScope.GLOBAL;
+
 	public static final String IMPLEMENTS_TOO_MANY_INTERFACE_ERR = "Strategy %s implements too many interfaces!";
 	public static final String NO_IMPLEMENTING_STRATEGIES = "Strategy Type %s has no strategies implementing it!";
 	public static final String IS_STRATEGY_TYPE = "%s is a strategy type";
@@ -27,6 +37,9 @@ public class StrategyAnalyzer extends DomainAnalyzer {
 
 	private List<String> strategyTypeList;
 	private List<String> strategyList;
+	// Hash lookups for the two lists above, which keep report order
+	private Set<String> strategyTypes;
+	private Set<String> strategies;
 	private List<String> nonStratclassList;
 	private List<LinterMessage> errorList;
 
@@ -39,6 +52,8 @@ public class StrategyAnalyzer extends DomainAnalyzer {
 		this.parser = parser;
 		this.strategyList = new ArrayList<>();
 		this.strategyTypeList = new ArrayList<>();
+		this.strategies = new HashSet<>();
+		this.strategyTypes = new HashSet<>();
 		this.strategyTypeStrategiesMap = new HashMap<>();
 		this.errorList = new ArrayList<>();
 		this.classUsedStrategies = new HashMap<>();
@@ -75,27 +90,32 @@ public class StrategyAnalyzer extends DomainAnalyzer {
 	}
 
 	public void sweepInterfaces(String[] classList) {
-		for (String className : classList) {
+		TypeHierarchy hierarchy = this.parser.getTypeHierarchy();
+		Map<String, Integer> classPositions = new HashMap<>();
+		for (int i = 0; i < classList.length; i++) {
+			String className = classList[i];
+			classPositions.putIfAbsent(className, i);
 			if (parser.isInterface(className) && !parser.isEnum(className)) {
 				this.strategyTypeList.add(className);
+				this.strategyTypes.add(className);
 			}
 		}
 
 		for (String strategyType : this.strategyTypeList) {
 			List<String> implementingStrategies = new ArrayList<>();
-			for (String className : classList) {
-				List<String> interfaces = Arrays.asList(this.parser.getInterfaces(className));
-				if (interfaces.contains(strategyType)) {
-					implementingStrategies.add(className);
-					strategyList.add(className);
+			for (String implementor : hierarchy.getDirectImplementors(strategyType)) {
+				if (classPositions.containsKey(implementor)) {
+					implementingStrategies.add(implementor);
 				}
 			}
-
+			implementingStrategies.sort(Comparator.comparing(classPositions::get));
+			this.strategyList.addAll(implementingStrategies);
+			this.strategies.addAll(implementingStrategies);
 			this.strategyTypeStrategiesMap.put(strategyType, implementingStrategies);
 		}
 
 		for (String className : classList) {
-			if (!this.strategyTypeList.contains(className) && !this.strategyList.contains(className)) {
+			if (!this.strategyTypes.contains(className) && !this.strategies.contains(className)) {
 				this.nonStratclassList.add(className);
 			}
 		}
@@ -113,36 +133,41 @@ public class StrategyAnalyzer extends DomainAnalyzer {
 
 		if (typesToRemove.size() >= 1) {
 			for (String removedType : typesToRemove) {
-				this.strategyTypeList.remove(removedType);
+				this.strategyTypes.remove(removedType);
 				this.strategyTypeStrategiesMap.remove(removedType);
 			}
+			this.strategyTypeList.removeAll(new HashSet<>(typesToRemove));
 		}
 
-		List<String> toRemove = new ArrayList<>();
+		TypeHierarchy hierarchy = this.parser.getTypeHierarchy();
+		Set<String> toRemove = new HashSet<>();
+		// Strategy type -> strategies to drop from it, removed in one pass each
+		Map<String, Set<String>> droppedStrategies = new HashMap<>();
 		for (String strat : this.strategyList) {
-			String[] interfaces = this.parser.getInterfaces(strat);
+			List<String> interfaces = hierarchy.getDirectInterfaces(strat);
 
-			if (interfaces.length >= 2) {
+			if (interfaces.size() >= 2) {
 				this.errorList
 						.add(new ErrorLinterMessage(strat, String.format(IMPLEMENTS_TOO_MANY_INTERFACE_ERR, strat)));
 
 				toRemove.add(strat);
 
 				for (String interfaceName : interfaces) {
-					List<String> tempList = this.strategyTypeStrategiesMap.get(interfaceName);
-					if (this.strategyTypeList.contains(interfaceName)) {
-						tempList.remove(strat);
-						this.strategyTypeStrategiesMap.put(interfaceName, tempList);
+					if (this.strategyTypes.contains(interfaceName)) {
+						droppedStrategies.computeIfAbsent(interfaceName, k -> new HashSet<>()).add(strat);
 					}
 				}
 			}
 
 		}
 
+		for (Map.Entry<String, Set<String>> dropped : droppedStrategies.entrySet()) {
+			this.strategyTypeStrategiesMap.get(dropped.getKey()).removeAll(dropped.getValue());
+		}
+
 		if (toRemove.size() >= 1) {
-			for (String removeMe : toRemove) {
-				this.strategyTypeList.remove(removeMe);
-			}
+			this.strategyTypes.removeAll(toRemove);
+			this.strategyTypeList.removeAll(toRemove);
 		}
 	}
 
@@ -156,7 +181,7 @@ public class StrategyAnalyzer extends DomainAnalyzer {
 			if (parser.isFinal(className) && parser.allMethodsStatic(className)) {
 				String[] paramTypes = parser.getAllMethodParameterTypes(className);
 				for (String param : paramTypes) {
-					if (this.strategyTypeList.contains(param)) {
+					if (this.strategyTypes.contains(param)) {
 						usedStrats.add(param);
 					}
 				}
@@ -164,9 +189,9 @@ public class StrategyAnalyzer extends DomainAnalyzer {
 				String[] classFields = parser.getFieldTypeNames(className);
 				for (String field : classFields) {
 					String fixedField = field.replace("[", "");
-					if (this.strategyList.contains(fixedField)) {
+					if (this.strategies.contains(fixedField)) {
 						errorList.add(new ErrorLinterMessage(className, String.format(CONCRETE_FIELD, className)));
-					} else if (this.strategyTypeList.contains(fixedField)) {
+					} else if (this.strategyTypes.contains(fixedField)) {
 						usedStrats.add(fixedField);
 					}
 				}
@@ -1,11 +1,19 @@
 package domain.analyzer;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import datasource.ASMParser;
+import datasource.ClassFact;
+import datasource.TypeHierarchy;
+import domain.AnalysisScope;
 import domain.AnalyzerReturn;
 import domain.DomainAnalyzer;
 import domain.message.LinterMessage;
@@ -13,6 +21,9 @@ import domain.message.PatternLinterMessage;
 
 public class TemplateMethodAnalyzer extends DomainAnalyzer {
 
+	public static final Set<ClassFact> REQUIRED_FACTS = Collections.unmodifiableSet(EnumSet.of(ClassFact.CALL_SITES));
+	public static final AnalysisScope SCOPE = AnalysisScope.GLOBAL;
+
 	private ASMParser parser;
 
 	// Parsed Data
@@ -44,6 +55,11 @@ public class TemplateMethodAnalyzer extends DomainAnalyzer {
 		for (String className : this.abstractMethods.keySet()) {
 			this.abstractInConcrete.put(className, new HashMap<>());
 			for (List<String> methodName : this.concreteMethods.get(className)) {
+				if (this.abstractMethods.get(className).isEmpty()) {
+					// Nothing abstract to call, so no call sites need analyzing
+					this.abstractInConcrete.get(className).put(methodName, new ArrayList<>());
+					continue;
+				}
 				this.abstractInConcrete.get(className).put(methodName,
 						this.parser.getAbstractMethodsInConcrete(className, methodName,
 								this.abstractMethods.get(className)));
@@ -52,38 +68,58 @@ public class TemplateMethodAnalyzer extends DomainAnalyzer {
 	}
 
 	public void analyzeData() {
+		TypeHierarchy hierarchy = this.parser.getTypeHierarchy();
+		Map<String, Integer> subclassOrder = new HashMap<>();
+		for (String subclassName : this.extendedClasses.keySet()) {
+			subclassOrder.put(subclassName, subclassOrder.size());
+		}
+		// Name and descriptor of every concrete method, looked up per subclass
+		Map<String, Set<String>> concreteSignatures = new HashMap<>();
+		for (String className : this.concreteMethods.keySet()) {
+			Set<String> signatures = new HashSet<>();
+			for (List<String> method : this.concreteMethods.get(className)) {
+				signatures.add(method.get(0) + method.get(1));
+			}
+			concreteSignatures.put(className, signatures);
+		}
+
 		for (String className : this.abstractInConcrete.keySet()) {
-			for (List<String> methodName : this.abstractInConcrete.get(className).keySet()) {
-				for (String subclassName : this.extendedClasses.keySet()) {
-					boolean allConcrete = true;
-					if (this.extendedClasses.get(subclassName).compareTo(className) == 0) {
-						for (String abstractMethod : this.abstractInConcrete.get(className).get(methodName)) {
-							boolean counter = false;
-
-							String abstractDesc = null;
-							for (int i = 0; i < this.abstractMethods.get(className).size(); i++) {
-								if (this.abstractMethods.get(className).get(i).get(0).compareTo(abstractMethod) == 0) {
-									abstractDesc = this.abstractMethods.get(className).get(i).get(1);
-								}
-							}
-							for (int i = 0; i < this.concreteMethods.get(subclassName).size(); i++) {
-								if (this.concreteMethods.get(subclassName).get(i).get(0).compareTo(abstractMethod) == 0
-										&&
-										abstractDesc != null &&
-										this.concreteMethods.get(subclassName).get(i).get(1)
-												.compareTo(abstractDesc) == 0) {
-									counter = true;
-								}
-							}
-							if (!counter) {
-								allConcrete = false;
-							}
-						}
-						if (allConcrete && methodName.get(0).compareTo("<init>") != 0) {
-							this.foundPatterns.add(new PatternLinterMessage(className, methodName.get(0),
-									"Template Method Pattern Found: " + methodName.get(0) + " (Subclass: "
-											+ subclassName + ")"));
-						}
+			List<String> subclasses = new ArrayList<>();
+			for (String subclassName : hierarchy.getDirectSubclasses(className)) {
+				if (subclassOrder.containsKey(subclassName)) {
+					subclasses.add(subclassName);
+				}
+			}
+			if (subclasses.isEmpty()) {
+				continue;
+			}
+			subclasses.sort(Comparator.comparing(subclassOrder::get));
+
+			// The last abstract method declared with a name decides its descriptor
+			Map<String, String> abstractDescs = new HashMap<>();
+			for (List<String> method : this.abstractMethods.get(className)) {
+				abstractDescs.put(method.get(0), method.get(1));
+			}
+
+			methods: for (List<String> methodName : this.abstractInConcrete.get(className).keySet()) {
+				if (methodName.get(0).equals("<init>")) {
+					continue;
+				}
+
+				Set<String> requiredSignatures = new HashSet<>();
+				for (String abstractMethod : this.abstractInConcrete.get(className).get(methodName)) {
+					String abstractDesc = abstractDescs.get(abstractMethod);
+					if (abstractDesc == null) {
+						continue methods;
+					}
+					requiredSignatures.add(abstractMethod + abstractDesc);
+				}
+
+				for (String subclassName : subclasses) {
+					if (concreteSignatures.get(subclassName).containsAll(requiredSignatures)) {
+						this.foundPatterns.add(new PatternLinterMessage(className, methodName.get(0),
+								"Template Method Pattern Found: " + methodName.get(0) + " (Subclass: "
+										+ subclassName + ")"));
 					}
 				}
 			}
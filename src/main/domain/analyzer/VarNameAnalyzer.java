@@ -1,11 +1,16 @@
 package domain.analyzer;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import datasource.ASMParser;
+import datasource.ClassFact;
+import domain.AnalysisScope;
 import domain.AnalyzerReturn;
 import domain.DomainAnalyzer;
 import domain.message.ErrorLinterMessage;
@@ -14,6 +19,10 @@ import domain.message.WarningLinterMessage;
 
 public class VarNameAnalyzer extends DomainAnalyzer {
 
+	public static final Set<ClassFact> REQUIRED_FACTS = Collections
+			.unmodifiableSet(EnumSet.of(ClassFact.LOCAL_VARIABLES));
+	public static final AnalysisScope SCOPE = AnalysisScope.LOCAL;
+
 	private ASMParser parser;
 	// Parsed Values
 	private Map<String, List<String>> fieldNames;
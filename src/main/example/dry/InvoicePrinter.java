@@ -0,0 +1,31 @@
+package example.dry;
+
+import java.util.List;
+
+public class InvoicePrinter {
+
+    private String companyName;
+
+    public InvoicePrinter(String companyName) {
+        this.companyName = companyName;
+    }
+
+    public String printInvoice(List<String> lines, List<Integer> amounts) {
+        StringBuilder invoice = new StringBuilder();
+        invoice.append("INVOICE\n");
+        invoice.append(this.companyName).append("\n");
+        int sum = 0;
+        for (int j = 0; j < lines.size(); j++) {
+            String line = lines.get(j);
+            int amount = amounts.get(j);
+            invoice.append(line).append(": ").append(amount / 100).append(".").append(amount % 100).append("\n");
+            sum += amount;
+        }
+        if (sum > 20000) {
+            invoice.append("Discount: ").append(sum / 20).append("\n");
+            sum -= sum / 20;
+        }
+        invoice.append("Amount Due: ").append(sum / 100).append(".").append(sum % 100);
+        return invoice.toString();
+    }
+}
@@ -0,0 +1,30 @@
+package example.dry;
+
+import java.util.List;
+
+public class ReceiptPrinter {
+
+    private String storeName;
+
+    public ReceiptPrinter(String storeName) {
+        this.storeName = storeName;
+    }
+
+    public String printReceipt(List<String> items, List<Integer> prices) {
+        StringBuilder receipt = new StringBuilder();
+        receipt.append(this.storeName).append("\n");
+        int total = 0;
+        for (int i = 0; i < items.size(); i++) {
+            String item = items.get(i);
+            int price = prices.get(i);
+            receipt.append(item).append(": ").append(price / 100).append(".").append(price % 100).append("\n");
+            total += price;
+        }
+        if (total > 5000) {
+            receipt.append("Discount: ").append(total / 10).append("\n");
+            total -= total / 10;
+        }
+        receipt.append("Total: ").append(total / 100).append(".").append(total % 100);
+        return receipt.toString();
+    }
+}
@@ -0,0 +1,473 @@
+package presentation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.math.BigInteger;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import datasource.ASMParser;
+import domain.AnalysisScope;
+import domain.AnalyzerReturn;
+import domain.message.ErrorLinterMessage;
+import domain.message.InfoLinterMessage;
+import domain.message.LinterMessage;
+import domain.message.PatternLinterMessage;
+import domain.message.WarningLinterMessage;
+
+/**
+ * Keeps the findings of the previous run on disk so that a run over mostly
+ * unchanged class files only re-analyzes what changed.
+ *
+ * Each class is identified by a hash of its class file bytes. A class is
+ * changed when its hash differs from the previous run or it is new, and
+ * removed classes count as changed as well. What is re-analyzed then depends
+ * on the analyzer's {@link AnalysisScope}:
+ * <ul>
+ * <li>LOCAL analyzers only run on the changed classes.</li>
+ * <li>DEPENDENT analyzers also run on every class that refers to a changed
+ * class, directly or through other classes.</li>
+ * <li>GLOBAL analyzers run on every class if anything changed, and are reused
+ * as a whole otherwise.</li>
+ * </ul>
+ * Cached findings of classes that were not re-analyzed are merged with the new
+ * ones. A finding that has no class, or names a class that was not analyzed,
+ * cannot be tied to the class that caused it, so an analyzer with such
+ * findings is run on every class once anything changed. Findings of LOCAL and DEPENDENT analyzers are then put in the same
+ * {@link FindingOrder} as a run without the cache.
+ *
+ * A cache file is only valid for the DesignLint build, Java version, set of
+ * enabled analyzers and external classpath that wrote it, and is ignored
+ * otherwise. The build is told apart by its version and by a hash of the jar
+ * or class directory DesignLint was loaded from, so findings of a rebuilt
+ * DesignLint are not reused even when the version was not bumped.
+ */
+class AnalysisCache {
+	private static final String FORMAT = "DesignLint analysis cache 1";
+
+	private static volatile String codeDigest;
+
+	private final Path cacheFile;
+	private final String key;
+
+	private Map<String, ClassRecord> previousClasses;
+	private Map<Integer, AnalyzerRecord> previousReturns;
+	private Map<String, ClassRecord> currentClasses;
+	private Map<Integer, AnalyzerRecord> currentReturns;
+	private Set<String> changedClasses;
+	private Set<String> dependentClasses;
+	private FindingOrder findingOrder;
+
+	/**
+	 * @param cacheDirectory   The directory to keep cache files in. It is
+	 *                         created when the cache is first saved
+	 * @param analyzerFlags    The enabled analyzer flags of this run
+	 * @param classpathDigest  The digest of the external classpath, or null if
+	 *                         classes are looked up on DesignLint's own
+	 */
+	AnalysisCache(Path cacheDirectory, int analyzerFlags, String classpathDigest) {
+		this.cacheFile = cacheDirectory.resolve(String.format("analysis-%08x.cache", analyzerFlags));
+		this.key = PresentationLayer.VERSION + " " + System.getProperty("java.version") + " " + analyzerFlags + " "
+				+ codeDigest() + " " + classpathDigest;
+	}
+
+	/**
+	 * @return A hash of DesignLint's own code, so a cache written by a different
+	 *         build is not reused. The code cannot change while the JVM runs,
+	 *         so it is only hashed once
+	 */
+	private static String codeDigest() {
+		String digest = codeDigest;
+		if (digest == null) {
+			digest = hashCodeSource();
+			codeDigest = digest;
+		}
+		return digest;
+	}
+
+	/**
+	 * Hashes the jar DesignLint was loaded from, or every class file below the
+	 * directory it was loaded from.
+	 */
+	private static String hashCodeSource() {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			CodeSource codeSource = AnalysisCache.class.getProtectionDomain().getCodeSource();
+			Path location = Paths.get(codeSource.getLocation().toURI());
+			if (Files.isDirectory(location)) {
+				List<Path> classFiles;
+				try (Stream<Path> files = Files.walk(location)) {
+					classFiles = files.filter(file -> file.toString().endsWith(".class")).sorted()
+							.collect(Collectors.toList());
+				}
+				for (Path classFile : classFiles) {
+					digest.update(location.relativize(classFile).toString().getBytes(StandardCharsets.UTF_8));
+					digest.update(Files.readAllBytes(classFile));
+				}
+			} else {
+				byte[] buffer = new byte[8192];
+				try (InputStream stream = Files.newInputStream(location)) {
+					int read;
+					while ((read = stream.read(buffer)) != -1) {
+						digest.update(buffer, 0, read);
+					}
+				}
+			}
+			return new BigInteger(1, digest.digest()).toString(16);
+		} catch (NoSuchAlgorithmException e) {
+			// Every Java platform is required to support SHA-256
+			throw new IllegalStateException(e);
+		} catch (IOException | URISyntaxException | RuntimeException e) {
+			// Builds cannot be told apart, so no cache file is ever reused
+			return "unknown " + UUID.randomUUID();
+		}
+	}
+
+	/**
+	 * Loads the previous run and works out which classes changed since then.
+	 * A missing, unreadable or outdated cache file is treated as empty.
+	 * 
+	 * @param findingOrder The order to put merged findings in
+	 * @param errorStream  Where to report an unreadable cache file
+	 */
+	void load(ASMParser parser, String[] classList, FindingOrder findingOrder, PrintStream errorStream) {
+		this.currentClasses = new HashMap<>();
+		// Analyzers may finish on several threads at once
+		this.currentReturns = new ConcurrentHashMap<>();
+		this.findingOrder = findingOrder;
+		for (String className : classList) {
+			this.currentClasses.put(className,
+					new ClassRecord(parser.getClassDigest(className), parser.getReferencedClasses(className)));
+		}
+
+		this.previousClasses = new HashMap<>();
+		this.previousReturns = new HashMap<>();
+		try {
+			this.read();
+		} catch (NoSuchFileException e) {
+			// First run with this cache directory
+		} catch (IOException | RuntimeException e) {
+			errorStream.println("Ignoring unreadable analysis cache " + this.cacheFile + ": " + e);
+			this.previousClasses.clear();
+			this.previousReturns.clear();
+		}
+
+		this.changedClasses = new HashSet<>();
+		for (Map.Entry<String, ClassRecord> current : this.currentClasses.entrySet()) {
+			ClassRecord previous = this.previousClasses.get(current.getKey());
+			String digest = current.getValue().digest;
+			if (previous == null || digest == null || !digest.equals(previous.digest)) {
+				this.changedClasses.add(current.getKey());
+			}
+		}
+		for (String previousClass : this.previousClasses.keySet()) {
+			if (!this.currentClasses.containsKey(previousClass)) {
+				this.changedClasses.add(previousClass);
+			}
+		}
+		this.dependentClasses = this.findDependents(this.changedClasses);
+	}
+
+	/**
+	 * @return The number of classes that are new, changed or removed since the
+	 *         previous run
+	 */
+	int getChangedClassCount() {
+		return this.changedClasses.size();
+	}
+
+	/**
+	 * @return true if the previous run left findings for the analyzer
+	 */
+	boolean hasCachedReturn(int analyzerFlag) {
+		return this.previousReturns.containsKey(analyzerFlag);
+	}
+
+	/**
+	 * Decides which classes an analyzer has to run on.
+	 *
+	 * @return The classes to analyze, which is all of <code>classList</code> if
+	 *         nothing usable is cached
+	 */
+	String[] classesToAnalyze(int analyzerFlag, AnalysisScope scope, String[] classList) {
+		if (!this.previousReturns.containsKey(analyzerFlag)) {
+			return classList;
+		}
+
+		Set<String> invalidated;
+		switch (scope) {
+			case LOCAL:
+				invalidated = this.changedClasses;
+				break;
+			case DEPENDENT:
+				invalidated = this.dependentClasses;
+				break;
+			default:
+				return this.changedClasses.isEmpty() ? new String[0] : classList;
+		}
+		if (!this.changedClasses.isEmpty() && this.hasUnattributedFindings(analyzerFlag)) {
+			// There is no telling which class those findings came from
+			return classList;
+		}
+
+		List<String> toAnalyze = new ArrayList<>();
+		for (String className : classList) {
+			if (invalidated.contains(className)) {
+				toAnalyze.add(className);
+			}
+		}
+		return toAnalyze.toArray(new String[toAnalyze.size()]);
+	}
+
+	/**
+	 * Combines the findings of an analyzer run on <code>analyzed</code> with
+	 * the cached findings of every other class, and remembers the result for
+	 * the next run.
+	 *
+	 * @param freshReturn The result of running the analyzer on
+	 *                    <code>analyzed</code>, or null if it was not run
+	 */
+	AnalyzerReturn merge(int analyzerFlag, AnalysisScope scope, String[] analyzed, AnalyzerReturn freshReturn) {
+		AnalyzerRecord previous = this.previousReturns.get(analyzerFlag);
+		String analyzerName = freshReturn != null ? freshReturn.analyzerName : previous.analyzerName;
+		List<LinterMessage> messages = new ArrayList<>();
+
+		if (scope == AnalysisScope.GLOBAL) {
+			messages.addAll(freshReturn != null ? freshReturn.errorsCaught : previous.messages);
+		} else {
+			Set<String> analyzedClasses = new HashSet<>();
+			for (String className : analyzed) {
+				analyzedClasses.add(className);
+			}
+			if (previous != null) {
+				for (LinterMessage message : previous.messages) {
+					String owner = FindingOrder.ownerOf(message);
+					if (!this.isAttributed(owner)) {
+						// Only reused when nothing was analyzed, see classesToAnalyze
+						if (analyzed.length == 0) {
+							messages.add(message);
+						}
+					} else if (this.currentClasses.containsKey(owner) && !analyzedClasses.contains(owner)) {
+						messages.add(message);
+					}
+				}
+			}
+			if (freshReturn != null) {
+				messages.addAll(freshReturn.errorsCaught);
+			}
+			this.findingOrder.sort(messages);
+		}
+
+		this.currentReturns.put(analyzerFlag, new AnalyzerRecord(analyzerName, messages));
+		return new AnalyzerReturn(analyzerName, messages);
+	}
+
+	/**
+	 * @return true if a cached finding of the analyzer has no class, or one that
+	 *         was not analyzed, so it cannot be tied to the class it came from
+	 */
+	private boolean hasUnattributedFindings(int analyzerFlag) {
+		for (LinterMessage message : this.previousReturns.get(analyzerFlag).messages) {
+			if (!this.isAttributed(FindingOrder.ownerOf(message))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean isAttributed(String owner) {
+		return owner != null && (this.currentClasses.containsKey(owner) || this.previousClasses.containsKey(owner));
+	}
+
+	/**
+	 * Writes the classes and findings of this run, replacing the previous cache
+	 * file in one step.
+	 */
+	void save() throws IOException {
+		Files.createDirectories(this.cacheFile.getParent());
+		Path tempFile = Files.createTempFile(this.cacheFile.getParent(), "analysis-", ".tmp");
+		try {
+			try (DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+				this.write(out);
+			}
+			try {
+				Files.move(tempFile, this.cacheFile, StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tempFile, this.cacheFile, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(tempFile);
+		}
+	}
+
+	private Set<String> findDependents(Set<String> changed) {
+		Map<String, List<String>> referencedBy = new HashMap<>();
+		for (Map.Entry<String, ClassRecord> entry : this.currentClasses.entrySet()) {
+			for (String referenced : entry.getValue().referencedClasses) {
+				referencedBy.computeIfAbsent(referenced, name -> new ArrayList<>()).add(entry.getKey());
+			}
+		}
+
+		Set<String> dependents = new HashSet<>(changed);
+		Deque<String> pending = new ArrayDeque<>(changed);
+		while (!pending.isEmpty()) {
+			List<String> referrers = referencedBy.get(pending.pop());
+			if (referrers == null) {
+				continue;
+			}
+			for (String referrer : referrers) {
+				if (dependents.add(referrer)) {
+					pending.push(referrer);
+				}
+			}
+		}
+		return dependents;
+	}
+
+	private void read() throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(this.cacheFile)))) {
+			if (!FORMAT.equals(readString(in)) || !this.key.equals(readString(in))) {
+				// Written by another version or for other analyzers
+				return;
+			}
+
+			int classCount = in.readInt();
+			for (int i = 0; i < classCount; i++) {
+				String className = readString(in);
+				String digest = readString(in);
+				String[] referencedClasses = new String[in.readInt()];
+				for (int r = 0; r < referencedClasses.length; r++) {
+					referencedClasses[r] = readString(in);
+				}
+				this.previousClasses.put(className, new ClassRecord(digest, referencedClasses));
+			}
+
+			int returnCount = in.readInt();
+			for (int i = 0; i < returnCount; i++) {
+				int analyzerFlag = in.readInt();
+				String analyzerName = readString(in);
+				int messageCount = in.readInt();
+				List<LinterMessage> messages = new ArrayList<>(messageCount);
+				for (int m = 0; m < messageCount; m++) {
+					String type = readString(in);
+					messages.add(createMessage(type, readString(in), readString(in), readString(in)));
+				}
+				this.previousReturns.put(analyzerFlag, new AnalyzerRecord(analyzerName, messages));
+			}
+		}
+	}
+
+	private void write(DataOutputStream out) throws IOException {
+		writeString(out, FORMAT);
+		writeString(out, this.key);
+
+		out.writeInt(this.currentClasses.size());
+		for (Map.Entry<String, ClassRecord> entry : this.currentClasses.entrySet()) {
+			writeString(out, entry.getKey());
+			writeString(out, entry.getValue().digest);
+			out.writeInt(entry.getValue().referencedClasses.length);
+			for (String referenced : entry.getValue().referencedClasses) {
+				writeString(out, referenced);
+			}
+		}
+
+		out.writeInt(this.currentReturns.size());
+		for (Map.Entry<Integer, AnalyzerRecord> entry : this.currentReturns.entrySet()) {
+			out.writeInt(entry.getKey());
+			writeString(out, entry.getValue().analyzerName);
+			out.writeInt(entry.getValue().messages.size());
+			for (LinterMessage message : entry.getValue().messages) {
+				writeString(out, message.getMessageType());
+				writeString(out, message.className);
+				writeString(out, message.methodName);
+				writeString(out, message.message);
+			}
+		}
+	}
+
+	private static LinterMessage createMessage(String type, String className, String methodName, String message)
+			throws IOException {
+		switch (type) {
+			case "ERROR":
+				return new ErrorLinterMessage(className, methodName, message);
+			case "WARNING":
+				return new WarningLinterMessage(className, methodName, message);
+			case "INFO":
+				return new InfoLinterMessage(className, methodName, message);
+			case "PATTERN":
+				return new PatternLinterMessage(className, methodName, message);
+			default:
+				throw new IOException("Unknown message type " + type);
+		}
+	}
+
+	// Strings are length prefixed UTF-8, since findings can exceed the 64KB
+	// limit of writeUTF, with -1 standing for null
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static class ClassRecord {
+		private final String digest;
+		private final String[] referencedClasses;
+
+		ClassRecord(String digest, String[] referencedClasses) {
+			this.digest = digest;
+			this.referencedClasses = referencedClasses;
+		}
+	}
+
+	private static class AnalyzerRecord {
+		private final String analyzerName;
+		private final List<LinterMessage> messages;
+
+		AnalyzerRecord(String analyzerName, List<LinterMessage> messages) {
+			this.analyzerName = analyzerName;
+			this.messages = messages;
+		}
+	}
+}
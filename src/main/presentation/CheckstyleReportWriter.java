@@ -0,0 +1,109 @@
+package presentation;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import datasource.ASMParser;
+import domain.AnalyzerReturn;
+import domain.message.LinterMessage;
+
+/**
+ * Writes the report in the XML format of Checkstyle, which most build servers
+ * and editors can show. Findings are listed under the source file of their
+ * class, and the analyzer that found them is their source.
+ *
+ * Class files have no line numbers for most findings, so every finding is on
+ * line 0. A file is opened again whenever the next finding is for another
+ * file, so the report is written as the findings come in.
+ */
+class CheckstyleReportWriter extends ReportWriter {
+	// The version of the format, which readers check rather than Checkstyle's
+	private static final String FORMAT_VERSION = "8.0";
+	// Findings not about a single class
+	private static final String NO_FILE = "";
+
+	private String openFile;
+
+	CheckstyleReportWriter(OutputStream out) {
+		super(out, StandardCharsets.UTF_8);
+		this.stream.print("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		this.stream.print("<checkstyle version=\"" + FORMAT_VERSION + "\">\n");
+	}
+
+	@Override
+	protected void writeFindings(AnalyzerReturn returnType) {
+		for (LinterMessage error : returnType.errorsCaught) {
+			String file = error.className == null ? NO_FILE : sourceFile(error.className);
+			if (!file.equals(this.openFile)) {
+				this.closeFile();
+				this.stream.print("  <file name=\"" + escape(file) + "\">\n");
+				this.openFile = file;
+			}
+			String message = error.methodName == null ? error.message : error.methodName + ": " + error.message;
+			this.stream.print("    <error line=\"0\" severity=\"" + severity(error.getMessageType())
+					+ "\" message=\"" + escape(message) + "\" source=\"" + escape(returnType.analyzerName)
+					+ "\"/>\n");
+		}
+	}
+
+	private void closeFile() {
+		if (this.openFile != null) {
+			this.stream.print("  </file>\n");
+			this.openFile = null;
+		}
+	}
+
+	private static String severity(String messageType) {
+		switch (messageType) {
+			case "ERROR":
+				return "error";
+			case "WARNING":
+				return "warning";
+			default:
+				return "info";
+		}
+	}
+
+	/**
+	 * @return <code>value</code> escaped for an attribute, with characters XML
+	 *         cannot hold replaced
+	 */
+	private static String escape(String value) {
+		if (value == null) {
+			return "";
+		}
+		StringBuilder escaped = new StringBuilder(value.length());
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+				case '<':
+					escaped.append("&lt;");
+					break;
+				case '>':
+					escaped.append("&gt;");
+					break;
+				case '&':
+					escaped.append("&amp;");
+					break;
+				case '"':
+					escaped.append("&quot;");
+					break;
+				case '\n':
+					escaped.append("&#10;");
+					break;
+				case '\t':
+					escaped.append("&#9;");
+					break;
+				default:
+					escaped.append(c < 0x20 ? '?' : c);
+			}
+		}
+		return escaped.toString();
+	}
+
+	@Override
+	protected void writeEnd(ASMParser parser, AnalysisCache analysisCache) {
+		this.closeFile();
+		this.stream.print("</checkstyle>\n");
+	}
+}
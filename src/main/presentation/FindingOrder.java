@@ -0,0 +1,50 @@
+package presentation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import domain.AnalyzerReturn;
+import domain.message.LinterMessage;
+
+/**
+ * Orders the findings of LOCAL and DEPENDENT analyzers by class, in the order
+ * of the class list, so a run gives the same output whether its findings were
+ * all computed or partly taken from the analysis cache. Findings of the same
+ * class keep the order they were reported in, and findings not about a listed
+ * class come last.
+ */
+class FindingOrder {
+	private final Map<String, Integer> classOrder = new HashMap<>();
+
+	FindingOrder(String[] classList) {
+		for (String className : classList) {
+			this.classOrder.put(className, this.classOrder.size());
+		}
+	}
+
+	/**
+	 * @return The findings of <code>analyzerReturn</code> in class order
+	 */
+	AnalyzerReturn sort(AnalyzerReturn analyzerReturn) {
+		List<LinterMessage> messages = new ArrayList<>(analyzerReturn.errorsCaught);
+		this.sort(messages);
+		return new AnalyzerReturn(analyzerReturn.analyzerName, messages);
+	}
+
+	void sort(List<LinterMessage> messages) {
+		// Stable, so each class keeps the order its findings were reported in
+		messages.sort((first, second) -> Integer.compare(this.orderOf(first), this.orderOf(second)));
+	}
+
+	// Some analyzers report class names with dots instead of slashes
+	static String ownerOf(LinterMessage message) {
+		return message.className == null ? null : message.className.replace('.', '/');
+	}
+
+	private int orderOf(LinterMessage message) {
+		Integer order = this.classOrder.get(ownerOf(message));
+		return order == null ? Integer.MAX_VALUE : order;
+	}
+}
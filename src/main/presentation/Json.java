@@ -0,0 +1,37 @@
+package presentation;
+
+/**
+ * Helpers for writing JSON by hand, so reports and profiles can be written as
+ * they are produced instead of being built up as a document first.
+ */
+final class Json {
+
+	private Json() {
+	}
+
+	/**
+	 * @return <code>value</code> as a JSON string literal, or null as the JSON
+	 *         null literal
+	 */
+	static String quote(String value) {
+		if (value == null) {
+			return "null";
+		}
+		StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				quoted.append('\\').append(c);
+			} else if (c == '\n') {
+				quoted.append("\\n");
+			} else if (c == '\t') {
+				quoted.append("\\t");
+			} else if (c < 0x20) {
+				quoted.append(String.format("\\u%04x", (int) c));
+			} else {
+				quoted.append(c);
+			}
+		}
+		return quoted.append('"').toString();
+	}
+}
@@ -0,0 +1,52 @@
+package presentation;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import datasource.ASMParser;
+import domain.AnalyzerReturn;
+import domain.message.LinterMessage;
+
+/**
+ * Writes the report as one JSON object, with every finding of every analyzer
+ * and the totals the text summary reports. Each analyzer is written out as
+ * soon as it finishes, so the whole document is never held in memory.
+ */
+class JsonReportWriter extends ReportWriter {
+	private String analyzerSeparator = "\n";
+
+	JsonReportWriter(OutputStream out) {
+		super(out, StandardCharsets.UTF_8);
+		this.stream.print("{\n  \"version\": " + Json.quote(PresentationLayer.VERSION) + ",\n  \"analyzers\": [");
+	}
+
+	@Override
+	protected void writeFindings(AnalyzerReturn returnType) {
+		this.stream.print(this.analyzerSeparator);
+		this.analyzerSeparator = ",\n";
+		this.stream.print("    {\n      \"name\": " + Json.quote(returnType.analyzerName) + ",\n      \"findings\": [");
+		String separator = "\n";
+		for (LinterMessage error : returnType.errorsCaught) {
+			this.stream.print(separator);
+			this.stream.print("        {\"type\": " + Json.quote(error.getMessageType()));
+			this.stream.print(", \"className\": " + Json.quote(error.className));
+			this.stream.print(", \"methodName\": " + Json.quote(error.methodName));
+			this.stream.print(", \"message\": " + Json.quote(error.message) + "}");
+			separator = ",\n";
+		}
+		this.stream.print("\n      ],\n");
+		this.stream.print("      \"errors\": " + returnType.getErrorCount());
+		this.stream.print(", \"warnings\": " + returnType.getWarningCount());
+		this.stream.print(", \"patterns\": " + returnType.getPatternCount());
+		this.stream.print(", \"total\": " + returnType.getTotalCount() + "\n    }");
+	}
+
+	@Override
+	protected void writeEnd(ASMParser parser, AnalysisCache analysisCache) {
+		this.stream.print("\n  ],\n  \"summary\": {");
+		this.stream.print("\"errors\": " + this.getErrorCount());
+		this.stream.print(", \"warnings\": " + this.getWarningCount());
+		this.stream.print(", \"patterns\": " + this.getPatternCount());
+		this.stream.print(", \"total\": " + this.getTotalCount() + "}\n}\n");
+	}
+}
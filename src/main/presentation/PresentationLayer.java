@@ -2,15 +2,39 @@ package presentation;
 
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.io.InputStream;
 import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import datasource.ASMParser;
+import datasource.ArchiveClassSource;
+import datasource.ClassFact;
+import datasource.ClassFileModel;
+import datasource.ClassFileWalker;
+import datasource.ExternalClasspath;
+import datasource.ParseFailure;
 import domain.*;
 import domain.analyzer.CodeToInterfaceAnalyzer;
 import domain.analyzer.DryAnalyzer;
+import domain.analyzer.DuplicateCodeAnalyzer;
 import domain.analyzer.EqualsAndHashcodeAnalyzer;
 import domain.analyzer.ExceptionThrownAnalyzer;
 import domain.analyzer.GenericTypeNameAnalyzer;
@@ -33,6 +57,7 @@ public class PresentationLayer {
 	public static final int ULTRA_VERBOSE_FLAG = 0x01 << 3; // Shows All analyzer output
 
 	// Use the upper bits for analyzer toggles;
+	public static final int DRY_CLONE_ANALYZER_FLAG = 0x01 << 19; // Enables the DRY Analyzer's structural clone mode
 	public static final int GENERIC_NAME_ANALYZER_FLAG = 0x01 << 20; // Enables the Generic Type Name Analyzer
 	public static final int VAR_NAME_ANALYZER_FLAG = 0x01 << 21; // Enables the Variable Name Analyzer
 	public static final int EXCEPTION_THROWN_ANALYZER_FLAG = 0x01 << 22; // Enables the Exception Thrown Analyzer
@@ -47,143 +72,610 @@ public class PresentationLayer {
 	public static final int STRATEGY_ANALYZER_FLAG = 0x01 << 30; // Enables the Strategy Pattern Detector
 	public static final int TEMPLATE_METHOD_ANALYZER_FLAG = 0x01 << 31; // Enables the Template Method Pattern Detector
 
-	// Mask to enable all analyzers
-	public static final int ALL_ANALYZERS = 0xFFFF << 20;
+	// Mask to enable all analyzers. The DRY Analyzer's structural clone mode is
+	// left out, as it only runs when asked for with -aDC
+	public static final int ALL_ANALYZERS = 0xFFF << 20;
+	// Mask of every analyzer toggle, including those left out of ALL_ANALYZERS
+	public static final int ANALYZER_FLAGS = ALL_ANALYZERS | DRY_CLONE_ANALYZER_FLAG;
+
+	// The version of the build, read from the properties Maven fills in
+	public static final String VERSION = readVersion();
+
+	// Analyzers in the order they run and report in
+	private static final List<AnalyzerEntry> ANALYZER_REGISTRY = Arrays.asList(
+			// Style Checks
+			new AnalyzerEntry(GENERIC_NAME_ANALYZER_FLAG, GenericTypeNameAnalyzer.REQUIRED_FACTS,
+					GenericTypeNameAnalyzer.SCOPE, GenericTypeNameAnalyzer::new),
+			new AnalyzerEntry(VAR_NAME_ANALYZER_FLAG, VarNameAnalyzer.REQUIRED_FACTS, VarNameAnalyzer.SCOPE,
+					VarNameAnalyzer::new),
+			new AnalyzerEntry(EXCEPTION_THROWN_ANALYZER_FLAG, ExceptionThrownAnalyzer.REQUIRED_FACTS,
+					ExceptionThrownAnalyzer.SCOPE, ExceptionThrownAnalyzer::new),
+			new AnalyzerEntry(EQUALS_HASHCODE_ANALYZER_FLAG, EqualsAndHashcodeAnalyzer.REQUIRED_FACTS,
+					EqualsAndHashcodeAnalyzer.SCOPE, EqualsAndHashcodeAnalyzer::new),
+
+			// Principle Violations
+			new AnalyzerEntry(HIGH_COUPLING_ANALYZER_FLAG, HighCouplingAnalyzer.REQUIRED_FACTS,
+					HighCouplingAnalyzer.SCOPE, HighCouplingAnalyzer::new),
+			new AnalyzerEntry(PRINCIPLE_OF_LEAST_KNOWLEDGE_ANALYZER_FLAG,
+					PrincipleOfLeastKnowledgeAnalyzer.REQUIRED_FACTS, PrincipleOfLeastKnowledgeAnalyzer.SCOPE,
+					PrincipleOfLeastKnowledgeAnalyzer::new),
+			new AnalyzerEntry(DRY_ANALYZER_FLAG, DryAnalyzer.REQUIRED_FACTS, DryAnalyzer.SCOPE, DryAnalyzer::new),
+			new AnalyzerEntry(DRY_CLONE_ANALYZER_FLAG, DuplicateCodeAnalyzer.REQUIRED_FACTS,
+					DuplicateCodeAnalyzer.SCOPE, DuplicateCodeAnalyzer::new),
+			new AnalyzerEntry(CODE_TO_INTERFACE_ANALYZER_FLAG, CodeToInterfaceAnalyzer.REQUIRED_FACTS,
+					CodeToInterfaceAnalyzer.SCOPE, CodeToInterfaceAnalyzer::new),
+
+			// Pattern Detection
+			new AnalyzerEntry(SINGLETON_ANALYZER_FLAG, SingletonAnalyzer.REQUIRED_FACTS, SingletonAnalyzer.SCOPE,
+					SingletonAnalyzer::new),
+			new AnalyzerEntry(OBJECT_ADAPTER_ANALYZER_FLAG, ObjectAdapterIdentifierAnalyzer.REQUIRED_FACTS,
+					ObjectAdapterIdentifierAnalyzer.SCOPE, ObjectAdapterIdentifierAnalyzer::new),
+			new AnalyzerEntry(STRATEGY_ANALYZER_FLAG, StrategyAnalyzer.REQUIRED_FACTS, StrategyAnalyzer.SCOPE,
+					StrategyAnalyzer::new),
+			new AnalyzerEntry(TEMPLATE_METHOD_ANALYZER_FLAG, TemplateMethodAnalyzer.REQUIRED_FACTS,
+					TemplateMethodAnalyzer.SCOPE, TemplateMethodAnalyzer::new));
+
+	// Class files found by the directory walker that are waiting to be parsed.
+	// Bounded so a fast walk over a huge tree cannot run ahead of the parser
+	private static final int CLASS_FILE_QUEUE_CAPACITY = 1024;
+
+	// Profile sections for the parts of a run that are not analyzers
+	private static final String PARSER_SECTION = "ASMParser";
+	private static final String CACHE_SECTION = "AnalysisCache";
+	private static final String REPORT_SECTION = "ReportWriter";
 
 	private List<DomainAnalyzer> analyzers;
+	private List<AnalyzerEntry> analyzerEntries;
 	private List<AnalyzerReturn> linterReturns;
 	private String[] classList;
 	private int flags;
+	private ASMParser parser;
+	private int parserThreads;
+	private boolean streamingParse;
+	private String[] entryPrefixes;
+	private ExecutorService analyzerExecutor;
+	private Path cacheDirectory;
+	private FindingOrder findingOrder;
+	private AnalysisCache analysisCache;
+	private ClassFileModel classModel;
+	private ExternalClasspath externalClasspath;
+	private PrintStream errorStream;
+	private Profile profile;
+	private ReportFormat reportFormat;
+
+	private static String readVersion() {
+		Properties properties = new Properties();
+		try (InputStream stream = PresentationLayer.class.getResourceAsStream("/designlint.properties")) {
+			if (stream != null) {
+				properties.load(stream);
+			}
+		} catch (IOException e) {
+			// Reported as an unknown version below
+		}
+		String version = properties.getProperty("version");
+		// Unfiltered when the classes were not built by Maven
+		return version == null || version.startsWith("${") ? "unknown" : version;
+	}
 
 	public PresentationLayer(int flags) {
 
 		this.flags = flags;
 		this.analyzers = new ArrayList<>();
+		this.analyzerEntries = new ArrayList<>();
 		this.linterReturns = new ArrayList<>();
 		this.classList = new String[1];
+		this.parserThreads = 1;
+		this.errorStream = System.err;
+		this.reportFormat = ReportFormat.TEXT;
+	}
+
+	/**
+	 * Parses class files through a model kept from earlier runs, so only class
+	 * files that changed since then are parsed again. The model always keeps
+	 * full class trees, so streaming parse is not used with it, and archives are
+	 * still parsed from scratch.
+	 * 
+	 * @param classModel The model to use, or null to parse every class file
+	 */
+	public void setClassModel(ClassFileModel classModel) {
+		this.classModel = classModel;
+	}
+
+	/**
+	 * Sets where skipped files and other problems that do not stop the run are
+	 * reported. Defaults to System.err.
+	 */
+	public void setErrorStream(PrintStream errorStream) {
+		this.errorStream = errorStream;
 	}
 
+	/**
+	 * Sets the format reports are written in. Defaults to text.
+	 */
+	public void setReportFormat(ReportFormat reportFormat) {
+		this.reportFormat = reportFormat;
+	}
+
+	/**
+	 * Sets how many worker threads are used to parse class files. With more than
+	 * one thread, unreadable class files are reported and skipped instead of
+	 * stopping the run.
+	 * 
+	 * @param parserThreads The number of parsing threads, 1 parses sequentially
+	 */
+	public void setParserThreads(int parserThreads) {
+		this.parserThreads = parserThreads;
+	}
+
+	/**
+	 * Sets whether class files are parsed in streaming mode. In streaming mode the
+	 * parser only keeps the method body information the enabled analyzers
+	 * declare in their REQUIRED_FACTS, which keeps memory use low on large code
+	 * bases. Unreadable class files are reported and skipped.
+	 * 
+	 * @param streamingParse true to parse in streaming mode
+	 */
+	public void setStreamingParse(boolean streamingParse) {
+		this.streamingParse = streamingParse;
+	}
+
+	/**
+	 * Restricts which classes are read from JAR, WAR, EAR and ZIP archives.
+	 * Class files given directly are always read.
+	 * 
+	 * @param entryPrefixes Internal name prefixes such as <code>com/example/</code>,
+	 *                      or null to read every class in an archive
+	 */
+	public void setEntryPrefixes(String[] entryPrefixes) {
+		this.entryPrefixes = entryPrefixes;
+	}
+
+	/**
+	 * @return true if <code>path</code> is an archive that setupAnalyzers can
+	 *         read classes from
+	 */
+	public static boolean isClassArchive(String path) {
+		return ArchiveClassSource.isArchive(path);
+	}
+
+	/**
+	 * Keeps the findings of each run in <code>cacheDirectory</code> and reuses
+	 * them on the next run for classes whose class files did not change. Must be
+	 * called before runAnalyzers.
+	 * 
+	 * @param cacheDirectory The directory to keep the cache in, or null to
+	 *                       analyze every class from scratch
+	 */
+	public void setCacheDirectory(Path cacheDirectory) {
+		this.cacheDirectory = cacheDirectory;
+	}
+
+	/**
+	 * Sets where library and JDK classes that analyzers look up are read from.
+	 * Must be called before setupAnalyzers. The caller keeps ownership of the
+	 * classpath and closes it after the output is written.
+	 * 
+	 * @param externalClasspath The classpath the linted code was built against,
+	 *                          or null to use the classpath DesignLint runs with
+	 */
+	public void setExternalClasspath(ExternalClasspath externalClasspath) {
+		this.externalClasspath = externalClasspath;
+	}
+
+	/**
+	 * Sets the executor used to run analyzers concurrently. Each analyzer runs as
+	 * its own task, but results are still collected in the order the analyzers
+	 * were enabled, so output does not depend on scheduling. The caller keeps
+	 * ownership of the executor and is responsible for shutting it down.
+	 * 
+	 * @param analyzerExecutor The executor to use, or null to run analyzers one
+	 *                         after another on the calling thread
+	 */
+	public void setAnalyzerExecutor(ExecutorService analyzerExecutor) {
+		this.analyzerExecutor = analyzerExecutor;
+	}
+
+	/**
+	 * Measures every phase of the run in <code>profile</code>. Must be called
+	 * before setupAnalyzers. With the per-class breakdown, analyzers whose
+	 * findings only depend on the class itself are run once per class and list
+	 * their findings class by class.
+	 * 
+	 * @param profile The profile to record into, or null to not measure the run
+	 */
+	public void setProfile(Profile profile) {
+		this.profile = profile;
+	}
+
+	/**
+	 * Parses the given class files and archives.
+	 * 
+	 * @throws UncheckedIOException If one of them cannot be read
+	 */
 	public void setupAnalyzers(String[] fileList) {
+		this.measure(PARSER_SECTION, "parse", () -> this.parseFiles(fileList));
+	}
+
+	private void parseFiles(String[] fileList) {
+		if (this.classModel != null && !containsArchive(fileList)) {
+			List<Path> classFiles = new ArrayList<>();
+			for (String path : fileList) {
+				classFiles.add(Paths.get(path));
+			}
+			this.useParser(this.classModel.refresh(null, classFiles), null);
+			return;
+		}
 
 		List<InputStream> fileStreams = new ArrayList<>();
+		List<String> streamNames = new ArrayList<>();
+		List<ArchiveClassSource> archives = new ArrayList<>();
 		ASMParser parser = null;
 		try {
 			for (String path : fileList) {
-				fileStreams.add(new FileInputStream(path));
+				if (isClassArchive(path)) {
+					ArchiveClassSource archive = new ArchiveClassSource(path, this.entryPrefixes);
+					archives.add(archive);
+					fileStreams.addAll(Arrays.asList(archive.getStreams()));
+					streamNames.addAll(Arrays.asList(archive.getEntryNames()));
+				} else {
+					fileStreams.add(new FileInputStream(path));
+					streamNames.add(path);
+				}
 			}
 
 			InputStream[] streamList = new InputStream[fileStreams.size()];
 			fileStreams.toArray(streamList);
 
-			parser = new ASMParser(streamList);
-			this.classList = parser.getParsedClassNames();
-
-			// Add Analyzers to the list
-			// Style Checks
-			this.initAnalyzers(parser, flags);
+			if (this.streamingParse) {
+				parser = new ASMParser(streamList, this.parserThreads, requiredFacts(this.flags));
+			} else if (this.parserThreads > 1) {
+				parser = new ASMParser(streamList, this.parserThreads);
+			} else {
+				parser = new ASMParser(streamList);
+			}
+			this.useParser(parser, streamNames);
 
 		} catch (IOException e) {
-			e.printStackTrace();
-			System.err.println("Error reading from class files specified in arguments!");
-			System.exit(1);
+			throw new UncheckedIOException("Error reading from class files specified in arguments!", e);
+		} finally {
+			for (InputStream stream : fileStreams) {
+				try {
+					stream.close();
+				} catch (IOException e) {
+					// Already parsed, nothing left to lose
+				}
+			}
+			for (ArchiveClassSource archive : archives) {
+				try {
+					archive.close();
+				} catch (IOException e) {
+					// Already parsed, nothing left to lose
+				}
+			}
 		}
 	}
 
-	public void runAnalyzers() {
-		for (DomainAnalyzer domainAnalyzer : analyzers) {
-			domainAnalyzer.getRelevantData(this.classList);
-			domainAnalyzer.analyzeData();
-			this.linterReturns.add(domainAnalyzer.composeReturnType());
+	/**
+	 * Parses every class file below a directory. Class files are parsed while the
+	 * directory tree is still being walked, and symbolic links are followed.
+	 * Directories and class files that cannot be read are skipped.
+	 * 
+	 * @param classDirectory The root of the tree of class files to analyze
+	 */
+	public void setupAnalyzers(Path classDirectory) {
+		this.measure(PARSER_SECTION, "parse", () -> this.parseDirectory(classDirectory));
+	}
+
+	private void parseDirectory(Path classDirectory) {
+		if (this.classModel != null) {
+			this.setupModelAnalyzers(classDirectory);
+			return;
+		}
+
+		BlockingQueue<Path> classFiles = new ArrayBlockingQueue<>(CLASS_FILE_QUEUE_CAPACITY);
+		ClassFileWalker walker = new ClassFileWalker(true, this.parserThreads);
+		Thread walkThread = new Thread(() -> {
+			try {
+				walker.walk(classDirectory, classFiles);
+			} catch (InterruptedException e) {
+				// The parser gave up, nobody is waiting for the rest
+			}
+		}, "DesignLint class file walker");
+		walkThread.setDaemon(true);
+		walkThread.start();
+
+		try {
+			Set<ClassFact> retainedFacts = this.streamingParse ? requiredFacts(this.flags) : null;
+			ASMParser parser = new ASMParser(classFiles, this.parserThreads, retainedFacts);
+			walkThread.join();
+			this.reportWalkFailures(walker);
+			this.useParser(parser, null);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while reading class files!", e);
+		} finally {
+			stopWalk(walker, walkThread);
 		}
 	}
 
-	public void vomitOutput(PrintStream stream) {
-		int returnNum = 0;
-		int errNum = 0;
-		int warnNum = 0;
-		int patternNum = 0;
+	/**
+	 * Stops a walk the parser gave up on, which would otherwise block on the
+	 * full queue for good. Does nothing once the walk has ended.
+	 */
+	private static void stopWalk(ClassFileWalker walker, Thread walkThread) {
+		if (!walkThread.isAlive()) {
+			return;
+		}
+		walker.cancel();
+		walkThread.interrupt();
+		try {
+			walkThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
 
-		for (AnalyzerReturn returnType : linterReturns) {
-			returnNum += returnType.getInfoCount() + returnType.getUnknownCount();
-			errNum += returnType.getErrorCount();
-			warnNum += returnType.getWarningCount();
-			patternNum += returnType.getPatternCount();
-
-			if ((flags & VERBOSE_FLAG) == VERBOSE_FLAG) {
-				stream.format("Linter Name - %s\n", returnType.analyzerName);
-				stream.println("======================================================================");
-				stream.println("Errors Found : " + returnType.getErrorCount());
-				stream.println("Warnings Found: " + returnType.getWarningCount());
-				stream.println("Total Patterns Found : " + returnType.getPatternCount());
-				stream.println("Total Linter Findings : " + returnType.getTotalCount());
-				stream.println();
-			}
-
-			for (LinterMessage error : returnType.errorsCaught) {
-				if (((flags & SUPER_VERBOSE_FLAG) == SUPER_VERBOSE_FLAG
-						&& error.getMessageType().equals("ERROR"))
-						|| (flags & ULTRA_VERBOSE_FLAG) == ULTRA_VERBOSE_FLAG) {
-					stream.format("Type - %s\n", error.getMessageType());
-					stream.format("Class Name - %s\n", error.className);
-					stream.format("Method Name - %s\n", error.methodName);
-					stream.format("Message - %s\n", error.message);
-					stream.println();
-				}
+	/**
+	 * Walks the directory first and then refreshes the class model, since the
+	 * model has to know every class file before it can build a parser.
+	 */
+	private void setupModelAnalyzers(Path classDirectory) {
+		BlockingQueue<Path> walkQueue = new LinkedBlockingQueue<>();
+		ClassFileWalker walker = new ClassFileWalker(true, this.parserThreads);
+		List<Path> classFiles = new ArrayList<>();
+		try {
+			walker.walk(classDirectory, walkQueue);
+			Path classFile;
+			while ((classFile = walkQueue.take()) != ClassFileWalker.END_OF_WALK) {
+				classFiles.add(classFile);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while reading class files!", e);
+		}
+		// Matches the order the queue constructor stores classes in
+		Collections.sort(classFiles);
+
+		this.reportWalkFailures(walker);
+		this.useParser(this.classModel.refresh(classDirectory, classFiles), null);
+	}
+
+	private void useParser(ASMParser parser, List<String> streamNames) {
+		this.reportParseFailures(parser, streamNames);
+		this.classList = parser.getParsedClassNames();
+		if (this.externalClasspath != null) {
+			parser.setExternalClasspath(this.externalClasspath);
+		}
+		this.parser = parser;
 
+		this.initAnalyzers(parser, flags);
+	}
+
+	private static boolean containsArchive(String[] fileList) {
+		for (String path : fileList) {
+			if (isClassArchive(path)) {
+				return true;
 			}
+		}
+		return false;
+	}
 
+	private void reportWalkFailures(ClassFileWalker walker) {
+		for (String walkFailure : walker.getWalkFailures()) {
+			this.errorStream.println("Skipping unreadable directory " + walkFailure);
 		}
+	}
 
-		returnNum = errNum + warnNum + patternNum;
+	private void reportParseFailures(ASMParser parser, List<String> streamNames) {
+		for (ParseFailure failure : parser.getParseFailures()) {
+			String source = failure.getSource() != null ? failure.getSource()
+					: streamNames.get(failure.getStreamIndex());
+			this.errorStream.println("Skipping unreadable class file " + source + ": " + failure.getCause());
+		}
+	}
 
-		stream.println("Summary:");
-		stream.println("======================================================================");
-		stream.println("Errors Found : " + errNum);
-		stream.println("Warnings Found: " + warnNum);
-		stream.println("Total Patterns Found : " + patternNum);
-		stream.println("Total Linter Findings : " + returnNum);
+	/**
+	 * Runs every analyzer and keeps their findings for vomitOutput.
+	 */
+	public void runAnalyzers() {
+		this.runAnalyzers(this.linterReturns::add);
 	}
 
-	private void initAnalyzers(ASMParser parser, int flags) {
-		if ((flags & GENERIC_NAME_ANALYZER_FLAG) == GENERIC_NAME_ANALYZER_FLAG) {
-			analyzers.add(new GenericTypeNameAnalyzer(parser));
+	/**
+	 * Runs every analyzer and writes each analyzer's findings to
+	 * <code>stream</code> as soon as it and the analyzers before it have
+	 * finished, followed by the summary. Findings are not kept once written, so
+	 * vomitOutput has nothing to print afterwards.
+	 * 
+	 * @param stream Where to write the report
+	 */
+	public void runAnalyzers(PrintStream stream) {
+		ReportWriter report = ReportWriter.create(this.reportFormat, stream, this.flags);
+		this.runAnalyzers(report::writeSection);
+		this.measure(REPORT_SECTION, "writeSummary", () -> report.writeSummary(this.parser, this.analysisCache));
+	}
+
+	private void runAnalyzers(Consumer<AnalyzerReturn> returnSink) {
+		this.findingOrder = new FindingOrder(this.classList);
+		if (this.cacheDirectory != null) {
+			// Created here, once the classpath is known
+			this.analysisCache = new AnalysisCache(this.cacheDirectory, this.flags & ANALYZER_FLAGS,
+					this.externalClasspath == null ? null : this.externalClasspath.getDigest());
+			this.measure(CACHE_SECTION, "load",
+					() -> this.analysisCache.load(this.parser, this.classList, this.findingOrder, this.errorStream));
 		}
-		if ((flags & VAR_NAME_ANALYZER_FLAG) == VAR_NAME_ANALYZER_FLAG) {
-			analyzers.add(new VarNameAnalyzer(parser));
+
+		String[] sections = new String[this.analyzers.size()];
+		for (int i = 0; i < sections.length; i++) {
+			sections[i] = this.analyzers.get(i).getClass().getSimpleName();
+			if (this.profile != null) {
+				this.profile.addSection(sections[i]);
+			}
 		}
-		if ((flags & EXCEPTION_THROWN_ANALYZER_FLAG) == EXCEPTION_THROWN_ANALYZER_FLAG) {
-			analyzers.add(new ExceptionThrownAnalyzer(parser));
+
+		if (this.analyzerExecutor == null) {
+			for (int i = 0; i < this.analyzers.size(); i++) {
+				AnalyzerReturn analyzerReturn = this.runAnalyzer(i);
+				this.measure(sections[i], "output", () -> returnSink.accept(analyzerReturn));
+				// Lets the analyzer and the findings it holds be collected
+				this.analyzers.set(i, null);
+			}
+		} else {
+			List<Future<AnalyzerReturn>> pendingReturns = new ArrayList<>();
+			for (int i = 0; i < this.analyzers.size(); i++) {
+				pendingReturns.add(this.analyzerExecutor.submit(analyzerTask(i)));
+			}
+
+			// Futures are drained in submission order to keep output deterministic
+			for (int i = 0; i < pendingReturns.size(); i++) {
+				AnalyzerReturn analyzerReturn = awaitReturn(pendingReturns.get(i));
+				this.measure(sections[i], "output", () -> returnSink.accept(analyzerReturn));
+				pendingReturns.set(i, null);
+				this.analyzers.set(i, null);
+			}
 		}
-		if ((flags & EQUALS_HASHCODE_ANALYZER_FLAG) == EQUALS_HASHCODE_ANALYZER_FLAG) {
-			analyzers.add(new EqualsAndHashcodeAnalyzer(parser));
+
+		if (this.analysisCache != null) {
+			this.measure(CACHE_SECTION, "save", () -> {
+				try {
+					this.analysisCache.save();
+				} catch (IOException e) {
+					this.errorStream.println("Could not save the analysis cache: " + e);
+				}
+			});
 		}
+	}
 
-		// Principle Violations
-		if ((flags & HIGH_COUPLING_ANALYZER_FLAG) == HIGH_COUPLING_ANALYZER_FLAG) {
-			analyzers.add(new HighCouplingAnalyzer(parser));
+	private void measure(String section, String phase, Runnable work) {
+		if (this.profile == null) {
+			work.run();
+		} else {
+			this.profile.measure(section, phase, null, work);
 		}
-		if ((flags & PRINCIPLE_OF_LEAST_KNOWLEDGE_ANALYZER_FLAG) == PRINCIPLE_OF_LEAST_KNOWLEDGE_ANALYZER_FLAG) {
-			analyzers.add(new PrincipleOfLeastKnowledgeAnalyzer(parser));
+	}
+
+	private Callable<AnalyzerReturn> analyzerTask(int analyzerIndex) {
+		return () -> this.runAnalyzer(analyzerIndex);
+	}
+
+	/**
+	 * Runs one analyzer, only on the classes whose cached findings are out of
+	 * date when the analysis cache is enabled. Findings of analyzers that are
+	 * not GLOBAL are put in class order either way.
+	 */
+	private AnalyzerReturn runAnalyzer(int analyzerIndex) {
+		AnalyzerEntry entry = this.analyzerEntries.get(analyzerIndex);
+		if (this.analysisCache == null) {
+			AnalyzerReturn analyzerReturn = this.getFeedback(analyzerIndex, this.classList);
+			return entry.scope == AnalysisScope.GLOBAL ? analyzerReturn : this.findingOrder.sort(analyzerReturn);
+		}
+
+		String[] classes = this.analysisCache.classesToAnalyze(entry.flag, entry.scope, this.classList);
+		AnalyzerReturn freshReturn = null;
+		if (classes.length > 0 || !this.analysisCache.hasCachedReturn(entry.flag)) {
+			freshReturn = this.getFeedback(analyzerIndex, classes);
 		}
-		if ((flags & DRY_ANALYZER_FLAG) == DRY_ANALYZER_FLAG) {
-			analyzers.add(new DryAnalyzer(parser));
+		return this.analysisCache.merge(entry.flag, entry.scope, classes, freshReturn);
+	}
+
+	/**
+	 * Runs the phases of one analyzer on <code>classes</code>, measuring each
+	 * phase when the run is profiled.
+	 */
+	private AnalyzerReturn getFeedback(int analyzerIndex, String[] classes) {
+		DomainAnalyzer domainAnalyzer = this.analyzers.get(analyzerIndex);
+		if (this.profile == null) {
+			return domainAnalyzer.getFeedback(classes);
+		}
+
+		String section = domainAnalyzer.getClass().getSimpleName();
+		AnalyzerEntry entry = this.analyzerEntries.get(analyzerIndex);
+		if (!this.profile.isPerClass() || entry.scope != AnalysisScope.LOCAL || classes.length == 0) {
+			return this.profilePhases(domainAnalyzer, section, classes, null);
 		}
-		if ((flags & CODE_TO_INTERFACE_ANALYZER_FLAG) == CODE_TO_INTERFACE_ANALYZER_FLAG) {
-			analyzers.add(new CodeToInterfaceAnalyzer(parser));
+
+		// Findings of a local analyzer are the same when it sees one class at a
+		// time, so each class can be measured on its own
+		String analyzerName = null;
+		List<LinterMessage> messages = new ArrayList<>();
+		for (String className : classes) {
+			AnalyzerReturn classReturn = this.profilePhases(entry.factory.apply(this.parser), section,
+					new String[] { className }, className);
+			analyzerName = classReturn.analyzerName;
+			messages.addAll(classReturn.errorsCaught);
+		}
+		return new AnalyzerReturn(analyzerName, messages);
+	}
+
+	private AnalyzerReturn profilePhases(DomainAnalyzer domainAnalyzer, String section, String[] classes,
+			String className) {
+		this.profile.measure(section, "getRelevantData", className, () -> domainAnalyzer.getRelevantData(classes));
+		this.profile.measure(section, "analyzeData", className, domainAnalyzer::analyzeData);
+		return this.profile.measure(section, "composeReturnType", className, domainAnalyzer::composeReturnType);
+	}
+
+	private AnalyzerReturn awaitReturn(Future<AnalyzerReturn> pendingReturn) {
+		try {
+			return pendingReturn.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for analyzers to finish!", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new IllegalStateException("Analyzer failed to run!", e.getCause());
 		}
+	}
 
-		// Pattern Detection
-		if ((flags & SINGLETON_ANALYZER_FLAG) == SINGLETON_ANALYZER_FLAG) {
-			analyzers.add(new SingletonAnalyzer(parser));
+	public void vomitOutput(PrintStream stream) {
+		ReportWriter report = ReportWriter.create(this.reportFormat, stream, this.flags);
+		for (AnalyzerReturn returnType : linterReturns) {
+			report.writeSection(returnType);
 		}
-		if ((flags & OBJECT_ADAPTER_ANALYZER_FLAG) == OBJECT_ADAPTER_ANALYZER_FLAG) {
-			analyzers.add(new ObjectAdapterIdentifierAnalyzer(parser));
+		report.writeSummary(this.parser, this.analysisCache);
+	}
+
+	/**
+	 * Collects the facts every analyzer enabled by <code>flags</code> needs.
+	 */
+	private static Set<ClassFact> requiredFacts(int flags) {
+		Set<ClassFact> facts = EnumSet.noneOf(ClassFact.class);
+		for (AnalyzerEntry entry : ANALYZER_REGISTRY) {
+			if ((flags & entry.flag) == entry.flag) {
+				facts.addAll(entry.requiredFacts);
+			}
 		}
-		if ((flags & STRATEGY_ANALYZER_FLAG) == STRATEGY_ANALYZER_FLAG) {
-			analyzers.add(new StrategyAnalyzer(parser));
+		return facts;
+	}
+
+	private void initAnalyzers(ASMParser parser, int flags) {
+		for (AnalyzerEntry entry : ANALYZER_REGISTRY) {
+			if ((flags & entry.flag) == entry.flag) {
+				this.analyzers.add(entry.factory.apply(parser));
+				this.analyzerEntries.add(entry);
+			}
 		}
-		if ((flags & TEMPLATE_METHOD_ANALYZER_FLAG) == TEMPLATE_METHOD_ANALYZER_FLAG) {
-			analyzers.add(new TemplateMethodAnalyzer(parser));
+	}
+
+	/**
+	 * Everything the presentation layer needs to know about one kind of analyzer
+	 */
+	private static class AnalyzerEntry {
+		private final int flag;
+		private final Set<ClassFact> requiredFacts;
+		private final AnalysisScope scope;
+		private final Function<ASMParser, DomainAnalyzer> factory;
+
+		AnalyzerEntry(int flag, Set<ClassFact> requiredFacts, AnalysisScope scope,
+				Function<ASMParser, DomainAnalyzer> factory) {
+			this.flag = flag;
+			this.requiredFacts = requiredFacts;
+			this.scope = scope;
+			this.factory = factory;
 		}
 	}
 }
@@ -0,0 +1,272 @@
+package presentation;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Wall time, CPU time and allocated bytes of each phase of a lint run: reading
+ * and parsing class files, every phase of every analyzer and writing the
+ * report. Phases are grouped into sections, one for the parser, one per
+ * analyzer and a few for the rest of the run, in the order the run reaches
+ * them.
+ *
+ * CPU time and allocation are those of the thread that ran the phase, so with
+ * -t the work of the parsing threads is only seen in the wall time. When the
+ * JVM cannot measure them they are left out.
+ *
+ * With the per-class breakdown, analyzers whose findings only depend on the
+ * class itself are run once per class, and each class is measured on its own.
+ */
+public class Profile {
+	private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+	// How many classes of each section the table lists
+	private static final int SLOWEST_CLASS_COUNT = 10;
+	private static final String TABLE_FORMAT = "%-44s%12s%12s%16s\n";
+
+	private final boolean perClass;
+	private final boolean cpuTimeSupported;
+	private final boolean allocationSupported;
+	// Records of each section in the order they were taken. Analyzers running
+	// on other threads add to their own sections concurrently
+	private final Map<String, List<Record>> sections = new LinkedHashMap<>();
+
+	/**
+	 * @param perClass true to also measure every class on its own, where the
+	 *                 analyzer allows it
+	 */
+	public Profile(boolean perClass) {
+		this.perClass = perClass;
+		this.cpuTimeSupported = enableCpuTime();
+		this.allocationSupported = enableAllocation();
+	}
+
+	private static boolean enableCpuTime() {
+		if (!THREADS.isCurrentThreadCpuTimeSupported()) {
+			return false;
+		}
+		if (!THREADS.isThreadCpuTimeEnabled()) {
+			THREADS.setThreadCpuTimeEnabled(true);
+		}
+		return true;
+	}
+
+	private static boolean enableAllocation() {
+		if (!(THREADS instanceof com.sun.management.ThreadMXBean)) {
+			return false;
+		}
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+		if (!threads.isThreadAllocatedMemorySupported()) {
+			return false;
+		}
+		if (!threads.isThreadAllocatedMemoryEnabled()) {
+			threads.setThreadAllocatedMemoryEnabled(true);
+		}
+		return true;
+	}
+
+	boolean isPerClass() {
+		return this.perClass;
+	}
+
+	/**
+	 * Reserves a place for a section, so sections filled in concurrently are
+	 * still listed in a fixed order.
+	 */
+	synchronized void addSection(String section) {
+		this.sections.computeIfAbsent(section, name -> new ArrayList<>());
+	}
+
+	void measure(String section, String phase, String className, Runnable work) {
+		this.measure(section, phase, className, () -> {
+			work.run();
+			return null;
+		});
+	}
+
+	/**
+	 * Runs <code>work</code> on the calling thread and records what it cost.
+	 *
+	 * @param className The class the work was for, or null for work on every
+	 *                  class
+	 * @return What <code>work</code> returned
+	 */
+	<T> T measure(String section, String phase, String className, Supplier<T> work) {
+		long startCpu = this.cpuTime();
+		long startAllocated = this.allocatedBytes();
+		long start = System.nanoTime();
+		T result = work.get();
+		long wallNanos = System.nanoTime() - start;
+		long cpuNanos = this.cpuTimeSupported ? this.cpuTime() - startCpu : -1;
+		long allocatedBytes = this.allocationSupported ? this.allocatedBytes() - startAllocated : -1;
+
+		Record record = new Record(phase, className, wallNanos, cpuNanos, allocatedBytes);
+		synchronized (this) {
+			this.sections.computeIfAbsent(section, name -> new ArrayList<>()).add(record);
+		}
+		return result;
+	}
+
+	private long cpuTime() {
+		return this.cpuTimeSupported ? THREADS.getCurrentThreadCpuTime() : 0;
+	}
+
+	private long allocatedBytes() {
+		return this.allocationSupported
+				? ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId())
+				: 0;
+	}
+
+	/**
+	 * Prints the cost of every phase, the total of every section and, with the
+	 * per-class breakdown, the slowest classes of each section.
+	 */
+	public synchronized void writeTable(PrintStream stream) {
+		stream.println();
+		stream.println("Profile:");
+		stream.println("======================================================================");
+		stream.format(TABLE_FORMAT, "Section / Phase", "Wall (ms)", "CPU (ms)", "Allocated (KB)");
+		for (Map.Entry<String, List<Record>> section : this.sections.entrySet()) {
+			if (section.getValue().isEmpty()) {
+				continue;
+			}
+			stream.println(section.getKey());
+			for (Record phase : groupBy(section.getValue(), false).values()) {
+				this.writeRow(stream, "  " + phase.phase, phase);
+			}
+			this.writeRow(stream, "  total", total(section.getValue()));
+		}
+
+		if (this.perClass) {
+			stream.println();
+			stream.println("Slowest Classes:");
+			stream.println("======================================================================");
+			stream.format(TABLE_FORMAT, "Section / Class", "Wall (ms)", "CPU (ms)", "Allocated (KB)");
+			for (Map.Entry<String, List<Record>> section : this.sections.entrySet()) {
+				List<Record> classes = new ArrayList<>(groupBy(section.getValue(), true).values());
+				if (classes.isEmpty()) {
+					continue;
+				}
+				classes.sort((first, second) -> Long.compare(second.wallNanos, first.wallNanos));
+				stream.println(section.getKey());
+				for (Record record : classes.subList(0, Math.min(SLOWEST_CLASS_COUNT, classes.size()))) {
+					this.writeRow(stream, "  " + record.className, record);
+				}
+			}
+		}
+		stream.flush();
+	}
+
+	private void writeRow(PrintStream stream, String label, Record record) {
+		stream.format(TABLE_FORMAT, label, String.format("%.1f", record.wallNanos / 1e6),
+				record.cpuNanos < 0 ? "n/a" : String.format("%.1f", record.cpuNanos / 1e6),
+				record.allocatedBytes < 0 ? "n/a" : String.format("%,d", record.allocatedBytes / 1024));
+	}
+
+	/**
+	 * Writes the profile as a JSON object. <code>phases</code> holds the total of
+	 * every phase of every section, and <code>classes</code> holds every phase
+	 * of every class measured on its own. Times are in nanoseconds, and values
+	 * the JVM could not measure are null.
+	 */
+	public synchronized void writeJson(Path file) throws IOException {
+		try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			writer.write("{\n  \"phases\": [");
+			String separator = "\n";
+			for (Map.Entry<String, List<Record>> section : this.sections.entrySet()) {
+				for (Record phase : groupBy(section.getValue(), false).values()) {
+					writer.write(separator);
+					this.writeJsonRecord(writer, section.getKey(), phase, false);
+					separator = ",\n";
+				}
+			}
+			writer.write("\n  ],\n  \"classes\": [");
+			separator = "\n";
+			for (Map.Entry<String, List<Record>> section : this.sections.entrySet()) {
+				for (Record record : section.getValue()) {
+					if (record.className != null) {
+						writer.write(separator);
+						this.writeJsonRecord(writer, section.getKey(), record, true);
+						separator = ",\n";
+					}
+				}
+			}
+			writer.write("\n  ]\n}\n");
+		}
+	}
+
+	private void writeJsonRecord(Writer writer, String section, Record record, boolean withClass)
+			throws IOException {
+		writer.write("    {\"section\": " + Json.quote(section) + ", \"phase\": " + Json.quote(record.phase));
+		if (withClass) {
+			writer.write(", \"className\": " + Json.quote(record.className));
+		}
+		writer.write(", \"wallNanos\": " + record.wallNanos);
+		writer.write(", \"cpuNanos\": " + (record.cpuNanos < 0 ? "null" : Long.toString(record.cpuNanos)));
+		writer.write(", \"allocatedBytes\": "
+				+ (record.allocatedBytes < 0 ? "null" : Long.toString(record.allocatedBytes)) + "}");
+	}
+
+	/**
+	 * Adds up records with the same phase, or with the same class, keeping the
+	 * order each was first seen in. Grouping by class leaves out records that
+	 * are not for a single class.
+	 */
+	private static Map<String, Record> groupBy(List<Record> records, boolean byClass) {
+		Map<String, Record> groups = new LinkedHashMap<>();
+		for (Record record : records) {
+			String key = byClass ? record.className : record.phase;
+			if (key != null) {
+				groups.merge(key, byClass ? new Record(null, key, record) : new Record(key, null, record),
+						Record::add);
+			}
+		}
+		return groups;
+	}
+
+	private static Record total(List<Record> records) {
+		Record total = new Record(null, null, 0, 0, 0);
+		for (Record record : records) {
+			total = total.add(record);
+		}
+		return total;
+	}
+
+	private static class Record {
+		private final String phase;
+		private final String className;
+		private final long wallNanos;
+		private final long cpuNanos;
+		private final long allocatedBytes;
+
+		Record(String phase, String className, long wallNanos, long cpuNanos, long allocatedBytes) {
+			this.phase = phase;
+			this.className = className;
+			this.wallNanos = wallNanos;
+			this.cpuNanos = cpuNanos;
+			this.allocatedBytes = allocatedBytes;
+		}
+
+		Record(String phase, String className, Record costs) {
+			this(phase, className, costs.wallNanos, costs.cpuNanos, costs.allocatedBytes);
+		}
+
+		// Values that could not be measured stay unmeasured in the sum
+		Record add(Record other) {
+			return new Record(this.phase, this.className, this.wallNanos + other.wallNanos,
+					this.cpuNanos < 0 || other.cpuNanos < 0 ? -1 : this.cpuNanos + other.cpuNanos,
+					this.allocatedBytes < 0 || other.allocatedBytes < 0 ? -1
+							: this.allocatedBytes + other.allocatedBytes);
+		}
+	}
+}
@@ -0,0 +1,41 @@
+package presentation;
+
+/**
+ * The formats the report can be written in. Only the text format follows the
+ * verbosity flags; the others always list every finding, for tools to read.
+ */
+public enum ReportFormat {
+	/** The report for people to read */
+	TEXT("text"),
+	/** One JSON object with the findings of every analyzer */
+	JSON("json"),
+	/** A SARIF 2.1.0 log, as read by code scanning services */
+	SARIF("sarif"),
+	/** The XML format of Checkstyle, as read by build servers and editors */
+	CHECKSTYLE_XML("checkstyle-xml");
+
+	private final String name;
+
+	ReportFormat(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * @return The name the format is chosen by on the command line
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * @return The format called <code>name</code>, or null if there is none
+	 */
+	public static ReportFormat forName(String name) {
+		for (ReportFormat format : values()) {
+			if (format.name.equals(name)) {
+				return format;
+			}
+		}
+		return null;
+	}
+}
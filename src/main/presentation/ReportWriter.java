@@ -0,0 +1,114 @@
+package presentation;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+
+import datasource.ASMParser;
+import domain.AnalyzerReturn;
+
+/**
+ * Writes the report one analyzer at a time, as each analyzer's findings come
+ * in, instead of once every analyzer has finished. Summary totals are kept as
+ * sections are written, so findings can be dropped as soon as they have been
+ * printed. Subclasses write the report in one {@link ReportFormat} each.
+ *
+ * Output is buffered and flushed at the end of every section, so a section
+ * appears all at once and large reports are not written a line at a time.
+ */
+abstract class ReportWriter {
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	protected final PrintStream stream;
+
+	private int errorCount;
+	private int warningCount;
+	private int patternCount;
+
+	/**
+	 * @param encoding The charset to write the report in
+	 */
+	protected ReportWriter(OutputStream out, Charset encoding) {
+		try {
+			this.stream = new PrintStream(new BufferedOutputStream(out, BUFFER_SIZE), false, encoding.name());
+		} catch (UnsupportedEncodingException e) {
+			// The charset was already found, so its name is always supported
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * @param format The format to write the report in
+	 * @param out    Where to write the report
+	 * @param flags  The verbosity flags, which only the text format uses
+	 */
+	static ReportWriter create(ReportFormat format, OutputStream out, int flags) {
+		switch (format) {
+			case JSON:
+				return new JsonReportWriter(out);
+			case SARIF:
+				return new SarifReportWriter(out);
+			case CHECKSTYLE_XML:
+				return new CheckstyleReportWriter(out);
+			default:
+				return new TextReportWriter(out, flags);
+		}
+	}
+
+	/**
+	 * Writes the findings of one analyzer and adds them to the totals.
+	 */
+	void writeSection(AnalyzerReturn returnType) {
+		this.errorCount += returnType.getErrorCount();
+		this.warningCount += returnType.getWarningCount();
+		this.patternCount += returnType.getPatternCount();
+		this.writeFindings(returnType);
+		this.stream.flush();
+	}
+
+	/**
+	 * Ends the report with the totals of every section written so far.
+	 *
+	 * @param parser        The parser the analyzers used, or null
+	 * @param analysisCache The incremental analysis cache, or null
+	 */
+	void writeSummary(ASMParser parser, AnalysisCache analysisCache) {
+		this.writeEnd(parser, analysisCache);
+		this.stream.flush();
+	}
+
+	protected abstract void writeFindings(AnalyzerReturn returnType);
+
+	protected abstract void writeEnd(ASMParser parser, AnalysisCache analysisCache);
+
+	/**
+	 * @return The source file a class was most likely compiled from, which for
+	 *         nested classes is the file of the outermost class
+	 */
+	protected static String sourceFile(String className) {
+		int nested = className.indexOf('$');
+		String outerName = nested < 0 ? className : className.substring(0, nested);
+		return outerName.replace('.', '/') + ".java";
+	}
+
+	protected int getErrorCount() {
+		return this.errorCount;
+	}
+
+	protected int getWarningCount() {
+		return this.warningCount;
+	}
+
+	protected int getPatternCount() {
+		return this.patternCount;
+	}
+
+	/**
+	 * @return The total the summary reports, which leaves out info messages
+	 */
+	protected int getTotalCount() {
+		return this.errorCount + this.warningCount + this.patternCount;
+	}
+}
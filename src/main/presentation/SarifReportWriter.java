@@ -0,0 +1,90 @@
+package presentation;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import datasource.ASMParser;
+import domain.AnalyzerReturn;
+import domain.message.LinterMessage;
+
+/**
+ * Writes the report as a SARIF 2.1.0 log, the format code scanning services
+ * read. Every analyzer is a rule, and every finding a result of that rule.
+ *
+ * Results are written before the tool description, which JSON allows, so they
+ * can be written as each analyzer finishes. Only the analyzer names are kept
+ * until the end of the report, to list them as rules.
+ */
+class SarifReportWriter extends ReportWriter {
+	private static final String SCHEMA = "https://json.schemastore.org/sarif-2.1.0.json";
+	private static final String INFORMATION_URI = "https://github.com/rhit-westeraj/DesignLint";
+	// Results point at source files relative to this base, which the service
+	// reading the log maps to the root of the sources
+	private static final String SOURCE_ROOT = "SRCROOT";
+
+	private final Set<String> rules = new LinkedHashSet<>();
+	private String resultSeparator = "\n";
+
+	SarifReportWriter(OutputStream out) {
+		super(out, StandardCharsets.UTF_8);
+		this.stream.print("{\n  \"$schema\": " + Json.quote(SCHEMA) + ",\n  \"version\": \"2.1.0\",\n");
+		this.stream.print("  \"runs\": [\n    {\n      \"results\": [");
+	}
+
+	@Override
+	protected void writeFindings(AnalyzerReturn returnType) {
+		this.rules.add(returnType.analyzerName);
+		for (LinterMessage error : returnType.errorsCaught) {
+			this.stream.print(this.resultSeparator);
+			this.resultSeparator = ",\n";
+			this.stream.print("        {\"ruleId\": " + Json.quote(returnType.analyzerName));
+			this.stream.print(", \"level\": " + Json.quote(level(error.getMessageType())));
+			this.stream.print(", \"message\": {\"text\": " + Json.quote(error.message) + "}");
+			if (error.className != null) {
+				this.writeLocation(error);
+			}
+			this.stream.print("}");
+		}
+	}
+
+	private void writeLocation(LinterMessage error) {
+		String className = error.className.replace('/', '.');
+		boolean inMethod = error.methodName != null;
+		this.stream.print(", \"locations\": [{\"physicalLocation\": {\"artifactLocation\": {\"uri\": "
+				+ Json.quote(sourceFile(className)) + ", \"uriBaseId\": " + Json.quote(SOURCE_ROOT) + "}}");
+		this.stream.print(", \"logicalLocations\": [{\"fullyQualifiedName\": "
+				+ Json.quote(inMethod ? className + "." + error.methodName : className) + ", \"kind\": "
+				+ Json.quote(inMethod ? "function" : "type") + "}]}]");
+	}
+
+	private static String level(String messageType) {
+		switch (messageType) {
+			case "ERROR":
+				return "error";
+			case "WARNING":
+				return "warning";
+			case "INFO":
+			case "PATTERN":
+				return "note";
+			default:
+				return "none";
+		}
+	}
+
+	@Override
+	protected void writeEnd(ASMParser parser, AnalysisCache analysisCache) {
+		this.stream.print("\n      ],\n      \"tool\": {\n        \"driver\": {\n");
+		this.stream.print("          \"name\": \"DesignLint\",\n");
+		this.stream.print("          \"version\": " + Json.quote(PresentationLayer.VERSION) + ",\n");
+		this.stream.print("          \"informationUri\": " + Json.quote(INFORMATION_URI) + ",\n");
+		this.stream.print("          \"rules\": [");
+		String separator = "\n";
+		for (String rule : this.rules) {
+			this.stream.print(separator + "            {\"id\": " + Json.quote(rule) + "}");
+			separator = ",\n";
+		}
+		this.stream.print("\n          ]\n        }\n      }\n    }\n  ]\n}\n");
+	}
+}
@@ -0,0 +1,82 @@
+package presentation;
+
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+import datasource.ASMParser;
+import domain.AnalyzerReturn;
+import domain.message.LinterMessage;
+
+/**
+ * Writes the report for people to read. How much of it is written depends on
+ * the verbosity flags.
+ */
+class TextReportWriter extends ReportWriter {
+	private final int flags;
+
+	TextReportWriter(OutputStream out, int flags) {
+		super(out, Charset.defaultCharset());
+		this.flags = flags;
+	}
+
+	@Override
+	protected void writeFindings(AnalyzerReturn returnType) {
+		if (this.isSet(PresentationLayer.VERBOSE_FLAG)) {
+			this.stream.format("Linter Name - %s\n", returnType.analyzerName);
+			this.stream.println("======================================================================");
+			this.stream.println("Errors Found : " + returnType.getErrorCount());
+			this.stream.println("Warnings Found: " + returnType.getWarningCount());
+			this.stream.println("Total Patterns Found : " + returnType.getPatternCount());
+			this.stream.println("Total Linter Findings : " + returnType.getTotalCount());
+			this.stream.println();
+		}
+
+		for (LinterMessage error : returnType.errorsCaught) {
+			if ((this.isSet(PresentationLayer.SUPER_VERBOSE_FLAG) && error.getMessageType().equals("ERROR"))
+					|| this.isSet(PresentationLayer.ULTRA_VERBOSE_FLAG)) {
+				this.stream.format("Type - %s\n", error.getMessageType());
+				this.stream.format("Class Name - %s\n", error.className);
+				this.stream.format("Method Name - %s\n", error.methodName);
+				this.stream.format("Message - %s\n", error.message);
+				this.stream.println();
+			}
+		}
+	}
+
+	/**
+	 * Writes the cache statistics, when verbose, and the totals.
+	 */
+	@Override
+	protected void writeEnd(ASMParser parser, AnalysisCache analysisCache) {
+		if (this.isSet(PresentationLayer.VERBOSE_FLAG) && parser != null) {
+			this.stream.println("Method Call Analysis Cache:");
+			this.stream.println("======================================================================");
+			this.stream.println("Cache Hits : " + parser.getMethodCallCacheHits());
+			this.stream.println("Cache Misses : " + parser.getMethodCallCacheMisses());
+			this.stream.println();
+			this.stream.println("External Class Cache:");
+			this.stream.println("======================================================================");
+			this.stream.println("Cache Hits : " + parser.getExternalClassCacheHits());
+			this.stream.println("Cache Misses : " + parser.getExternalClassCacheMisses());
+			this.stream.println();
+		}
+
+		if (this.isSet(PresentationLayer.VERBOSE_FLAG) && analysisCache != null) {
+			this.stream.println("Incremental Analysis Cache:");
+			this.stream.println("======================================================================");
+			this.stream.println("Changed Classes : " + analysisCache.getChangedClassCount());
+			this.stream.println();
+		}
+
+		this.stream.println("Summary:");
+		this.stream.println("======================================================================");
+		this.stream.println("Errors Found : " + this.getErrorCount());
+		this.stream.println("Warnings Found: " + this.getWarningCount());
+		this.stream.println("Total Patterns Found : " + this.getPatternCount());
+		this.stream.println("Total Linter Findings : " + this.getTotalCount());
+	}
+
+	private boolean isSet(int flag) {
+		return (this.flags & flag) == flag;
+	}
+}
@@ -0,0 +1,215 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import datasource.ASMParser;
+import datasource.MethodCall;
+
+public class ASMParserConcurrencyTest {
+
+	private static final int THREAD_COUNT = 16;
+	private static final int ROUNDS_PER_THREAD = 10;
+
+	private final String[] exampleClasses = {
+			"example/dry/Animal",
+			"example/dry/Cat",
+			"example/dry/CatExtendsAnimal",
+			"example/dry/Dog",
+			"example/demeter/A",
+			"example/demeter/B",
+			"example/demeter/D",
+			"example/template/CaffeineBeverage",
+			"example/template/Coffee",
+			"example/template/Tea",
+			"example/singleton/PriConStaticFieldStaticMethod",
+			"example/code2interface/Code2InterfaceTest",
+			"example/coupling/HighCouplingNightmareClass",
+			"example/coupling/CoupledToInterfaceExample",
+			"example/exceptionstyle/ExceptionStyleExamples",
+			"example/strategy/strategytype/typea/CompliantStrategyTypeA",
+			"example/strategy/strategytype/typea/NonCompliantStrategyA3ImplementsOtherInterfaces",
+			"example/strategy/CompliantFinalClassUsingStrategyWithMethods",
+			"example/objectadapter/AdapterBothCorrect",
+			"example/typename/MultipleTypesSomeIncorrectClass",
+			"example/varname/VarNameTestClass",
+	};
+
+	private ASMParser parser;
+	private ExecutorService executor;
+
+	@BeforeEach
+	public void setUp() throws IOException {
+		this.parser = new ASMParser(exampleClasses);
+		this.executor = Executors.newFixedThreadPool(THREAD_COUNT);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		this.executor.shutdownNow();
+	}
+
+	@Test
+	public void testConcurrentQueriesMatchSingleThreadedQueries() throws Exception {
+		Map<String, String> expected = new HashMap<>();
+		for (String className : exampleClasses) {
+			expected.put(className, describeClass(className));
+		}
+
+		CountDownLatch startGate = new CountDownLatch(1);
+		List<Future<Map<String, String>>> results = new ArrayList<>();
+		for (int thread = 0; thread < THREAD_COUNT; thread++) {
+			long seed = thread;
+			results.add(this.executor.submit(() -> {
+				List<String> order = new ArrayList<>(Arrays.asList(exampleClasses));
+				Collections.shuffle(order, new Random(seed));
+				Map<String, String> observed = new HashMap<>();
+
+				startGate.await();
+				for (int round = 0; round < ROUNDS_PER_THREAD; round++) {
+					for (String className : order) {
+						String description = describeClass(className);
+						String previous = observed.put(className, description);
+						if (previous != null && !previous.equals(description)) {
+							throw new IllegalStateException("Query results changed between rounds for " + className);
+						}
+					}
+				}
+				return observed;
+			}));
+		}
+
+		startGate.countDown();
+		for (Future<Map<String, String>> result : results) {
+			assertEquals(expected, awaitResult(result));
+		}
+	}
+
+	@Test
+	public void testConcurrentExternalClassLoadsAgree() throws Exception {
+		String[] externalClasses = { "java/util/ArrayList", "java/util/HashMap", "java/util/HashSet",
+				"java/lang/String", "java/io/PrintStream" };
+		Map<String, List<String>> expected = new HashMap<>();
+		ASMParser referenceParser = new ASMParser(new String[0]);
+		for (String className : externalClasses) {
+			expected.put(className, referenceParser.getInterfacesList(className));
+		}
+
+		CountDownLatch startGate = new CountDownLatch(1);
+		List<Future<Map<String, List<String>>>> results = new ArrayList<>();
+		for (int thread = 0; thread < THREAD_COUNT; thread++) {
+			results.add(this.executor.submit(() -> {
+				Map<String, List<String>> observed = new HashMap<>();
+				startGate.await();
+				for (String className : externalClasses) {
+					observed.put(className, this.parser.getInterfacesList(className));
+				}
+				return observed;
+			}));
+		}
+
+		startGate.countDown();
+		for (Future<Map<String, List<String>>> result : results) {
+			assertEquals(expected, awaitResult(result));
+		}
+	}
+
+	private <T> T awaitResult(Future<T> result) throws InterruptedException, ExecutionException {
+		try {
+			return result.get(60, TimeUnit.SECONDS);
+		} catch (TimeoutException e) {
+			throw new IllegalStateException("Concurrent queries did not finish in time", e);
+		}
+	}
+
+	/**
+	 * Runs every query ASMParser offers against a class and renders the results
+	 * into one string, so runs on different threads can be compared directly.
+	 */
+	private String describeClass(String className) {
+		StringBuilder description = new StringBuilder();
+		append(description, "parsed", sorted(this.parser.getParsedClassNames()));
+		append(description, "super", this.parser.getSuperName(className));
+		append(description, "interfaces", Arrays.toString(this.parser.getInterfaces(className)));
+		append(description, "interfacesList", this.parser.getInterfacesList(className));
+		append(description, "methods", Arrays.toString(this.parser.getMethods(className)));
+		append(description, "staticMethods", Arrays.toString(this.parser.getStaticMethods(className)));
+		append(description, "privateConstructor", this.parser.isClassConstructorPrivate(className));
+		append(description, "staticPrivateFields",
+				Arrays.toString(this.parser.getClassStaticPrivateFieldNames(className)));
+		append(description, "fieldNames", this.parser.getClassFieldNames(className));
+		append(description, "globalNames", this.parser.getGlobalNames(className));
+		append(description, "fieldTypes", this.parser.getClassFieldTypes(className));
+		append(description, "localNames", new TreeMap<>(this.parser.findCorrectMethodInfo(className, true)));
+		append(description, "localTypes", new TreeMap<>(this.parser.findCorrectMethodInfo(className, false)));
+		append(description, "signature", this.parser.getSignature(className));
+		append(description, "signatureNonEnum", this.parser.getSignatureNonEnum(className));
+		append(description, "fieldTypeNames", sorted(this.parser.getFieldTypeNames(className)));
+		append(description, "returnTypes", sorted(this.parser.getAllMethodReturnTypes(className)));
+		append(description, "parameterTypes", sorted(this.parser.getAllMethodParameterTypes(className)));
+		append(description, "bodyTypes", sorted(this.parser.getAllMethodBodyTypes(className)));
+		append(description, "localVarTypes", sorted(this.parser.getAllMethodLocalTypes(className)));
+		append(description, "extendsImplements", sorted(this.parser.getExtendsImplementsTypes(className)));
+		append(description, "isInterface", this.parser.isInterface(className));
+		append(description, "isEnum", this.parser.isEnum(className));
+		append(description, "isFinal", this.parser.isFinal(className));
+		append(description, "allStatic", this.parser.allMethodsStatic(className));
+
+		List<List<String>> abstractMethods = this.parser.getAbstractMethods(className);
+		List<List<String>> concreteMethods = this.parser.getConcreteMethods(className);
+		append(description, "abstractMethods", abstractMethods);
+		append(description, "concreteMethods", concreteMethods);
+		for (List<String> concreteMethod : concreteMethods) {
+			append(description, "abstractIn " + concreteMethod,
+					this.parser.getAbstractMethodsInConcrete(className, concreteMethod, abstractMethods));
+		}
+
+		for (String methodName : this.parser.getMethods(className)) {
+			append(description, "throws " + methodName,
+					Arrays.toString(this.parser.getMethodExceptionSignature(className, methodName)));
+			append(description, "catches " + methodName,
+					Arrays.toString(this.parser.getMethodExceptionCaught(className, methodName)));
+
+			List<String> calls = new ArrayList<>();
+			for (MethodCall call : this.parser.getMethodCalls(className, methodName)) {
+				calls.add(call.toString());
+			}
+			append(description, "calls " + methodName, calls);
+
+			for (String interfaceName : this.parser.getInterfacesList(className)) {
+				append(description, "fromInterface " + methodName + " " + interfaceName,
+						this.parser.compareMethodFromInterface(className, methodName, interfaceName));
+			}
+		}
+
+		return description.toString();
+	}
+
+	private static void append(StringBuilder description, String query, Object result) {
+		description.append(query).append(" = ").append(result).append('\n');
+	}
+
+	private static String sorted(String[] values) {
+		String[] copy = Arrays.copyOf(values, values.length);
+		Arrays.sort(copy);
+		return Arrays.toString(copy);
+	}
+}
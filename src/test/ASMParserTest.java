@@ -0,0 +1,180 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import datasource.ASMParser;
+import datasource.ClassFact;
+import datasource.MethodCall;
+import datasource.ParseFailure;
+
+public class ASMParserTest {
+
+	private final String[] exampleClasses = {
+			"example/dry/Animal",
+			"example/dry/Cat",
+			"example/dry/CatExtendsAnimal",
+			"example/dry/Dog",
+			"example/dry/DogExtendsAnimal",
+			"example/dry/Kitten",
+			"example/dry/Puppy",
+			"example/demeter/A",
+			"example/demeter/B",
+			"example/demeter/C",
+			"example/demeter/D",
+			"example/template/CaffeineBeverage",
+			"example/template/Coffee",
+			"example/template/Tea",
+			"example/singleton/PriConStaticFieldStaticMethod",
+			"example/code2interface/Code2InterfaceTest",
+			"example/coupling/HighCouplingNightmareClass",
+			"example/exceptionstyle/ExceptionStyleExamples",
+	};
+
+	private InputStream[] openExampleStreams() {
+		InputStream[] streams = new InputStream[exampleClasses.length];
+		for (int i = 0; i < exampleClasses.length; i++) {
+			streams[i] = ClassLoader.getSystemResourceAsStream(exampleClasses[i] + ".class");
+		}
+		return streams;
+	}
+
+	@Test
+	public void testParallelParseMatchesSequentialParse() throws IOException {
+		ASMParser sequential = new ASMParser(openExampleStreams());
+		ASMParser parallel = new ASMParser(openExampleStreams(), 4);
+
+		assertArrayEquals(sequential.getParsedClassNames(), parallel.getParsedClassNames());
+		assertEquals(0, parallel.getParseFailures().size());
+		for (String className : exampleClasses) {
+			assertArrayEquals(sequential.getMethods(className), parallel.getMethods(className));
+			assertEquals(sequential.getSuperName(className), parallel.getSuperName(className));
+		}
+	}
+
+	@Test
+	public void testSingleThreadParseUsesCallingThread() {
+		ASMParser parser = new ASMParser(openExampleStreams(), 1);
+
+		assertEquals(exampleClasses.length, parser.getParsedClassNames().length);
+		assertEquals(0, parser.getParseFailures().size());
+	}
+
+	@Test
+	public void testParallelParseReportsBadStreamsWithoutStopping() {
+		InputStream[] streams = openExampleStreams();
+		InputStream[] withGarbage = Arrays.copyOf(streams, streams.length + 1);
+		withGarbage[streams.length] = new ByteArrayInputStream(new byte[] { 0x0B, 0x0A, 0x0D });
+
+		ASMParser parser = new ASMParser(withGarbage, 4);
+
+		List<ParseFailure> failures = parser.getParseFailures();
+		assertEquals(1, failures.size());
+		assertEquals(streams.length, failures.get(0).getStreamIndex());
+		assertEquals(exampleClasses.length, parser.getParsedClassNames().length);
+	}
+
+	@Test
+	public void testIndexedQueriesReturnIndependentCopies() throws IOException {
+		ASMParser parser = new ASMParser(openExampleStreams());
+		String className = "example/template/CaffeineBeverage";
+
+		String[] methods = parser.getMethods(className);
+		String[] expectedMethods = methods.clone();
+		methods[0] = "changed";
+		assertArrayEquals(expectedMethods, parser.getMethods(className));
+
+		List<List<String>> abstractMethods = parser.getAbstractMethods(className);
+		int abstractCount = abstractMethods.size();
+		assertTrue(abstractCount > 0);
+		abstractMethods.get(0).clear();
+		abstractMethods.clear();
+		assertEquals(abstractCount, parser.getAbstractMethods(className).size());
+		assertEquals(2, parser.getAbstractMethods(className).get(0).size());
+
+		List<String> fieldNames = parser.getGlobalNames("example/singleton/PriConStaticFieldStaticMethod");
+		fieldNames.add("changed");
+		assertEquals(fieldNames.size() - 1,
+				parser.getGlobalNames("example/singleton/PriConStaticFieldStaticMethod").size());
+	}
+
+	@Test
+	public void testMethodCallsAreAnalyzedOncePerMethod() throws IOException {
+		ASMParser parser = new ASMParser(openExampleStreams());
+
+		List<MethodCall> first = parser.getMethodCalls("example/demeter/A", "doThingWithB");
+		List<MethodCall> second = parser.getMethodCalls("example/demeter/A", "doThingWithB");
+
+		assertSame(first, second);
+		assertEquals(1, parser.getMethodCallCacheMisses());
+		assertEquals(1, parser.getMethodCallCacheHits());
+		assertThrows(UnsupportedOperationException.class, () -> first.clear());
+	}
+
+	@Test
+	public void testStreamingParseKeepsRequestedFacts() throws IOException {
+		ASMParser full = new ASMParser(openExampleStreams());
+		ASMParser streaming = new ASMParser(openExampleStreams(), 1,
+				EnumSet.of(ClassFact.CALL_SITES, ClassFact.BODY_TYPES, ClassFact.TRY_CATCH_TYPES));
+
+		assertEquals(0, streaming.getParseFailures().size());
+		for (String className : exampleClasses) {
+			assertArrayEquals(full.getMethods(className), streaming.getMethods(className));
+			assertArrayEquals(sortedCopy(full.getAllMethodBodyTypes(className)),
+					sortedCopy(streaming.getAllMethodBodyTypes(className)));
+			for (String methodName : full.getMethods(className)) {
+				assertEquals(full.getMethodCalls(className, methodName), streaming.getMethodCalls(className, methodName));
+				assertArrayEquals(full.getMethodExceptionCaught(className, methodName),
+						streaming.getMethodExceptionCaught(className, methodName));
+			}
+		}
+	}
+
+	@Test
+	public void testStreamingParseRejectsFactsNotRequested() {
+		ASMParser streaming = new ASMParser(openExampleStreams(), 1, EnumSet.noneOf(ClassFact.class));
+		String className = "example/demeter/A";
+
+		assertEquals(exampleClasses.length, streaming.getParsedClassNames().length);
+		assertEquals("java/lang/Object", streaming.getSuperName(className));
+		assertThrows(IllegalStateException.class, () -> streaming.getMethodCalls(className, "doThingWithB"));
+		assertThrows(IllegalStateException.class, () -> streaming.findCorrectMethodInfo(className, true));
+		assertThrows(IllegalStateException.class, () -> streaming.getAllMethodBodyTypes(className));
+		assertThrows(IllegalStateException.class, () -> streaming.getMethodExceptionCaught(className, "doThingWithB"));
+	}
+
+	@Test
+	public void testExternalClassesAreLoadedOnce() throws IOException {
+		ASMParser parser = new ASMParser(new String[] { "example/demeter/A" });
+
+		// Fixture classes that were not parsed are loaded from the classpath
+		assertEquals(Arrays.asList("example/objectadapter/TargetInterface"),
+				parser.getInterfacesList("example/objectadapter/AdapterInterfaceCorrect"));
+		assertEquals(1, parser.getExternalClassCacheMisses());
+		assertTrue(parser.compareMethodFromInterface("example/objectadapter/AdapterInterfaceCorrect",
+				"doReallyCoolThing", "example/objectadapter/TargetInterface"));
+		assertEquals(2, parser.getExternalClassCacheMisses());
+		assertEquals(1, parser.getExternalClassCacheHits());
+
+		assertTrue(parser.getInterfacesList("example/NoSuchClass").isEmpty());
+		assertTrue(parser.getInterfacesList("example/NoSuchClass").isEmpty());
+		assertEquals(3, parser.getExternalClassCacheMisses());
+		assertEquals(2, parser.getExternalClassCacheHits());
+	}
+
+	private static String[] sortedCopy(String[] values) {
+		String[] copy = values.clone();
+		Arrays.sort(copy);
+		return copy;
+	}
+}
@@ -0,0 +1,147 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.InsnNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import presentation.PresentationLayer;
+
+public class AnalysisCacheTest {
+
+	private static final int FLAGS = PresentationLayer.ULTRA_VERBOSE_FLAG | PresentationLayer.SUPER_VERBOSE_FLAG
+			| PresentationLayer.VERBOSE_FLAG | PresentationLayer.EQUALS_HASHCODE_ANALYZER_FLAG
+			| PresentationLayer.CODE_TO_INTERFACE_ANALYZER_FLAG | PresentationLayer.DRY_ANALYZER_FLAG
+			| PresentationLayer.GENERIC_NAME_ANALYZER_FLAG;
+
+	private final String[] exampleClasses = {
+			"example/demeter/A",
+			"example/demeter/B",
+			"example/demeter/C",
+			"example/demeter/D",
+			"example/dry/Cat",
+			"example/dry/Dog",
+			"example/dry/Puppy",
+			"example/typename/InterfaceIncorrect",
+			"example/typename/MultipleTypesSomeIncorrectClass",
+			"example/typename/NoTypeClass",
+			"example/typename/OneTypeIncorrectCapitalNonNumericClass",
+			"example/typename/OneTypeIncorrectLowercaseClass",
+			"example/typename/OneTypeIncorrectNoTClass",
+	};
+
+	private static final String EQUALS_FINDING = "Message - When overriding the equals method, you should also override the hashCode method ";
+
+	@TempDir
+	Path tempDir;
+
+	// Gives the class an equals method without a matching hashCode
+	private static void addEqualsMethod(Path classFile) throws IOException {
+		ClassNode classNode = new ClassNode();
+		new ClassReader(Files.readAllBytes(classFile)).accept(classNode, 0);
+		MethodNode equals = new MethodNode(Opcodes.ACC_PUBLIC, "equals", "(Ljava/lang/Object;)Z", null, null);
+		equals.instructions.add(new InsnNode(Opcodes.ICONST_0));
+		equals.instructions.add(new InsnNode(Opcodes.IRETURN));
+		equals.maxStack = 1;
+		equals.maxLocals = 2;
+		classNode.methods.add(equals);
+
+		ClassWriter writer = new ClassWriter(0);
+		classNode.accept(writer);
+		Files.write(classFile, writer.toByteArray());
+	}
+
+	private static List<String> run(Path classes, Path cacheDirectory) {
+		PresentationLayer presentation = new PresentationLayer(FLAGS);
+		presentation.setCacheDirectory(cacheDirectory);
+		presentation.setupAnalyzers(classes);
+		presentation.runAnalyzers();
+
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		presentation.vomitOutput(new PrintStream(output, true));
+		List<String> findings = new ArrayList<>();
+		for (String line : output.toString().split("\n")) {
+			// Cache statistics are expected to differ between runs
+			if (!line.startsWith("Cache ") && !line.startsWith("Changed Classes")) {
+				findings.add(line);
+			}
+		}
+		return findings;
+	}
+
+	@Test
+	public void testWarmCacheMatchesColdRun() throws IOException {
+		Path classes = ClassTreeFixture.buildClassTree(tempDir.resolve("classes"), exampleClasses);
+		Path cache = tempDir.resolve("cache");
+		List<String> cold = run(classes, cache);
+
+		assertEquals(cold, run(classes, cache));
+	}
+
+	@Test
+	public void testCachedRunMatchesUncachedRun() throws IOException {
+		Path classes = ClassTreeFixture.buildClassTree(tempDir.resolve("classes"), exampleClasses);
+		Path cache = tempDir.resolve("cache");
+		run(classes, cache);
+		addEqualsMethod(classes.resolve("example/demeter/B.class"));
+
+		// Only the findings, as the summary of a cached run also has cache totals
+		assertEquals(findingLines(run(classes, null)), findingLines(run(classes, cache)));
+	}
+
+	private static List<String> findingLines(List<String> output) {
+		List<String> findings = new ArrayList<>();
+		for (String line : output) {
+			if (line.startsWith("Class Name - ") || line.startsWith("Message - ")) {
+				findings.add(line);
+			}
+		}
+		return findings;
+	}
+
+	@Test
+	public void testChangedClassesAreReanalyzed() throws IOException {
+		Path classes = ClassTreeFixture.buildClassTree(tempDir.resolve("classes"), exampleClasses);
+		Path cache = tempDir.resolve("cache");
+		List<String> before = run(classes, cache);
+		assertFalse(before.contains(EQUALS_FINDING));
+
+		addEqualsMethod(classes.resolve("example/demeter/B.class"));
+		Files.delete(classes.resolve("example/dry/Puppy.class"));
+		List<String> incremental = run(classes, cache);
+
+		int finding = incremental.indexOf(EQUALS_FINDING);
+		assertTrue(finding > 0);
+		assertEquals("Class Name - example/demeter/B", incremental.get(finding - 2));
+		assertEquals(run(classes, tempDir.resolve("fresh-cache")), incremental);
+	}
+
+	@Test
+	public void testUnreadableCacheIsIgnored() throws IOException {
+		Path classes = ClassTreeFixture.buildClassTree(tempDir.resolve("classes"), exampleClasses);
+		Path cache = tempDir.resolve("cache");
+		List<String> cold = run(classes, cache);
+		try (Stream<Path> cacheFiles = Files.list(cache)) {
+			for (Path cacheFile : (Iterable<Path>) cacheFiles::iterator) {
+				Files.write(cacheFile, new byte[] { 0, 0, 0, 1 });
+			}
+		}
+
+		assertEquals(cold, run(classes, cache));
+	}
+}
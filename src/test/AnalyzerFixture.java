@@ -1,8 +1,11 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
 import java.io.IOException;
 
 import org.junit.jupiter.api.BeforeEach;
 
 import datasource.ASMParser;
+import domain.AnalyzerReturn;
 import domain.DomainAnalyzer;
 
 public abstract class AnalyzerFixture<T extends DomainAnalyzer> {
@@ -25,7 +28,16 @@ public abstract class AnalyzerFixture<T extends DomainAnalyzer> {
 		}
 	}
 
-	
+	/**
+	 * Checks that two runs reported the same findings in the same order.
+	 */
+	public static void assertSameFindings(AnalyzerReturn expected, AnalyzerReturn actual) {
+		assertEquals(expected.errorsCaught.size(), actual.errorsCaught.size());
+		for (int i = 0; i < expected.errorsCaught.size(); i++) {
+			assertEquals(expected.errorsCaught.get(i).toString(), actual.errorsCaught.get(i).toString());
+		}
+	}
+
 	@BeforeEach
 	protected abstract void initAnalyzerUUT();
 }
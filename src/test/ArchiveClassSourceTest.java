@@ -0,0 +1,103 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import datasource.ASMParser;
+import datasource.ArchiveClassSource;
+
+public class ArchiveClassSourceTest {
+
+	@TempDir
+	Path tempDir;
+
+	private static byte[] readExampleClass(String className) throws IOException {
+		try (InputStream stream = ClassLoader.getSystemResourceAsStream(className + ".class")) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int read;
+			while ((read = stream.read(buffer)) != -1) {
+				bytes.write(buffer, 0, read);
+			}
+			return bytes.toByteArray();
+		}
+	}
+
+	private static void writeEntry(ZipOutputStream zip, String name, byte[] content) throws IOException {
+		zip.putNextEntry(new ZipEntry(name));
+		zip.write(content);
+		zip.closeEntry();
+	}
+
+	private static byte[] buildLibraryJar() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+			writeEntry(zip, "example/demeter/B.class", readExampleClass("example/demeter/B"));
+			writeEntry(zip, "example/dry/Animal.class", readExampleClass("example/dry/Animal"));
+		}
+		return bytes.toByteArray();
+	}
+
+	private String buildWar() throws IOException {
+		String path = tempDir.resolve("app.war").toString();
+		try (OutputStream out = new FileOutputStream(path); ZipOutputStream zip = new ZipOutputStream(out)) {
+			writeEntry(zip, "META-INF/MANIFEST.MF", "Manifest-Version: 1.0\n".getBytes("UTF-8"));
+			writeEntry(zip, "META-INF/versions/9/example/demeter/A.class", readExampleClass("example/demeter/A"));
+			writeEntry(zip, "WEB-INF/classes/example/demeter/A.class", readExampleClass("example/demeter/A"));
+			writeEntry(zip, "WEB-INF/classes/example/template/Tea.class", readExampleClass("example/template/Tea"));
+			writeEntry(zip, "WEB-INF/lib/util.jar", buildLibraryJar());
+			writeEntry(zip, "index.html", "<html></html>".getBytes("UTF-8"));
+		}
+		return path;
+	}
+
+	@Test
+	public void testReadsClassesAndNestedLibraries() throws IOException {
+		String war = buildWar();
+		try (ArchiveClassSource source = new ArchiveClassSource(war, null)) {
+			String[] names = source.getEntryNames();
+			assertEquals(4, names.length);
+			assertEquals(war + "!/WEB-INF/lib/util.jar!/example/demeter/B.class", names[2]);
+
+			ASMParser parser = new ASMParser(source.getStreams());
+			String[] parsed = parser.getParsedClassNames();
+			Arrays.sort(parsed);
+			assertArrayEquals(new String[] { "example/demeter/A", "example/demeter/B", "example/dry/Animal",
+					"example/template/Tea" }, parsed);
+			assertEquals("example/template/CaffeineBeverage", parser.getSuperName("example/template/Tea"));
+		}
+	}
+
+	@Test
+	public void testEntryPrefixesFilterClasses() throws IOException {
+		String war = buildWar();
+		try (ArchiveClassSource source = new ArchiveClassSource(war, new String[] { "example.demeter" })) {
+			ASMParser parser = new ASMParser(source.getStreams());
+			String[] parsed = parser.getParsedClassNames();
+			Arrays.sort(parsed);
+			assertArrayEquals(new String[] { "example/demeter/A", "example/demeter/B" }, parsed);
+		}
+	}
+
+	@Test
+	public void testIsArchive() {
+		assertTrue(ArchiveClassSource.isArchive("lib/app.JAR"));
+		assertTrue(ArchiveClassSource.isArchive("app.war"));
+		assertTrue(ArchiveClassSource.isArchive("bundle.ear"));
+		assertTrue(ArchiveClassSource.isArchive("classes.zip"));
+		assertFalse(ArchiveClassSource.isArchive("Example.class"));
+	}
+}
@@ -0,0 +1,137 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import datasource.ASMParser;
+import datasource.ClassFileWalker;
+
+public class ClassFileWalkerTest {
+
+	private final String[] exampleClasses = {
+			"example/demeter/A",
+			"example/demeter/B",
+			"example/dry/Animal",
+			"example/template/Tea",
+	};
+
+	@TempDir
+	Path tempDir;
+
+	private Path buildClassTree() throws IOException {
+		Path root = ClassTreeFixture.buildClassTree(tempDir.resolve("classes"), exampleClasses);
+		Files.write(root.resolve("example/readme.txt"), "not a class".getBytes("UTF-8"));
+		// A link back to the root and a second link to an already walked tree
+		Files.createSymbolicLink(root.resolve("example/dry/loop"), root);
+		Files.createSymbolicLink(root.resolve("alias"), root.resolve("example/template"));
+		// A link to classes outside the tree
+		Path outside = Files.createDirectories(tempDir.resolve("outside/example/template"));
+		try (InputStream stream = ClassLoader.getSystemResourceAsStream("example/template/Coffee.class")) {
+			Files.copy(stream, outside.resolve("Coffee.class"));
+		}
+		Files.createSymbolicLink(root.resolve("outside"), tempDir.resolve("outside"));
+		return root;
+	}
+
+	private static List<Path> drain(BlockingQueue<Path> queue) throws InterruptedException {
+		List<Path> paths = new ArrayList<>();
+		Path path;
+		while ((path = queue.take()) != ClassFileWalker.END_OF_WALK) {
+			paths.add(path);
+		}
+		return paths;
+	}
+
+	@Test
+	public void testWalkFollowsLinksOnce() throws IOException, InterruptedException {
+		Path root = buildClassTree();
+		for (int threads : new int[] { 1, 4 }) {
+			BlockingQueue<Path> queue = new LinkedBlockingQueue<>();
+			ClassFileWalker walker = new ClassFileWalker(true, threads);
+			walker.walk(root, queue);
+
+			List<Path> paths = drain(queue);
+			assertEquals(exampleClasses.length + 1, paths.size());
+			assertTrue(walker.getWalkFailures().isEmpty());
+		}
+	}
+
+	@Test
+	public void testWalkSkipsLinksWhenNotFollowing() throws IOException, InterruptedException {
+		Path root = buildClassTree();
+		BlockingQueue<Path> queue = new LinkedBlockingQueue<>();
+		new ClassFileWalker(false, 1).walk(root, queue);
+
+		assertEquals(exampleClasses.length, drain(queue).size());
+		assertTrue(queue.isEmpty());
+	}
+
+	@Test
+	public void testCancelledWalkStopsOnFullQueue() throws Exception {
+		Path root = buildClassTree();
+		for (int threads : new int[] { 1, 4 }) {
+			BlockingQueue<Path> queue = new ArrayBlockingQueue<>(1);
+			ClassFileWalker walker = new ClassFileWalker(true, threads);
+			Thread walkThread = new Thread(() -> {
+				try {
+					walker.walk(root, queue);
+				} catch (InterruptedException e) {
+					// Expected once cancelled
+				}
+			});
+			walkThread.start();
+			// Nobody takes from the queue, so the walk blocks once it is full
+			while (queue.remainingCapacity() > 0) {
+				Thread.sleep(1);
+			}
+
+			walker.cancel();
+			walkThread.interrupt();
+			walkThread.join(10000);
+			assertFalse(walkThread.isAlive());
+		}
+	}
+
+	@Test
+	public void testParserReadsWhileWalking() throws Exception {
+		Path root = buildClassTree();
+		Files.write(root.resolve("example/Broken.class"), new byte[] { 1, 2, 3 });
+		// Smaller than the tree, so the walker has to wait for the parser
+		BlockingQueue<Path> queue = new ArrayBlockingQueue<>(1);
+		ClassFileWalker walker = new ClassFileWalker(true, 2);
+		Thread walkThread = new Thread(() -> {
+			try {
+				walker.walk(root, queue);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		walkThread.start();
+
+		ASMParser parser = new ASMParser(queue, 2, null);
+		walkThread.join();
+
+		List<String> parsed = new ArrayList<>(Arrays.asList(parser.getParsedClassNames()));
+		assertTrue(parsed.remove("example/template/Coffee"));
+		parsed.sort(null);
+		assertArrayEquals(exampleClasses, parsed.toArray());
+		assertEquals(1, parser.getParseFailures().size());
+		assertEquals(root.resolve("example/Broken.class").toString(), parser.getParseFailures().get(0).getSource());
+		assertSame(ClassFileWalker.END_OF_WALK, queue.peek());
+	}
+}
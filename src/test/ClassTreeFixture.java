@@ -0,0 +1,25 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Lays compiled example classes out in a directory tree, the way a build
+ * writes them, for tests that lint or walk a directory.
+ */
+public final class ClassTreeFixture {
+
+	private ClassTreeFixture() {
+	}
+
+	public static Path buildClassTree(Path root, String[] classNames) throws IOException {
+		for (String className : classNames) {
+			Path target = root.resolve(className + ".class");
+			Files.createDirectories(target.getParent());
+			try (InputStream stream = ClassLoader.getSystemResourceAsStream(className + ".class")) {
+				Files.copy(stream, target);
+			}
+		}
+		return root;
+	}
+}
@@ -0,0 +1,108 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import corpus.CorpusGenerator;
+import datasource.ASMParser;
+
+public class CorpusGeneratorTest {
+
+	private static final String PACKAGE = "corpus/generated/p0/";
+
+	private static ASMParser parse(Map<String, byte[]> classFiles) throws IOException {
+		InputStream[] streams = new InputStream[classFiles.size()];
+		int i = 0;
+		for (byte[] classFile : classFiles.values()) {
+			streams[i++] = new ByteArrayInputStream(classFile);
+		}
+		return new ASMParser(streams);
+	}
+
+	@Test
+	public void testSameSeedGivesSameClassFiles() {
+		Map<String, byte[]> first = new CorpusGenerator(200).generate();
+		Map<String, byte[]> second = new CorpusGenerator(200).generate();
+		assertEquals(first.keySet(), second.keySet());
+		for (String className : first.keySet()) {
+			assertArrayEquals(first.get(className), second.get(className));
+		}
+
+		CorpusGenerator reseeded = new CorpusGenerator(200);
+		reseeded.setSeed(1);
+		Map<String, byte[]> third = reseeded.generate();
+		assertEquals(first.keySet(), third.keySet());
+		assertFalse(first.keySet().stream().allMatch(name -> Arrays.equals(first.get(name), third.get(name))));
+	}
+
+	@Test
+	public void testLayout() throws IOException {
+		CorpusGenerator generator = new CorpusGenerator(12, 3);
+		generator.setHierarchyDepth(4);
+		generator.setMethodsPerType(2);
+		generator.setCallFanOut(3);
+		Map<String, byte[]> classFiles = generator.generate();
+		assertEquals(15, classFiles.size());
+
+		ASMParser parser = parse(classFiles);
+		assertTrue(parser.isInterface(PACKAGE + "Service2"));
+		assertFalse(parser.isInterface(PACKAGE + "Component11"));
+
+		// Chains of four classes, each chain implementing the next interface
+		assertEquals("java/lang/Object", parser.getSuperName(PACKAGE + "Component4"));
+		assertEquals(PACKAGE + "Component4", parser.getSuperName(PACKAGE + "Component5"));
+		assertEquals(PACKAGE + "Component6", parser.getSuperName(PACKAGE + "Component7"));
+		assertArrayEquals(new String[] { PACKAGE + "Service1" }, parser.getInterfaces(PACKAGE + "Component7"));
+		assertArrayEquals(new String[] { PACKAGE + "Service2" }, parser.getInterfaces(PACKAGE + "Component8"));
+
+		assertEquals(Arrays.asList("<init>", "run0", "run1", "helper"),
+				Arrays.asList(parser.getMethods(PACKAGE + "Component0")));
+		// One call to each dependency and one to the helper
+		assertEquals(4, parser.getMethodCalls(PACKAGE + "Component0", "run1").size());
+	}
+
+	@Test
+	public void testDensities() throws IOException {
+		CorpusGenerator generator = new CorpusGenerator(20);
+		generator.setTryCatchDensity(1);
+		generator.setGenericDensity(1);
+		ASMParser parser = parse(generator.generate());
+		for (String className : parser.getParsedClassNames()) {
+			assertTrue(parser.getSignature(className).startsWith("<T:Ljava/lang/Object;>"));
+			if (!parser.isInterface(className)) {
+				assertArrayEquals(new String[] { "java/lang/IllegalStateException" },
+						parser.getMethodExceptionCaught(className, "run0"));
+			}
+		}
+
+		generator.setTryCatchDensity(0);
+		generator.setGenericDensity(0);
+		parser = parse(generator.generate());
+		for (String className : parser.getParsedClassNames()) {
+			assertNull(parser.getSignature(className));
+			if (!parser.isInterface(className)) {
+				assertEquals(0, parser.getMethodExceptionCaught(className, "run0").length);
+			}
+		}
+	}
+
+	@Test
+	public void testInvalidSettings() {
+		assertThrows(IllegalArgumentException.class, () -> new CorpusGenerator(0));
+		assertThrows(IllegalArgumentException.class, () -> new CorpusGenerator(-1, 2));
+		CorpusGenerator generator = new CorpusGenerator(10);
+		assertThrows(IllegalArgumentException.class, () -> generator.setHierarchyDepth(0));
+		assertThrows(IllegalArgumentException.class, () -> generator.setTryCatchDensity(1.5));
+		assertThrows(IllegalArgumentException.class, () -> generator.setGenericDensity(-0.1));
+	}
+}
@@ -1,7 +1,11 @@
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import java.io.IOException;
+
 import org.junit.jupiter.api.Test;
 
+import datasource.ASMParser;
+
 import domain.AnalyzerReturn;
 import domain.analyzer.DryAnalyzer;
 import domain.message.LinterMessage;
@@ -116,4 +120,17 @@ public class DryTest {
 		for (LinterMessage e : returned.errorsCaught)
 			assertEquals(AnalyzerFixture.WARNING_MSG_TYPE, e.getMessageType());
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void fastCallSitePathMatchesFrameAnalysisTest() throws IOException {
+		String[] classList = { "example/dry/Cat", "example/dry/Dog", "example/dry/CatExtendsAnimal",
+				"example/dry/DogExtendsAnimal", "example/dry/Kitten", "example/dry/Puppy" };
+		ASMParser parser = new ASMParser(classList);
+		parser.setCallSiteVerification(true);
+		this.analyzer = new DryAnalyzer(parser);
+		AnalyzerReturn returned = this.analyzer.getFeedback(classList);
+
+		AnalyzerReturn expected = new DryAnalyzer(classList).getFeedback(classList);
+		AnalyzerFixture.assertSameFindings(expected, returned);
+	}
+}
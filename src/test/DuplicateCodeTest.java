@@ -0,0 +1,63 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStream;
+import java.util.EnumSet;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import datasource.ASMParser;
+import datasource.ClassFact;
+import domain.AnalyzerReturn;
+import domain.analyzer.DuplicateCodeAnalyzer;
+import domain.message.LinterMessage;
+
+public class DuplicateCodeTest extends AnalyzerFixture<DuplicateCodeAnalyzer> {
+
+	private final String[] cloneClasses = { "example/dry/InvoicePrinter", "example/dry/ReceiptPrinter" };
+
+	@Override
+	@BeforeEach
+	protected void initAnalyzerUUT() {
+		this.populateParserData(cloneClasses);
+		this.analyzer = new DuplicateCodeAnalyzer(this.parser);
+	}
+
+	@Test
+	public void renamedCloneAcrossClassesTest() {
+		AnalyzerReturn returned = this.analyzer.getFeedback(cloneClasses);
+
+		assertEquals("DryAnalyzer (Structural Clones)", returned.analyzerName);
+		assertEquals(1, returned.errorsCaught.size());
+		LinterMessage message = returned.errorsCaught.get(0);
+		assertEquals(WARNING_MSG_TYPE, message.getMessageType());
+		assertEquals("example/dry/ReceiptPrinter", message.className);
+		assertEquals("printReceipt", message.methodName);
+		assertTrue(message.message.contains("also appear in method printInvoice of class example/dry/InvoicePrinter"));
+	}
+
+	@Test
+	public void shortMethodsAreNotClonesTest() {
+		String[] classList = { "example/dry/Cat", "example/dry/Dog", "example/dry/Kitten", "example/dry/Puppy" };
+		this.populateParserData(classList);
+		this.analyzer = new DuplicateCodeAnalyzer(this.parser);
+		AnalyzerReturn returned = this.analyzer.getFeedback(classList);
+
+		assertEquals(0, returned.errorsCaught.size());
+	}
+
+	@Test
+	public void streamingParseMatchesFullParseTest() {
+		AnalyzerReturn expected = this.analyzer.getFeedback(cloneClasses);
+
+		InputStream[] streams = new InputStream[cloneClasses.length];
+		for (int i = 0; i < cloneClasses.length; i++) {
+			streams[i] = ClassLoader.getSystemResourceAsStream(cloneClasses[i] + ".class");
+		}
+		ASMParser streaming = new ASMParser(streams, 1, EnumSet.copyOf(DuplicateCodeAnalyzer.REQUIRED_FACTS));
+		AnalyzerReturn returned = new DuplicateCodeAnalyzer(streaming).getFeedback(cloneClasses);
+
+		assertSameFindings(expected, returned);
+	}
+}
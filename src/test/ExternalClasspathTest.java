@@ -0,0 +1,161 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import datasource.ASMParser;
+import datasource.ExternalClasspath;
+
+public class ExternalClasspathTest {
+
+	private static final String ADAPTER = "example/objectadapter/AdapterBothCorrect";
+	private static final String TARGET = "example/objectadapter/TargetInterface";
+
+	@TempDir
+	Path tempDir;
+
+	private static byte[] classBytes(String className) throws IOException {
+		try (InputStream stream = ClassLoader.getSystemResourceAsStream(className + ".class")) {
+			return readAll(stream);
+		}
+	}
+
+	private static byte[] readAll(InputStream stream) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int read;
+		while ((read = stream.read(buffer)) != -1) {
+			bytes.write(buffer, 0, read);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Writes the first class stored and the others deflated, so both ways of
+	 * reading an entry are used.
+	 */
+	private Path writeJar(String jarName, String... classNames) throws IOException {
+		byte[][] contents = new byte[classNames.length][];
+		for (int i = 0; i < classNames.length; i++) {
+			contents[i] = classBytes(classNames[i]);
+		}
+		return this.writeJar(jarName, classNames, contents);
+	}
+
+	private Path writeJar(String jarName, String[] classNames, byte[][] contents) throws IOException {
+		Path jar = this.tempDir.resolve(jarName);
+		try (OutputStream out = Files.newOutputStream(jar); ZipOutputStream zip = new ZipOutputStream(out)) {
+			for (int i = 0; i < classNames.length; i++) {
+				byte[] bytes = contents[i];
+				ZipEntry entry = new ZipEntry(classNames[i] + ".class");
+				if (i == 0) {
+					CRC32 crc = new CRC32();
+					crc.update(bytes);
+					entry.setMethod(ZipEntry.STORED);
+					entry.setSize(bytes.length);
+					entry.setCrc(crc.getValue());
+				}
+				zip.putNextEntry(entry);
+				zip.write(bytes);
+				zip.closeEntry();
+			}
+		}
+		return jar;
+	}
+
+	@Test
+	public void testReadsStoredAndDeflatedJarEntries() throws IOException {
+		Path jar = this.writeJar("lib.jar", TARGET, ADAPTER);
+
+		try (ExternalClasspath classpath = new ExternalClasspath(Collections.singletonList(jar), null)) {
+			assertArrayEquals(classBytes(TARGET), classpath.readClass(TARGET));
+			assertArrayEquals(classBytes(ADAPTER), classpath.readClass(ADAPTER));
+			assertThrows(IOException.class, () -> classpath.readClass("example/objectadapter/Missing"));
+		}
+	}
+
+	@Test
+	public void testReadsClassDirectoriesAndJdkClasses() throws IOException {
+		Path classes = this.tempDir.resolve("classes");
+		Files.createDirectories(classes.resolve("example/objectadapter"));
+		Files.write(classes.resolve(TARGET + ".class"), classBytes(TARGET));
+
+		try (ExternalClasspath classpath = new ExternalClasspath(Collections.singletonList(classes), null)) {
+			assertArrayEquals(classBytes(TARGET), classpath.readClass(TARGET));
+			assertTrue(classpath.readClass("java/util/List").length > 0);
+			// DesignLint's own classpath is not searched
+			assertThrows(IOException.class, () -> classpath.readClass(ADAPTER));
+		}
+	}
+
+	@Test
+	public void testReadsJdkHome() throws IOException {
+		Path jdkHome = Paths.get(System.getProperty("java.home"));
+
+		try (ExternalClasspath classpath = new ExternalClasspath(Collections.emptyList(), jdkHome)) {
+			assertTrue(classpath.readClass("java/lang/String").length > 0);
+			assertThrows(IOException.class, () -> classpath.readClass("java/lang/NoSuchClass"));
+		}
+		assertThrows(IOException.class,
+				() -> new ExternalClasspath(Collections.emptyList(), this.tempDir.resolve("not-a-jdk")));
+	}
+
+	@Test
+	public void testModuleImageWithoutJrtFileSystemIsRejected() throws IOException {
+		Path jdkHome = this.tempDir.resolve("jdk");
+		Files.createDirectories(jdkHome.resolve("lib"));
+		Files.write(jdkHome.resolve("lib").resolve("modules"), new byte[] { 0 });
+
+		IOException e = assertThrows(IOException.class,
+				() -> new ExternalClasspath(Collections.emptyList(), jdkHome));
+		assertTrue(e.getMessage().contains("jrt-fs.jar"));
+	}
+
+	@Test
+	public void testEarlierEntriesWin() throws IOException {
+		// The first jar holds a different class file under the same name
+		Path first = this.writeJar("first.jar", new String[] { TARGET }, new byte[][] { classBytes(ADAPTER) });
+		Path second = this.writeJar("second.jar", ADAPTER, TARGET);
+
+		List<Path> entries = ExternalClasspath.parseClasspath(
+				first.getFileName() + File.pathSeparator + second.getFileName(), this.tempDir);
+		assertEquals(Arrays.asList(first, second), entries);
+		try (ExternalClasspath classpath = new ExternalClasspath(entries, null)) {
+			assertArrayEquals(classBytes(ADAPTER), classpath.readClass(TARGET));
+			assertArrayEquals(classBytes(ADAPTER), classpath.readClass(ADAPTER));
+		}
+	}
+
+	@Test
+	public void testParserLooksUpClassesOnExternalClasspath() throws IOException {
+		Path jar = this.writeJar("lib.jar", ADAPTER, TARGET);
+		ASMParser parser = new ASMParser(new String[] { "example/demeter/A" });
+
+		try (ExternalClasspath empty = new ExternalClasspath(Collections.emptyList(), null)) {
+			parser.setExternalClasspath(empty);
+			assertTrue(parser.getInterfacesList(ADAPTER).isEmpty());
+		}
+		try (ExternalClasspath classpath = new ExternalClasspath(Collections.singletonList(jar), null)) {
+			parser.setExternalClasspath(classpath);
+			assertEquals(Collections.singletonList(TARGET), parser.getInterfacesList(ADAPTER));
+		}
+	}
+}
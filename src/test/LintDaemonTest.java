@@ -0,0 +1,181 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import datasource.ASMParser;
+import datasource.ClassFileModel;
+
+public class LintDaemonTest {
+
+	private final String[] exampleClasses = {
+			"example/demeter/A",
+			"example/demeter/B",
+			"example/dry/Cat",
+			"example/dry/Dog",
+	};
+
+	@TempDir
+	Path tempDir;
+
+	private LintDaemon daemon;
+	private Thread daemonThread;
+
+	@BeforeEach
+	public void startDaemon() throws IOException {
+		this.daemon = new LintDaemon(0, this.tokenDirectory());
+		this.daemonThread = new Thread(() -> {
+			try {
+				this.daemon.serve();
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		this.daemonThread.start();
+	}
+
+	private Path tokenDirectory() {
+		return tempDir.resolve("tokens");
+	}
+
+	@AfterEach
+	public void stopDaemon() throws IOException, InterruptedException {
+		this.daemon.close();
+		this.daemonThread.join();
+	}
+
+	@Test
+	public void testDaemonMatchesDirectRun() throws IOException {
+		Path classes = ClassTreeFixture.buildClassTree(tempDir.resolve("classes"), exampleClasses);
+		ByteArrayOutputStream direct = new ByteArrayOutputStream();
+		assertEquals(0, LinterMain.run(new String[] { "-vvv", classes.toString() }, null,
+				new PrintStream(direct, true), System.err, null));
+
+		// The second request is served from the resident model
+		for (int i = 0; i < 2; i++) {
+			ByteArrayOutputStream output = new ByteArrayOutputStream();
+			int status = LintClient.request(this.daemon.getPort(), this.tokenDirectory(), Arrays.asList("-vvv", "classes"), tempDir,
+					new PrintStream(output, true), System.err);
+			assertEquals(0, status);
+			assertEquals(direct.toString(), output.toString());
+		}
+	}
+
+	@Test
+	public void testBadSwitchIsReportedToClient() throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		int status = LintClient.request(this.daemon.getPort(), this.tokenDirectory(), Arrays.asList("-q"), tempDir,
+				new PrintStream(output, true), System.err);
+
+		assertEquals(1, status);
+		assertTrue(output.toString().startsWith("ERROR: Unexpected or Invalid Switch Encountered!"));
+	}
+
+	@Test
+	public void testUnreadableInputDoesNotStopDaemon() throws IOException {
+		// A missing class file is only skipped by the resident model, but a
+		// missing archive fails the whole request
+		ByteArrayOutputStream errors = new ByteArrayOutputStream();
+		int status = LintClient.request(this.daemon.getPort(), this.tokenDirectory(), Arrays.asList("Foo.jar"), tempDir,
+				new PrintStream(new ByteArrayOutputStream(), true), new PrintStream(errors, true));
+
+		assertEquals(1, status);
+		assertTrue(errors.toString().startsWith("ERROR: Error reading from class files specified in arguments!"));
+
+		// The daemon is still there to serve the next request
+		ClassTreeFixture.buildClassTree(tempDir.resolve("classes"), exampleClasses);
+		status = LintClient.request(this.daemon.getPort(), this.tokenDirectory(), Arrays.asList("-vvv", "classes"), tempDir,
+				new PrintStream(new ByteArrayOutputStream(), true), System.err);
+		assertEquals(0, status);
+	}
+
+	@Test
+	public void testRequestWithoutTokenIsRejected() throws IOException {
+		Path tokenFile = LintDaemon.tokenFile(this.tokenDirectory(), this.daemon.getPort());
+		if (Files.getFileStore(tokenFile).supportsFileAttributeView("posix")) {
+			assertEquals(PosixFilePermissions.fromString("rw-------"), Files.getPosixFilePermissions(tokenFile));
+		}
+
+		Path otherTokens = tempDir.resolve("other-tokens");
+		Files.createDirectories(otherTokens);
+		Files.write(LintDaemon.tokenFile(otherTokens, this.daemon.getPort()),
+				"not the token".getBytes(StandardCharsets.UTF_8));
+		ByteArrayOutputStream errors = new ByteArrayOutputStream();
+		Path cache = tempDir.resolve("cache");
+		int status = LintClient.request(this.daemon.getPort(), otherTokens,
+				Arrays.asList("--cache=" + cache, "classes"), tempDir, new PrintStream(new ByteArrayOutputStream(), true),
+				new PrintStream(errors, true));
+
+		assertEquals(LintDaemon.REJECTED_STATUS, status);
+		assertTrue(errors.toString().startsWith("ERROR: Lint request rejected"));
+		assertFalse(Files.exists(cache));
+	}
+
+	@Test
+	public void testTokenFileIsRemovedOnClose() throws IOException {
+		Path tokenFile = LintDaemon.tokenFile(this.tokenDirectory(), this.daemon.getPort());
+		assertTrue(Files.exists(tokenFile));
+		this.daemon.close();
+		assertFalse(Files.exists(tokenFile));
+	}
+
+	@Test
+	public void testModelDropsFilesNoLongerRequested() throws IOException {
+		Path classes = ClassTreeFixture.buildClassTree(tempDir.resolve("classes"), exampleClasses);
+		List<Path> classFiles = Arrays.asList(classes.resolve("example/demeter/A.class"),
+				classes.resolve("example/demeter/B.class"), classes.resolve("example/dry/Cat.class"));
+		Path otherRoot = tempDir.resolve("other");
+		ClassFileModel model = new ClassFileModel();
+
+		model.refresh(classes, classFiles);
+		model.refresh(otherRoot, classFiles.subList(0, 1));
+		assertEquals(3, model.size());
+
+		// A is still asked for by the other root
+		model.refresh(classes, classFiles.subList(2, 3));
+		assertEquals(2, model.size());
+		model.refresh(otherRoot, classFiles.subList(2, 3));
+		assertEquals(1, model.size());
+	}
+
+	@Test
+	public void testModelOnlyReparsesChangedFiles() throws IOException {
+		Path classes = ClassTreeFixture.buildClassTree(tempDir.resolve("classes"), exampleClasses);
+		Path classA = classes.resolve("example/demeter/A.class");
+		Path classCat = classes.resolve("example/dry/Cat.class");
+		List<Path> classFiles = Arrays.asList(classA, classes.resolve("example/demeter/B.class"), classCat);
+		ClassFileModel model = new ClassFileModel();
+
+		ASMParser first = model.refresh(classes, classFiles);
+		assertEquals(3, first.getParsedClassNames().length);
+		assertEquals(3, model.getReparsedCount());
+
+		model.refresh(classes, classFiles);
+		assertEquals(3, model.getReparsedCount());
+
+		// A is touched but unchanged, Cat gets different contents
+		Files.setLastModifiedTime(classA, FileTime.fromMillis(Files.getLastModifiedTime(classA).toMillis() + 5000));
+		Files.copy(classes.resolve("example/dry/Dog.class"), classCat, StandardCopyOption.REPLACE_EXISTING);
+		ASMParser second = model.refresh(classes, classFiles);
+
+		assertEquals(4, model.getReparsedCount());
+		assertTrue(Arrays.asList(second.getParsedClassNames()).contains("example/dry/Dog"));
+		assertEquals(first.getClassDigest("example/demeter/A"), second.getClassDigest("example/demeter/A"));
+	}
+}
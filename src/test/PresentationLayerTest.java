@@ -0,0 +1,272 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.w3c.dom.Document;
+
+import presentation.PresentationLayer;
+import presentation.Profile;
+import presentation.ReportFormat;
+
+public class PresentationLayerTest {
+
+	private static final int ANALYZER_FLAGS = PresentationLayer.EQUALS_HASHCODE_ANALYZER_FLAG
+			| PresentationLayer.DRY_ANALYZER_FLAG | PresentationLayer.STRATEGY_ANALYZER_FLAG;
+	private static final int FLAGS = PresentationLayer.ULTRA_VERBOSE_FLAG | PresentationLayer.SUPER_VERBOSE_FLAG
+			| PresentationLayer.VERBOSE_FLAG | ANALYZER_FLAGS;
+
+	private final String[] exampleClasses = {
+			"example/dry/Cat",
+			"example/dry/Dog",
+			"example/dry/Puppy",
+			"example/strategy/CompliantClassUsingStrategyB",
+			"example/strategy/strategytype/typeb/CompliantStrategyTypeB",
+			"example/strategy/strategytype/typeb/CompliantStrategyB1",
+			"example/strategy/strategytype/typeb/CompliantStrategyB2",
+	};
+
+	private String[] exampleFiles() throws URISyntaxException {
+		String[] files = new String[exampleClasses.length];
+		for (int i = 0; i < exampleClasses.length; i++) {
+			files[i] = Paths.get(ClassLoader.getSystemResource(exampleClasses[i] + ".class").toURI()).toString();
+		}
+		return files;
+	}
+
+	private String bufferedReport() throws URISyntaxException {
+		PresentationLayer presentation = new PresentationLayer(FLAGS);
+		presentation.setupAnalyzers(exampleFiles());
+		presentation.runAnalyzers();
+
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		presentation.vomitOutput(new PrintStream(output, true));
+		return output.toString();
+	}
+
+	private String report(int flags) throws URISyntaxException {
+		PresentationLayer presentation = new PresentationLayer(flags);
+		presentation.setupAnalyzers(exampleFiles());
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		presentation.runAnalyzers(new PrintStream(output));
+		return output.toString();
+	}
+
+	@Test
+	public void testCloneModeOnlyRunsWhenAskedFor() throws URISyntaxException {
+		int verbose = PresentationLayer.VERBOSE_FLAG | PresentationLayer.SUPER_VERBOSE_FLAG;
+		assertFalse(report(verbose | PresentationLayer.ALL_ANALYZERS).contains("(Structural Clones)"));
+		assertTrue(report(verbose | PresentationLayer.ALL_ANALYZERS | PresentationLayer.DRY_CLONE_ANALYZER_FLAG)
+				.contains("(Structural Clones)"));
+	}
+
+	@Test
+	public void testStreamedReportMatchesBufferedReport() throws URISyntaxException {
+		String expected = bufferedReport();
+		assertTrue(expected.contains("Linter Name - Strategy Pattern Detection"));
+
+		PresentationLayer sequential = new PresentationLayer(FLAGS);
+		sequential.setupAnalyzers(exampleFiles());
+		ByteArrayOutputStream sequentialOutput = new ByteArrayOutputStream();
+		sequential.runAnalyzers(new PrintStream(sequentialOutput));
+		assertEquals(expected, sequentialOutput.toString());
+
+		PresentationLayer concurrent = new PresentationLayer(FLAGS);
+		concurrent.setupAnalyzers(exampleFiles());
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		ByteArrayOutputStream concurrentOutput = new ByteArrayOutputStream();
+		try {
+			concurrent.setAnalyzerExecutor(executor);
+			concurrent.runAnalyzers(new PrintStream(concurrentOutput));
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals(expected, concurrentOutput.toString());
+	}
+
+	@Test
+	public void testEachAnalyzerIsWrittenWhenItFinishes() throws URISyntaxException {
+		// Records how much of the report had reached the stream at each flush
+		StringBuilder flushedSizes = new StringBuilder();
+		ByteArrayOutputStream output = new ByteArrayOutputStream() {
+			@Override
+			public void flush() {
+				flushedSizes.append(this.size()).append(' ');
+			}
+		};
+
+		PresentationLayer presentation = new PresentationLayer(FLAGS);
+		presentation.setupAnalyzers(exampleFiles());
+		presentation.runAnalyzers(new PrintStream(output));
+
+		String[] sizes = flushedSizes.toString().trim().split(" ");
+		// One flush per analyzer and one for the summary
+		assertEquals(Integer.bitCount(ANALYZER_FLAGS) + 1, sizes.length);
+		for (int i = 1; i < sizes.length; i++) {
+			assertTrue(Integer.parseInt(sizes[i - 1]) < Integer.parseInt(sizes[i]));
+		}
+		assertEquals(output.size(), Integer.parseInt(sizes[sizes.length - 1]));
+	}
+
+	@Test
+	public void testProfileMeasuresEveryPhase() throws URISyntaxException {
+		Profile profile = new Profile(false);
+		PresentationLayer presentation = new PresentationLayer(FLAGS);
+		presentation.setProfile(profile);
+		presentation.setupAnalyzers(exampleFiles());
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		presentation.runAnalyzers(new PrintStream(output));
+		assertEquals(bufferedReport(), output.toString());
+
+		ByteArrayOutputStream table = new ByteArrayOutputStream();
+		profile.writeTable(new PrintStream(table));
+		String[] lines = table.toString().split("\\R");
+		int parser = Arrays.asList(lines).indexOf("ASMParser");
+		int equalsAndHashcode = Arrays.asList(lines).indexOf("EqualsAndHashcodeAnalyzer");
+		int dry = Arrays.asList(lines).indexOf("DryAnalyzer");
+		int strategy = Arrays.asList(lines).indexOf("StrategyAnalyzer");
+		int report = Arrays.asList(lines).indexOf("ReportWriter");
+		assertTrue(0 < parser && parser < equalsAndHashcode && equalsAndHashcode < dry && dry < strategy
+				&& strategy < report);
+		assertTrue(lines[parser + 1].trim().startsWith("parse"));
+		assertTrue(lines[dry + 1].trim().startsWith("getRelevantData"));
+		assertTrue(lines[dry + 2].trim().startsWith("analyzeData"));
+		assertTrue(lines[dry + 3].trim().startsWith("composeReturnType"));
+		assertTrue(lines[dry + 4].trim().startsWith("output"));
+		assertTrue(lines[dry + 5].trim().startsWith("total"));
+		assertTrue(lines[report + 1].trim().startsWith("writeSummary"));
+		assertFalse(table.toString().contains("Slowest Classes:"));
+	}
+
+	@Test
+	public void testPerClassProfile(@TempDir Path tempDir) throws URISyntaxException, IOException {
+		Profile profile = new Profile(true);
+		PresentationLayer presentation = new PresentationLayer(FLAGS);
+		presentation.setProfile(profile);
+		presentation.setupAnalyzers(exampleFiles());
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		presentation.runAnalyzers(new PrintStream(output));
+
+		// Local analyzers list their findings class by class, but find the same
+		String[] expected = bufferedReport().split("\\R");
+		String[] actual = output.toString().split("\\R");
+		Arrays.sort(expected);
+		Arrays.sort(actual);
+		assertTrue(Arrays.equals(expected, actual));
+
+		ByteArrayOutputStream table = new ByteArrayOutputStream();
+		profile.writeTable(new PrintStream(table));
+		assertTrue(table.toString().contains("Slowest Classes:"));
+
+		Path json = tempDir.resolve("profile.json");
+		profile.writeJson(json);
+		String written = new String(Files.readAllBytes(json), StandardCharsets.UTF_8);
+		assertTrue(written.startsWith("{\n  \"phases\": ["));
+		assertTrue(written.contains("{\"section\": \"DryAnalyzer\", \"phase\": \"analyzeData\", \"wallNanos\": "));
+		for (String className : exampleClasses) {
+			assertTrue(written.contains("{\"section\": \"EqualsAndHashcodeAnalyzer\", \"phase\": \"getRelevantData\", "
+					+ "\"className\": \"" + className + "\", \"wallNanos\": "));
+		}
+		// Global analyzers need every class at once
+		assertFalse(written.contains("{\"section\": \"DryAnalyzer\", \"phase\": \"analyzeData\", \"className\""));
+	}
+
+	private String report(ReportFormat format) throws URISyntaxException {
+		// No verbosity flags, which the machine readable formats ignore
+		PresentationLayer presentation = new PresentationLayer(ANALYZER_FLAGS);
+		presentation.setReportFormat(format);
+		presentation.setupAnalyzers(exampleFiles());
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		presentation.runAnalyzers(new PrintStream(output));
+		return new String(output.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private static int count(String text, String part) {
+		int count = 0;
+		for (int i = text.indexOf(part); i >= 0; i = text.indexOf(part, i + part.length())) {
+			count++;
+		}
+		return count;
+	}
+
+	// Checks that braces and brackets outside of strings are balanced
+	private static void assertBalancedJson(String json) {
+		int depth = 0;
+		boolean inString = false;
+		for (int i = 0; i < json.length(); i++) {
+			char c = json.charAt(i);
+			if (inString) {
+				if (c == '\\') {
+					i++;
+				} else if (c == '"') {
+					inString = false;
+				}
+			} else if (c == '"') {
+				inString = true;
+			} else if (c == '{' || c == '[') {
+				depth++;
+			} else if (c == '}' || c == ']') {
+				depth--;
+				assertTrue(depth >= 0);
+			}
+		}
+		assertFalse(inString);
+		assertEquals(0, depth);
+	}
+
+	@Test
+	public void testJsonReport() throws URISyntaxException {
+		String json = report(ReportFormat.JSON);
+		assertBalancedJson(json);
+		assertEquals(count(bufferedReport(), "Type - "), count(json, "{\"type\": "));
+		assertEquals(3, count(json, "\"findings\": ["));
+		assertTrue(json.contains("\"name\": \"DryAnalyzer\""));
+		assertTrue(json.contains("\"summary\": {\"errors\": "));
+	}
+
+	@Test
+	public void testSarifReport() throws URISyntaxException {
+		String sarif = report(ReportFormat.SARIF);
+		assertBalancedJson(sarif);
+		assertTrue(sarif.contains("\"version\": \"2.1.0\""));
+		assertEquals(count(bufferedReport(), "Type - "), count(sarif, "{\"ruleId\": "));
+		assertTrue(sarif.contains("{\"id\": \"DryAnalyzer\"}"));
+		assertTrue(sarif.contains("\"uri\": \"example/dry/Cat.java\""));
+	}
+
+	@Test
+	public void testCheckstyleReport() throws Exception {
+		String xml = report(ReportFormat.CHECKSTYLE_XML);
+		Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+				.parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+		assertEquals("checkstyle", document.getDocumentElement().getTagName());
+		assertEquals(count(bufferedReport(), "Type - "), document.getElementsByTagName("error").getLength());
+		assertTrue(xml.contains("<file name=\"example/dry/Cat.java\">"));
+	}
+
+	@Test
+	public void testReportFormatNames() {
+		for (ReportFormat format : ReportFormat.values()) {
+			assertEquals(format, ReportFormat.forName(format.getName()));
+		}
+		assertEquals(ReportFormat.CHECKSTYLE_XML, ReportFormat.forName("checkstyle-xml"));
+		assertNull(ReportFormat.forName("yaml"));
+	}
+}
@@ -1,9 +1,13 @@
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.IOException;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import datasource.ASMParser;
 import domain.AnalyzerReturn;
 import domain.analyzer.PrincipleOfLeastKnowledgeAnalyzer;
 import domain.message.LinterMessage;
@@ -158,4 +162,15 @@ public class PrincipleOfLeastKnowledgeCheckTest extends AnalyzerFixture<Principl
 		}
 	}
 
+	@Test
+	public void testFastCallSitePathMatchesFrameAnalysis() throws IOException {
+		ASMParser verifyingParser = new ASMParser(exampleClasses);
+		verifyingParser.setCallSiteVerification(true);
+		PrincipleOfLeastKnowledgeAnalyzer verifyingAnalyzer = new PrincipleOfLeastKnowledgeAnalyzer(verifyingParser);
+
+		AnalyzerReturn expected = this.analyzer.getFeedback(exampleClasses);
+		AnalyzerReturn verified = verifyingAnalyzer.getFeedback(exampleClasses);
+
+		assertSameFindings(expected, verified);
+	}
 }
@@ -0,0 +1,142 @@
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import corpus.CorpusGenerator;
+import datasource.ASMParser;
+import domain.DomainAnalyzer;
+import domain.analyzer.CodeToInterfaceAnalyzer;
+import domain.analyzer.DryAnalyzer;
+import domain.analyzer.DuplicateCodeAnalyzer;
+import domain.analyzer.EqualsAndHashcodeAnalyzer;
+import domain.analyzer.ExceptionThrownAnalyzer;
+import domain.analyzer.GenericTypeNameAnalyzer;
+import domain.analyzer.HighCouplingAnalyzer;
+import domain.analyzer.ObjectAdapterIdentifierAnalyzer;
+import domain.analyzer.PrincipleOfLeastKnowledgeAnalyzer;
+import domain.analyzer.SingletonAnalyzer;
+import domain.analyzer.StrategyAnalyzer;
+import domain.analyzer.TemplateMethodAnalyzer;
+import domain.analyzer.VarNameAnalyzer;
+
+/**
+ * Times every analyzer on generated corpora of doubling size and fits the
+ * growth exponent k in time = c * size^k. An analyzer fails when k goes over
+ * its budget. Every analyzer is expected to be linear in the number of
+ * classes, so the budgets only leave room for timing noise; an analyzer that
+ * has to compare classes pairwise by design would declare a budget near 2.
+ *
+ * Tagged so the default test run leaves it out, as it takes a while and
+ * depends on the machine being otherwise idle. Run it with -Pscaling.
+ */
+@Tag("scaling")
+public class ScalingTest {
+
+	private static final int[] CORPUS_SIZES = { 250, 500, 1000, 2000 };
+	private static final int RUNS_PER_SIZE = 3;
+	private static final double LINEAR_BUDGET = 1.35;
+
+	private static byte[][][] corpora;
+	private static String[][] corpusClassNames;
+
+	private static Stream<Arguments> analyzers() {
+		return Stream.of(
+				Arguments.of("GN", (Function<ASMParser, DomainAnalyzer>) GenericTypeNameAnalyzer::new, LINEAR_BUDGET),
+				Arguments.of("VN", (Function<ASMParser, DomainAnalyzer>) VarNameAnalyzer::new, LINEAR_BUDGET),
+				Arguments.of("ET", (Function<ASMParser, DomainAnalyzer>) ExceptionThrownAnalyzer::new, LINEAR_BUDGET),
+				Arguments.of("EH", (Function<ASMParser, DomainAnalyzer>) EqualsAndHashcodeAnalyzer::new, LINEAR_BUDGET),
+				Arguments.of("HC", (Function<ASMParser, DomainAnalyzer>) HighCouplingAnalyzer::new, LINEAR_BUDGET),
+				Arguments.of("LK", (Function<ASMParser, DomainAnalyzer>) PrincipleOfLeastKnowledgeAnalyzer::new,
+						LINEAR_BUDGET),
+				Arguments.of("DR", (Function<ASMParser, DomainAnalyzer>) DryAnalyzer::new, LINEAR_BUDGET),
+				Arguments.of("DC", (Function<ASMParser, DomainAnalyzer>) DuplicateCodeAnalyzer::new, LINEAR_BUDGET),
+				Arguments.of("CI", (Function<ASMParser, DomainAnalyzer>) CodeToInterfaceAnalyzer::new, LINEAR_BUDGET),
+				Arguments.of("SI", (Function<ASMParser, DomainAnalyzer>) SingletonAnalyzer::new, LINEAR_BUDGET),
+				Arguments.of("OA", (Function<ASMParser, DomainAnalyzer>) ObjectAdapterIdentifierAnalyzer::new,
+						LINEAR_BUDGET),
+				Arguments.of("ST", (Function<ASMParser, DomainAnalyzer>) StrategyAnalyzer::new, LINEAR_BUDGET),
+				Arguments.of("TM", (Function<ASMParser, DomainAnalyzer>) TemplateMethodAnalyzer::new, LINEAR_BUDGET));
+	}
+
+	@BeforeAll
+	public static void generateCorpora() {
+		corpora = new byte[CORPUS_SIZES.length][][];
+		corpusClassNames = new String[CORPUS_SIZES.length][];
+		for (int i = 0; i < CORPUS_SIZES.length; i++) {
+			Map<String, byte[]> classFiles = new CorpusGenerator(CORPUS_SIZES[i]).generate();
+			corpusClassNames[i] = classFiles.keySet().toArray(new String[classFiles.size()]);
+			corpora[i] = classFiles.values().toArray(new byte[classFiles.size()][]);
+		}
+	}
+
+	@ParameterizedTest(name = "{0}")
+	@MethodSource("analyzers")
+	public void testGrowthWithinBudget(String analyzer, Function<ASMParser, DomainAnalyzer> factory, double budget) {
+		// Runs on the two smallest corpora first so the timed runs are compiled code
+		for (int run = 0; run < RUNS_PER_SIZE; run++) {
+			time(factory, 0);
+			time(factory, 1);
+		}
+
+		double[] times = new double[CORPUS_SIZES.length];
+		for (int i = 0; i < CORPUS_SIZES.length; i++) {
+			long fastest = Long.MAX_VALUE;
+			for (int run = 0; run < RUNS_PER_SIZE; run++) {
+				fastest = Math.min(fastest, time(factory, i));
+			}
+			times[i] = fastest;
+		}
+
+		double exponent = growthExponent(times);
+		assertTrue(exponent <= budget, analyzer + " grows as size^" + String.format("%.2f", exponent)
+				+ ", over its budget of size^" + budget + " (ns per size: " + Arrays.toString(times) + ")");
+	}
+
+	/**
+	 * @return The CPU time in nanoseconds the analyzer spends on the corpus,
+	 *         with a freshly parsed corpus so the parser caches start empty
+	 */
+	private static long time(Function<ASMParser, DomainAnalyzer> factory, int corpus) {
+		InputStream[] streams = new InputStream[corpora[corpus].length];
+		for (int i = 0; i < streams.length; i++) {
+			streams[i] = new ByteArrayInputStream(corpora[corpus][i]);
+		}
+		DomainAnalyzer analyzer = factory.apply(new ASMParser(streams, 1));
+
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		long start = threads.getCurrentThreadCpuTime();
+		analyzer.getFeedback(corpusClassNames[corpus]);
+		return threads.getCurrentThreadCpuTime() - start;
+	}
+
+	/**
+	 * @return The slope of the least squares line through the times against
+	 *         the corpus sizes, both on a log scale
+	 */
+	private static double growthExponent(double[] times) {
+		int count = CORPUS_SIZES.length;
+		double sumX = 0, sumY = 0, sumXY = 0, sumXX = 0;
+		for (int i = 0; i < count; i++) {
+			double x = Math.log(CORPUS_SIZES[i]);
+			double y = Math.log(times[i]);
+			sumX += x;
+			sumY += y;
+			sumXY += x * y;
+			sumXX += x * x;
+		}
+		return (count * sumXY - sumX * sumY) / (count * sumXX - sumX * sumX);
+	}
+}
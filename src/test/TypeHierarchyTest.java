@@ -0,0 +1,86 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import datasource.ASMParser;
+import datasource.TypeHierarchy;
+
+public class TypeHierarchyTest {
+
+	private final String[] exampleClasses = {
+			"example/template/CaffeineBeverage",
+			"example/template/Coffee",
+			"example/template/Tea",
+			"example/objectadapter/TargetAbstractClass",
+			"example/objectadapter/TargetInterface",
+			"example/objectadapter/AdapterBothCorrect",
+			"example/objectadapter/AdapterInterfaceCorrect",
+	};
+
+	private ASMParser parser;
+	private TypeHierarchy hierarchy;
+
+	@BeforeEach
+	public void setup() throws IOException {
+		this.parser = new ASMParser(exampleClasses);
+		this.hierarchy = this.parser.getTypeHierarchy();
+	}
+
+	@Test
+	public void testHierarchyIsShared() {
+		assertSame(this.hierarchy, this.parser.getTypeHierarchy());
+	}
+
+	@Test
+	public void testDirectRelationships() {
+		assertEquals(new HashSet<>(Arrays.asList("example/template/Coffee", "example/template/Tea")),
+				new HashSet<>(this.hierarchy.getDirectSubclasses("example/template/CaffeineBeverage")));
+		assertEquals(Collections.singletonList("example/objectadapter/AdapterBothCorrect"),
+				this.hierarchy.getDirectSubclasses("example/objectadapter/TargetAbstractClass"));
+		assertEquals(
+				new HashSet<>(Arrays.asList("example/objectadapter/AdapterBothCorrect",
+						"example/objectadapter/AdapterInterfaceCorrect")),
+				new HashSet<>(this.hierarchy.getDirectImplementors("example/objectadapter/TargetInterface")));
+
+		assertEquals(Arrays.asList("example/objectadapter/TargetAbstractClass", "example/objectadapter/TargetInterface"),
+				this.hierarchy.getDirectSupertypes("example/objectadapter/AdapterBothCorrect"));
+		assertEquals(Collections.singletonList("example/objectadapter/TargetInterface"),
+				this.hierarchy.getDirectInterfaces("example/objectadapter/AdapterBothCorrect"));
+		assertEquals("example/template/CaffeineBeverage", this.hierarchy.getSuperclass("example/template/Tea"));
+	}
+
+	@Test
+	public void testTransitiveRelationships() {
+		assertTrue(this.hierarchy.isSubtypeOf("example/template/Tea", "java/lang/Object"));
+		assertTrue(this.hierarchy.isSubtypeOf("example/objectadapter/AdapterBothCorrect",
+				"example/objectadapter/TargetInterface"));
+		assertFalse(this.hierarchy.isSubtypeOf("example/template/Tea", "example/template/Coffee"));
+		assertFalse(this.hierarchy.isSubtypeOf("example/template/Tea", "example/template/Tea"));
+
+		assertEquals(new HashSet<>(Arrays.asList("example/template/CaffeineBeverage", "java/lang/Object")),
+				new HashSet<>(this.hierarchy.getAllSupertypes("example/template/Coffee")));
+		assertEquals(exampleClasses.length, this.hierarchy.getAllSubtypes("java/lang/Object").size());
+	}
+
+	@Test
+	public void testOutsideTypes() {
+		assertTrue(this.hierarchy.isParsed("example/template/Tea"));
+		assertFalse(this.hierarchy.isParsed("java/lang/Object"));
+		assertTrue(this.hierarchy.getId("java/lang/Object") >= 0);
+		assertEquals(-1, this.hierarchy.getId("java/util/List"));
+
+		assertNull(this.hierarchy.getSuperclass("java/lang/Object"));
+		assertTrue(this.hierarchy.getDirectSupertypes("java/util/List").isEmpty());
+		assertTrue(this.hierarchy.getDirectSubclasses("java/util/List").isEmpty());
+	}
+}
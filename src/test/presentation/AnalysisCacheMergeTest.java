@@ -0,0 +1,85 @@
+package presentation;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import datasource.ASMParser;
+import domain.AnalysisScope;
+import domain.AnalyzerReturn;
+import domain.message.LinterMessage;
+import domain.message.WarningLinterMessage;
+
+/**
+ * Merges findings by hand, since none of the built-in per-class analyzers
+ * report findings without a class or about a class they were not given.
+ */
+public class AnalysisCacheMergeTest {
+
+	private static final int FLAG = PresentationLayer.VAR_NAME_ANALYZER_FLAG;
+
+	private final String[] exampleClasses = {
+			"example/demeter/A",
+			"example/demeter/B",
+			"example/demeter/C",
+	};
+
+	@TempDir
+	Path tempDir;
+
+	private AnalysisCache load(String[] classList) throws IOException {
+		InputStream[] streams = new InputStream[classList.length];
+		for (int i = 0; i < classList.length; i++) {
+			streams[i] = ClassLoader.getSystemResourceAsStream(classList[i] + ".class");
+		}
+		AnalysisCache cache = new AnalysisCache(tempDir, FLAG, null);
+		cache.load(new ASMParser(streams), classList, new FindingOrder(classList), System.err);
+		return cache;
+	}
+
+	private static LinterMessage finding(String className) {
+		return new WarningLinterMessage(className, null, "Finding about " + className);
+	}
+
+	private static List<String> lines(AnalyzerReturn analyzerReturn) {
+		List<String> lines = new ArrayList<>();
+		for (LinterMessage message : analyzerReturn.errorsCaught) {
+			lines.add(message.className + ": " + message.message);
+		}
+		return lines;
+	}
+
+	@Test
+	public void testFindingsWithoutAnalyzedClassAreKept() throws IOException {
+		AnalysisCache cold = load(exampleClasses);
+		assertArrayEquals(exampleClasses, cold.classesToAnalyze(FLAG, AnalysisScope.LOCAL, exampleClasses));
+		List<LinterMessage> found = Arrays.asList(finding("example/demeter/A"), finding(null),
+				finding("java/util/List"));
+		AnalyzerReturn coldReturn = cold.merge(FLAG, AnalysisScope.LOCAL, exampleClasses,
+				new AnalyzerReturn("Test", found));
+		assertEquals(3, coldReturn.errorsCaught.size());
+		cold.save();
+
+		AnalysisCache warm = load(exampleClasses);
+		String[] toAnalyze = warm.classesToAnalyze(FLAG, AnalysisScope.LOCAL, exampleClasses);
+		assertEquals(0, toAnalyze.length);
+		assertEquals(lines(coldReturn), lines(warm.merge(FLAG, AnalysisScope.LOCAL, toAnalyze, null)));
+		warm.save();
+
+		// Once anything changed, the analyzer has to see every class again
+		String[] fewerClasses = { "example/demeter/A", "example/demeter/B" };
+		AnalysisCache changed = load(fewerClasses);
+		assertArrayEquals(fewerClasses, changed.classesToAnalyze(FLAG, AnalysisScope.LOCAL, fewerClasses));
+		AnalyzerReturn refound = new AnalyzerReturn("Test", Arrays.asList(finding("example/demeter/A"), finding(null)));
+		assertEquals(lines(refound), lines(changed.merge(FLAG, AnalysisScope.LOCAL, fewerClasses, refound)));
+	}
+}